@@ -0,0 +1,162 @@
+package com.yarin.springproject.projectspring;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yarin.springproject.projectspring.company.Company;
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.job.JobDTO;
+import com.yarin.springproject.projectspring.job.JobDtoAssembler;
+import com.yarin.springproject.projectspring.job.JobEntityAssembler;
+import com.yarin.springproject.projectspring.recruiter.Recruiter;
+import com.yarin.springproject.projectspring.recruiter.RecruiterDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.AnnotationLinkRelationProvider;
+import org.springframework.hateoas.server.core.DelegatingLinkRelationProvider;
+import org.springframework.hateoas.server.core.EvoInflectorLinkRelationProvider;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-element response path of the large job lists, such as /jobs/info, for 10, 1k and 100k jobs:
+ * building the DTOs from the rows of the query, adding the links with the assemblers, and writing the HAL JSON.
+ * No database is involved: the rows and the entities are built in memory, and the links are built for a mock request.
+ * The JSON is written by an ObjectMapper set up like the HAL one of the application, with the same link relation
+ * providers and the {@link HalCollectionConfiguration}.
+ *
+ * <p>
+ * Run with: mvn -Pjmh test, which prints the time per operation and, with the gc profiler, the bytes allocated per
+ * operation ("gc.alloc.rate.norm"), and writes the results to target/jmh-result.json. Other JMH options can be given
+ * with -Djmh.args, for example -Djmh.args="-prof gc ResponsePathBenchmark.halSerialization -p jobs=1000".
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ResponsePathBenchmark {
+    @Param({"10", "1000", "100000"})
+    private int jobs;
+
+    private final JobDtoAssembler jobDtoAssembler = new JobDtoAssembler();
+    private final JobEntityAssembler jobEntityAssembler = new JobEntityAssembler();
+    private final ObjectMapper halObjectMapper = Jackson2ObjectMapperBuilder.json()
+            .modules(new Jackson2HalModule())
+            .handlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(new DelegatingLinkRelationProvider(
+                    new AnnotationLinkRelationProvider(), new EvoInflectorLinkRelationProvider()),
+                    CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY))
+            .postConfigurer(HalCollectionConfiguration::customize)
+            .build();
+
+    private List<Object[]> jobRows;
+    private List<Job> jobEntities;
+    private List<Recruiter> recruiters;
+    private List<JobDTO> jobDtos;
+    private CollectionModel<EntityModel<JobDTO>> jobDtoModel;
+
+    /**
+     * Builds the jobs, each with a company and a recruiter, along with the rows JobRepo.findInfoByIdIn selects for
+     * them, and binds a mock request for the links.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/jobs/info");
+        request.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        jobRows = new ArrayList<>(jobs);
+        jobEntities = new ArrayList<>(jobs);
+        recruiters = new ArrayList<>(jobs);
+        for (long id = 1; id <= jobs; id++) {
+            Company company = new Company("Company " + id % 100);
+            company.setId(id % 100 + 1);
+            Recruiter recruiter = new Recruiter("Recruiter " + id, "recruiter" + id + "@bench.mark");
+            recruiter.setId(id);
+            Job job = new Job("Java Developer " + id, "20K", "Haifa", company, recruiter);
+            job.setId(id);
+            jobEntities.add(job);
+            jobRows.add(new Object[]{job.getId(), job.getTitle(), job.getSalary(), job.getLocation(),
+                    company.getId(), company.getName(), recruiter.getId(), recruiter.getName(), recruiter.getEmail()});
+            recruiters.add(recruiter);
+        }
+        jobDtos = jobDtoConstruction();
+        jobDtoModel = jobDtoAssembler.toCollectionModel(jobDtos);
+    }
+
+    /**
+     * Unbinds the mock request.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    /**
+     * The JobDTOs of /jobs/info, built by the constructor expression of JobRepo.findInfoByIdIn from the selected columns.
+     */
+    @Benchmark
+    public List<JobDTO> jobDtoConstruction() {
+        List<JobDTO> dtos = new ArrayList<>(jobRows.size());
+        for (Object[] row : jobRows) {
+            dtos.add(new JobDTO((Long) row[0], (String) row[1], (String) row[2], (String) row[3],
+                    (Long) row[4], (String) row[5], (Long) row[6], (String) row[7], (String) row[8]));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public List<RecruiterDTO> recruiterDtoConstruction() {
+        List<RecruiterDTO> dtos = new ArrayList<>(recruiters.size());
+        for (Recruiter recruiter : recruiters) {
+            dtos.add(new RecruiterDTO(recruiter));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public CollectionModel<EntityModel<JobDTO>> jobDtoAssembler() {
+        return jobDtoAssembler.toCollectionModel(jobDtos);
+    }
+
+    @Benchmark
+    public CollectionModel<EntityModel<Job>> jobEntityAssembler() {
+        return jobEntityAssembler.toCollectionModel(jobEntities);
+    }
+
+    @Benchmark
+    public byte[] halSerialization() throws JsonProcessingException {
+        return halObjectMapper.writeValueAsBytes(jobDtoModel);
+    }
+
+    /**
+     * The whole path of /jobs/info once the rows are selected: DTOs, links and HAL JSON.
+     */
+    @Benchmark
+    public byte[] jobsInfoResponse() throws JsonProcessingException {
+        return halObjectMapper.writeValueAsBytes(jobDtoAssembler.toCollectionModel(jobDtoConstruction()));
+    }
+}
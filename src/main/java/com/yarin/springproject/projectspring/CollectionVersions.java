@@ -0,0 +1,69 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.company.CompaniesChangedEvent;
+import com.yarin.springproject.projectspring.job.JobsChangedEvent;
+import com.yarin.springproject.projectspring.recruiter.RecruitersChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory versions of the job and recruiter collections, used as the ETags of the collection endpoints.
+ *
+ * <p>
+ * A version is incremented by every change event that can alter what the collection endpoints return:
+ * job collections show the company and recruiter of each job, and recruiter collections show the companies and the
+ * jobs of each recruiter, so both change with jobs, recruiters and companies.
+ * The ETags also hold the start time of the application, so that a restart never repeats an ETag.
+ * </p>
+ */
+@Component
+public class CollectionVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong jobs = new AtomicLong();
+    private final AtomicLong recruiters = new AtomicLong();
+
+    /**
+     * @param event the event describing the changed jobs
+     */
+    @EventListener
+    public void onJobsChanged(JobsChangedEvent event) {
+        jobs.incrementAndGet();
+        recruiters.incrementAndGet();
+    }
+
+    /**
+     * @param event the event describing the changed recruiters
+     */
+    @EventListener
+    public void onRecruitersChanged(RecruitersChangedEvent event) {
+        recruiters.incrementAndGet();
+        jobs.incrementAndGet();
+    }
+
+    /**
+     * @param event the event describing the changed companies
+     */
+    @EventListener
+    public void onCompaniesChanged(CompaniesChangedEvent event) {
+        recruiters.incrementAndGet();
+        jobs.incrementAndGet();
+    }
+
+    /**
+     * @return the quoted ETag of every job collection, as it is now
+     */
+    public String jobsETag() {
+        return "\"jobs-" + epoch + "-" + jobs.get() + "\"";
+    }
+
+    /**
+     * @return the quoted ETag of every recruiter collection, as it is now
+     */
+    public String recruitersETag() {
+        return "\"recruiters-" + epoch + "-" + recruiters.get() + "\"";
+    }
+}
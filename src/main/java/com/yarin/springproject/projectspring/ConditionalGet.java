@@ -0,0 +1,40 @@
+package com.yarin.springproject.projectspring;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Answers GET requests carrying an If-None-Match header.
+ *
+ * <p>
+ * The ETag is computed first, from versions that are cheap to read, and the body is only built when the client's copy
+ * is outdated. Otherwise the response is a 304 Not Modified, without running the queries and building the links
+ * of the body. Reading the ETag before the body means a change in between gives the client an older ETag with newer
+ * data, which only costs it one more full response.
+ * </p>
+ */
+public final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * Builds a 304 Not Modified response if the request's If-None-Match matches the ETag, or a 200 OK response
+     * with the body otherwise. Both carry the ETag.
+     *
+     * @param request the current request
+     * @param eTag    the quoted strong ETag of the current state of the resource
+     * @param body    builds the body, only called when the client's copy is outdated
+     * @return the response
+     */
+    public static <T> ResponseEntity<T> of(WebRequest request, String eTag, Supplier<T> body) {
+        if (request.checkNotModified(eTag)) {
+            // checkNotModified already wrote the ETag header to the response
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(body.get());
+    }
+}
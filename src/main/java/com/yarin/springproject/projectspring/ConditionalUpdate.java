@@ -0,0 +1,48 @@
+package com.yarin.springproject.projectspring;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the If-Match header of the requests that update a job or a recruiter.
+ *
+ * <p>
+ * The ETags of a job and of a recruiter start with the type, the ID and the version of the entity, such as
+ * "job-12-3-1-0" (see JobVersionView and RecruiterVersionView), so the versions a client expects can be taken from
+ * the header without reading the entity, and checked by the update statement itself. The rest of the ETag describes
+ * the related entities shown with the entity, which the update does not change, so it is not compared.
+ * Weak ETags never match, as If-Match uses the strong comparison.
+ * </p>
+ */
+public final class ConditionalUpdate {
+    private static final Pattern ETAG = Pattern.compile("(W/)?\"([a-z]+)-(\\d{1,18})-(\\d{1,18})(-[^\"]*)?\"");
+
+    private ConditionalUpdate() {
+    }
+
+    /**
+     * Returns the versions of the entity matched by an If-Match header.
+     *
+     * @param ifMatch the If-Match header, or null if the request has none
+     * @param type    the type of the entity in its ETags, "job" or "recruiter"
+     * @param id      the ID of the entity
+     * @return null if any version matches (no header, or "*"), otherwise the matching versions, which is empty when
+     *         none of the ETags of the header is a strong ETag of this entity
+     */
+    public static Set<Long> expectedVersions(String ifMatch, String type, long id) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*")) {
+            return null;
+        }
+        Set<Long> versions = new HashSet<>();
+        Matcher matcher = ETAG.matcher(ifMatch);
+        while (matcher.find()) {
+            if (matcher.group(1) == null && matcher.group(2).equals(type)
+                    && matcher.group(3).equals(String.valueOf(id))) {
+                versions.add(Long.valueOf(matcher.group(4)));
+            }
+        }
+        return versions;
+    }
+}
@@ -0,0 +1,101 @@
+package com.yarin.springproject.projectspring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts the entities Hibernate hydrates from the result sets, in total per entity type and per request.
+ *
+ * <p>
+ * Every loaded entity increments the "hibernate.entities.hydrated" counter, tagged with the entity type. The entities
+ * loaded by the thread handling a request are also recorded, when the request completes, in the
+ * "http.server.requests.entities" distribution summary, tagged with the method and the URI pattern of the request, so
+ * that an endpoint loading more entities than it returns stands out. Entities loaded on other threads, such as the
+ * {@literal @}Async executor, only count in the total.
+ * </p>
+ */
+@Component
+public class EntityHydrationMetrics implements PostLoadEventListener, AsyncHandlerInterceptor {
+    private static final ThreadLocal<int[]> requestCount = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    /**
+     * The summaries of the entities per request, by method and URI pattern, each registered on the first request
+     * of its endpoint rather than looked up in the registry by every request.
+     */
+    private final Map<List<String>, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an EntityHydrationMetrics and registers it as a post-load listener of Hibernate.
+     *
+     * @param meterRegistry        registers the metrics
+     * @param entityManagerFactory the entity manager factory whose loads are counted
+     */
+    public EntityHydrationMetrics(MeterRegistry meterRegistry, EntityManagerFactory entityManagerFactory) {
+        this.meterRegistry = meterRegistry;
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, this);
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        counters.computeIfAbsent(event.getPersister().getEntityName(), entityName -> Counter
+                        .builder("hibernate.entities.hydrated")
+                        .description("The entities loaded from the database")
+                        .tag("entity", event.getPersister().getMappedClass().getSimpleName())
+                        .register(meterRegistry))
+                .increment();
+        int[] count = requestCount.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        requestCount.set(new int[1]);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        requestCount.remove(); // the request completes on another dispatch, which counts its own loads
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        int[] count = requestCount.get();
+        requestCount.remove();
+        if (count != null) {
+            Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            summaries.computeIfAbsent(List.of(request.getMethod(), uri == null ? "UNKNOWN" : uri.toString()),
+                            key -> DistributionSummary.builder("http.server.requests.entities")
+                                    .description("The entities loaded from the database per request")
+                                    .baseUnit("entities")
+                                    .tag("method", key.get(0))
+                                    .tag("uri", key.get(1))
+                                    .publishPercentileHistogram()
+                                    .register(meterRegistry))
+                    .record(count[0]);
+        }
+    }
+}
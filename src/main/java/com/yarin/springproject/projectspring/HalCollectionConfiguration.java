@@ -0,0 +1,221 @@
+package com.yarin.springproject.projectspring;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.cfg.HandlerInstantiator;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Links;
+import org.springframework.hateoas.mediatype.hal.HalConfiguration;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.EmbeddedWrapper;
+import org.springframework.hateoas.server.core.EmbeddedWrappers;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes the _embedded and _links of the HAL collections, such as /jobs/info and /recruiters/info, in linear time.
+ *
+ * <p>
+ * Spring HATEOAS groups the elements of a CollectionModel by link relation one element at a time, and copies the list
+ * of the relation for every element it adds (HalEmbeddedBuilder.add), so grouping n elements copies n²/2 references.
+ * It groups them three times per response: to write _embedded, to check _embedded for curies, and to check it again
+ * while writing _links. ResponsePathBenchmark.halSerialization took 58 ms for 1k jobs and 33 s for 100k jobs, and
+ * /recruiters/info lists every recruiter.
+ * </p>
+ *
+ * <p>
+ * The elements of our collections have a single type, hence a single relation, so they are handed to Spring HATEOAS
+ * as one {@link EmbeddedWrapper} of the whole collection, which it groups with a single copy. This is how HalModelBuilder
+ * embeds collections. The JSON does not change: a collection of one element is still written as a single object under
+ * the item relation, and collections with elements of several types, or already wrapped, are written as before.
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+public class HalCollectionConfiguration {
+
+    /**
+     * Customizes the HAL ObjectMapper once Spring HATEOAS has registered its own module on it.
+     *
+     * @return the HAL configuration
+     */
+    @Bean
+    public HalConfiguration halConfiguration() {
+        return new HalConfiguration().withObjectMapperCustomizer(HalCollectionConfiguration::customize);
+    }
+
+    /**
+     * Replaces the mixin of CollectionModel registered by the Jackson2HalModule, which must be registered first.
+     *
+     * @param halObjectMapper the HAL ObjectMapper
+     */
+    public static void customize(ObjectMapper halObjectMapper) {
+        halObjectMapper.addMixIn(CollectionModel.class, CollectionModelMixin.class);
+    }
+
+    /**
+     * Returns the elements to hand to Spring HATEOAS: the collection wrapped as a whole when it has at least 2
+     * elements of the same type, otherwise the collection itself.
+     *
+     * @param content the elements of a CollectionModel
+     * @return a single EmbeddedWrapper, or the elements
+     */
+    static Collection<?> embeddable(Collection<?> content) {
+        if (content.size() < 2) {
+            return content;
+        }
+        Class<?> type = null;
+        for (Object element : content) {
+            if (element == null || element instanceof EmbeddedWrapper) {
+                return content;
+            }
+            Object target = element instanceof EntityModel<?> model ? model.getContent() : element;
+            if (target == null || (type != null && type != target.getClass())) {
+                return content;
+            }
+            type = target.getClass();
+        }
+        return List.of(new EmbeddedWrappers(false).wrap(content));
+    }
+
+    /**
+     * Looks up the serializer the Jackson2HalModule registered on the HAL handler instantiator.
+     */
+    private static JsonSerializer<?> halSerializer(SerializerProvider provider, BeanProperty property, Class<?> type)
+            throws JsonMappingException {
+        SerializationConfig config = provider.getConfig();
+        HandlerInstantiator instantiator = config.getHandlerInstantiator();
+        JsonSerializer<?> serializer = instantiator == null ? null : instantiator.serializerInstance(config, null, type);
+        if (serializer == null) {
+            throw new IllegalStateException(type.getSimpleName() + " is not set up, the ObjectMapper is not a HAL one");
+        }
+        return serializer instanceof ContextualSerializer contextual
+                ? contextual.createContextual(provider, property)
+                : serializer;
+    }
+
+    /**
+     * The annotations of the CollectionModelMixin and the RepresentationModelMixin of Spring HATEOAS, with the
+     * serializers below.
+     */
+    abstract static class CollectionModelMixin<T> extends CollectionModel<T> {
+
+        @Override
+        @JsonProperty("_embedded")
+        @JsonInclude(JsonInclude.Include.NON_EMPTY)
+        @JsonSerialize(using = EmbeddedSerializer.class)
+        @JsonDeserialize(using = Jackson2HalModule.HalResourcesDeserializer.class)
+        public abstract Collection<T> getContent();
+
+        @Override
+        @JsonProperty("_links")
+        @JsonInclude(JsonInclude.Include.NON_EMPTY)
+        @JsonSerialize(using = LinksSerializer.class)
+        @JsonDeserialize(using = Jackson2HalModule.HalLinkListDeserializer.class)
+        public abstract Links getLinks();
+    }
+
+    /**
+     * Writes _embedded with the HalResourcesSerializer, from the {@link #embeddable(Collection)} elements.
+     */
+    static class EmbeddedSerializer extends StdSerializer<Collection<?>> implements ContextualSerializer {
+        private final JsonSerializer<Object> delegate;
+
+        EmbeddedSerializer() {
+            this(null);
+        }
+
+        @SuppressWarnings("unchecked")
+        private EmbeddedSerializer(JsonSerializer<?> delegate) {
+            super(Collection.class, false);
+            this.delegate = (JsonSerializer<Object>) delegate;
+        }
+
+        @Override
+        public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+                throws JsonMappingException {
+            return new EmbeddedSerializer(halSerializer(provider, property, Jackson2HalModule.HalResourcesSerializer.class));
+        }
+
+        @Override
+        public boolean isEmpty(SerializerProvider provider, Collection<?> value) {
+            return value == null || value.isEmpty();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void serialize(Collection<?> value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            JsonSerializer<Object> serializer = delegate != null ? delegate : (JsonSerializer<Object>)
+                    halSerializer(provider, null, Jackson2HalModule.HalResourcesSerializer.class);
+            serializer.serialize(embeddable(value), gen, provider);
+        }
+    }
+
+    /**
+     * Writes _links with the HalLinkListSerializer, which groups the elements of the collection being written to look
+     * for curies: it is shown the {@link #embeddable(Collection)} elements instead.
+     */
+    static class LinksSerializer extends StdSerializer<Links> implements ContextualSerializer {
+        private final JsonSerializer<Object> delegate;
+
+        LinksSerializer() {
+            this(null);
+        }
+
+        @SuppressWarnings("unchecked")
+        private LinksSerializer(JsonSerializer<?> delegate) {
+            super(Links.class);
+            this.delegate = (JsonSerializer<Object>) delegate;
+        }
+
+        @Override
+        public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+                throws JsonMappingException {
+            return new LinksSerializer(halSerializer(provider, property, Jackson2HalModule.HalLinkListSerializer.class));
+        }
+
+        @Override
+        public boolean isEmpty(SerializerProvider provider, Links value) {
+            return value == null || value.isEmpty();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void serialize(Links value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            JsonSerializer<Object> serializer = delegate != null ? delegate : (JsonSerializer<Object>)
+                    halSerializer(provider, null, Jackson2HalModule.HalLinkListSerializer.class);
+            Object model = gen.getCurrentValue();
+            if (!(model instanceof CollectionModel<?> collection)) {
+                serializer.serialize(value, gen, provider);
+                return;
+            }
+            Collection<?> content = collection.getContent();
+            Collection<?> embeddable = embeddable(content);
+            if (embeddable == content) {
+                serializer.serialize(value, gen, provider);
+                return;
+            }
+            gen.setCurrentValue(CollectionModel.of(embeddable));
+            try {
+                serializer.serialize(value, gen, provider);
+            } finally {
+                gen.setCurrentValue(model);
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.yarin.springproject.projectspring;
+
+import lombok.Getter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A single page of a collection that is paginated by a cursor on the entity id (keyset pagination).
+ *
+ * <p>
+ * Instead of skipping OFFSET rows, every page is fetched with {@code id > after} (or {@code id < before} when paging
+ * backwards) ordered by id and limited to the page size, so a deep page costs the same as the first one.
+ * One extra row is fetched to find out whether there is another page in the same direction.
+ * </p>
+ *
+ * @param <T> the type of the page content
+ */
+@Getter
+public class KeysetPage<T> {
+
+    /**
+     * The page size used when the client does not ask for one.
+     */
+    public static final int DEFAULT_SIZE = 20;
+
+    /**
+     * The largest page size a client may ask for.
+     */
+    public static final int MAX_SIZE = 100;
+
+    /**
+     * A repository query fetching at most {@code limit.getPageSize()} rows beyond the given cursor.
+     *
+     * @param <T> the type of the fetched rows
+     */
+    @FunctionalInterface
+    public interface Query<T> {
+        List<T> fetch(Long cursor, Pageable limit);
+    }
+
+    private final List<T> content;
+
+    /**
+     * The id to pass as {@code after} to get the next page, or null if this is the last page.
+     */
+    private final Long nextCursor;
+
+    /**
+     * The id to pass as {@code before} to get the previous page, or null if this is the first page.
+     */
+    private final Long prevCursor;
+
+    private KeysetPage(List<T> content, Long nextCursor, Long prevCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.prevCursor = prevCursor;
+    }
+
+    /**
+     * Fetches one page, forwards from {@code after} or backwards from {@code before}.
+     *
+     * @param after    the id after which the page starts, or null for the first page
+     * @param before   the id before which the page ends, takes precedence over {@code after} when given
+     * @param size     the requested page size, or null for {@link #DEFAULT_SIZE}
+     * @param forward  the query returning rows with an id greater than the cursor, in ascending id order
+     * @param backward the query returning rows with an id less than the cursor, in descending id order
+     * @param idOf     extracts the id of a row
+     * @return the page, always in ascending id order
+     */
+    public static <T> KeysetPage<T> fetch(Long after, Long before, Integer size,
+                                          Query<T> forward, Query<T> backward, Function<T, Long> idOf) {
+        int limit = clampSize(size);
+        Pageable oneMore = PageRequest.ofSize(limit + 1);
+
+        if (before != null) {
+            List<T> rows = new ArrayList<>(backward.fetch(before, oneMore));
+            boolean hasPrev = rows.size() > limit;
+            if (hasPrev) {
+                rows.remove(limit);
+            }
+            Collections.reverse(rows);
+            return of(rows, idOf, true, hasPrev);
+        }
+
+        List<T> rows = new ArrayList<>(forward.fetch(after == null ? Long.MIN_VALUE : after, oneMore));
+        boolean hasNext = rows.size() > limit;
+        if (hasNext) {
+            rows.remove(limit);
+        }
+        return of(rows, idOf, hasNext, after != null);
+    }
+
+    private static <T> KeysetPage<T> of(List<T> rows, Function<T, Long> idOf, boolean hasNext, boolean hasPrev) {
+        if (rows.isEmpty()) {
+            return new KeysetPage<>(rows, null, null);
+        }
+        return new KeysetPage<>(rows,
+                hasNext ? idOf.apply(rows.get(rows.size() - 1)) : null,
+                hasPrev ? idOf.apply(rows.get(0)) : null);
+    }
+
+    /**
+     * Keeps the requested page size between 1 and {@link #MAX_SIZE}.
+     *
+     * @param size the requested page size, or null
+     * @return the page size to use
+     */
+    public static int clampSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_SIZE;
+        }
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    /**
+     * Converts the content of this page, keeping its cursors.
+     *
+     * @param mapper the conversion to apply to every element
+     * @return a new page holding the converted content
+     */
+    public <R> KeysetPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new KeysetPage<>(content.stream().<R>map(mapper).toList(), nextCursor, prevCursor);
+    }
+
+    /**
+     * Converts the whole content of this page at once, for example to load all the entities of the page in one query.
+     *
+     * @param mapper the conversion of the content, which has to keep its order
+     * @return a new page holding the converted content
+     */
+    public <R> KeysetPage<R> mapContent(Function<List<T>, List<R>> mapper) {
+        return new KeysetPage<>(mapper.apply(content), nextCursor, prevCursor);
+    }
+
+    /**
+     * Builds the HAL {@code next} and {@code prev} links of this page from the current request,
+     * keeping every other query parameter (such as {@code size}) as it is.
+     *
+     * @return the navigation links of this page
+     */
+    public List<Link> getLinks() {
+        List<Link> links = new ArrayList<>(2);
+        if (nextCursor != null) {
+            links.add(Link.of(ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("before")
+                    .replaceQueryParam("after", nextCursor)
+                    .toUriString(), IanaLinkRelations.NEXT));
+        }
+        if (prevCursor != null) {
+            links.add(Link.of(ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after")
+                    .replaceQueryParam("before", prevCursor)
+                    .toUriString(), IanaLinkRelations.PREV));
+        }
+        return links;
+    }
+}
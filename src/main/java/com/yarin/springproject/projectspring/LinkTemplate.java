@@ -0,0 +1,130 @@
+package com.yarin.springproject.projectspring;
+
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.server.core.AnnotationMappingDiscoverer;
+import org.springframework.hateoas.server.core.DummyInvocationUtils;
+import org.springframework.hateoas.server.core.MappingDiscoverer;
+import org.springframework.hateoas.server.core.MethodInvocation;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * The path of a link, resolved once from the mapping of a controller method, with at most one variable: the ID of
+ * the resource.
+ *
+ * <p>
+ * Building a link with {@code linkTo(methodOn(...))} records a proxy invocation and looks up the request mapping of
+ * the method for every link, which adds up when a collection of thousands of resources is assembled. The assemblers
+ * resolve their templates when they are created instead, read the base URI of the current request once per response
+ * (see {@link #baseUri()}), and only append the ID of every resource.
+ * </p>
+ *
+ * <p>
+ * The IDs are appended as they are, without URI encoding, which is fine for the numeric IDs of this application.
+ * </p>
+ */
+public final class LinkTemplate {
+    private static final MappingDiscoverer DISCOVERER = new AnnotationMappingDiscoverer(RequestMapping.class);
+
+    /**
+     * The path before the ID variable, or the whole path if it has no variable.
+     */
+    private final String prefix;
+
+    /**
+     * The path after the ID variable, null if the path has no variable.
+     */
+    private final String suffix;
+
+    private LinkTemplate(String path) {
+        int start = path.indexOf('{');
+        if (start < 0) {
+            this.prefix = path;
+            this.suffix = null;
+        } else {
+            int end = path.indexOf('}', start);
+            if (end < 0 || path.indexOf('{', end) >= 0) {
+                throw new IllegalArgumentException("Expected a path with a single variable, got " + path);
+            }
+            this.prefix = path.substring(0, start);
+            this.suffix = path.substring(end + 1);
+        }
+    }
+
+    /**
+     * Creates a template from a path such as {@code /jobs/{id}/info}.
+     *
+     * @param path the path, relative to the servlet mapping, with at most one variable
+     * @return the template
+     */
+    public static LinkTemplate of(String path) {
+        return new LinkTemplate(path);
+    }
+
+    /**
+     * Creates a template from the request mapping of a controller method, recorded the same way as for
+     * {@code linkTo}: {@code LinkTemplate.to(methodOn(JobController.class).singleJobInfo(0L, null))}.
+     * The arguments of the invocation are ignored.
+     *
+     * @param invocationValue the value returned by the invocation of a method on a {@code methodOn} proxy
+     * @return the template of the path the method is mapped to
+     */
+    public static LinkTemplate to(Object invocationValue) {
+        MethodInvocation invocation = DummyInvocationUtils.getLastInvocationAware(invocationValue).getLastInvocation();
+        return of(DISCOVERER.getMapping(invocation.getTargetType(), invocation.getMethod()));
+    }
+
+    /**
+     * Creates a template from the request mapping of a controller class followed by a path, the way
+     * {@code linkTo(controllerClass).slash(...)} builds it.
+     *
+     * @param controllerClass the controller
+     * @param path            the path after the mapping of the controller, starting with a slash
+     * @return the template
+     */
+    public static LinkTemplate to(Class<?> controllerClass, String path) {
+        String mapping = DISCOVERER.getMapping(controllerClass);
+        return of(mapping == null || mapping.equals("/") ? path : mapping + path);
+    }
+
+    /**
+     * Returns the URI of the servlet mapping of the current request, such as {@code http://localhost:8080},
+     * which the templates are expanded against. It is the base {@code linkTo} uses, and it is read from the request,
+     * so it is best read once per response.
+     *
+     * @return the base URI, without a trailing slash
+     */
+    public static String baseUri() {
+        return ServletUriComponentsBuilder.fromCurrentServletMapping().toUriString();
+    }
+
+    /**
+     * Builds the link to the resource with the given ID.
+     *
+     * @param baseUri the base URI returned by {@link #baseUri()}
+     * @param id      the ID of the resource
+     * @param rel     the relation of the link
+     * @return the link
+     */
+    public Link expand(String baseUri, Object id, LinkRelation rel) {
+        if (suffix == null) {
+            throw new IllegalStateException("The path " + prefix + " has no variable");
+        }
+        return Link.of(baseUri + prefix + id + suffix, rel);
+    }
+
+    /**
+     * Builds the link of a path without variable.
+     *
+     * @param baseUri the base URI returned by {@link #baseUri()}
+     * @param rel     the relation of the link
+     * @return the link
+     */
+    public Link toLink(String baseUri, LinkRelation rel) {
+        if (suffix != null) {
+            throw new IllegalStateException("The path " + prefix + "{id}" + suffix + " needs an ID");
+        }
+        return Link.of(baseUri + prefix, rel);
+    }
+}
@@ -0,0 +1,57 @@
+package com.yarin.springproject.projectspring;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Instruments the application with Micrometer, on top of the metrics Spring Boot records by itself.
+ *
+ * <p>
+ * The time of a request is split into:
+ * <ul>
+ *     <li>"http.server.requests", the whole request, JSON writing included (recorded by Spring Boot);</li>
+ *     <li>"controller.invocations", the controller method, tagged with its class and method name (the classes
+ *     annotated with {@literal @}Timed);</li>
+ *     <li>"assembler.invocations", the HATEOAS links added by the assemblers, which are called from the controller
+ *     methods;</li>
+ *     <li>"spring.data.repository.invocations", every repository method, tagged with the repository and the method
+ *     (recorded by Spring Boot).</li>
+ * </ul>
+ * All of them publish percentile histograms, see application.properties, and the entities loaded per request are
+ * counted by the {@link EntityHydrationMetrics}. The metrics are exposed by the /actuator/metrics and
+ * /actuator/prometheus endpoints.
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfiguration implements WebMvcConfigurer {
+    private final EntityHydrationMetrics entityHydrationMetrics;
+
+    /**
+     * Constructs a MetricsConfiguration.
+     *
+     * @param entityHydrationMetrics counts the entities loaded per request
+     */
+    public MetricsConfiguration(EntityHydrationMetrics entityHydrationMetrics) {
+        this.entityHydrationMetrics = entityHydrationMetrics;
+    }
+
+    /**
+     * Records the methods of the classes annotated with {@literal @}Timed.
+     *
+     * @param meterRegistry registers the timers
+     * @return the aspect
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(entityHydrationMetrics);
+    }
+}
@@ -2,6 +2,8 @@ package com.yarin.springproject.projectspring;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.scheduling.annotation.EnableAsync;
 // TODO:
 // 1. Make a little representation of class diagram of the project, algorithms we have used and external libraries and flow of the server side.
@@ -23,6 +25,8 @@ import org.springframework.scheduling.annotation.EnableAsync;
  * The @EnableAsync annotation is used to enable asynchronous processing in the application.
  * It allows methods to be executed asynchronously by creating proxies for them and executing them
  * in a separate thread. This can improve the performance and responsiveness of the application.
+ * The proxies are subclasses of the beans, like the other proxies of Spring Boot, so that a bean with @Async methods
+ * can still be injected by its class and not only by its interfaces.
  * </p>
  *
  * <p>
@@ -34,7 +38,9 @@ import org.springframework.scheduling.annotation.EnableAsync;
  */
 
 @SpringBootApplication
-@EnableAsync
+@ConfigurationPropertiesScan
+@EnableAsync(proxyTargetClass = true)
+@EnableCaching
 public class ProjectSpringApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(ProjectSpringApplication.class, args);
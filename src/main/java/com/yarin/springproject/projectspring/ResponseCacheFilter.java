@@ -0,0 +1,204 @@
+package com.yarin.springproject.projectspring;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yarin.springproject.projectspring.company.CompaniesChangedEvent;
+import com.yarin.springproject.projectspring.job.JobsChangedEvent;
+import com.yarin.springproject.projectspring.recruiter.RecruitersChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Caches the rendered JSON of the hot collection endpoints: /jobs/info, /jobs/search and /recruiters/info.
+ *
+ * <p>
+ * The first request for a path and query parameters runs the controller as usual and its response body is kept as
+ * bytes. The following requests get these bytes written to the response directly, without querying the repositories,
+ * building the DTOs and the HATEOAS links, or serializing with Jackson.
+ * </p>
+ *
+ * <p>
+ * An entry is valid as long as the collection it was rendered from has not changed: it remembers the ETag of the
+ * collection (see {@link CollectionVersions}) read before it was rendered, and is only served while that ETag is
+ * still the current one. Every collection has a cache of its own, which the change events of the write endpoints
+ * empty at once, so stale entries do not stay in memory. Every cache holds at most {@value #MAX_BYTES} bytes; when it
+ * is full, Caffeine keeps the most frequently requested responses, such as the popular searches.
+ * </p>
+ *
+ * <p>
+ * The absolute links of the responses are built from the URL of the request, so the URL (host and port included)
+ * and the Accept header are part of the key. Only 200 OK responses carrying the current ETag are cached.
+ * </p>
+ */
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    /**
+     * The total size of the cached response bodies of a collection, in bytes.
+     */
+    static final long MAX_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * The collections whose responses are cached.
+     */
+    private enum Collection {
+        JOBS, RECRUITERS
+    }
+
+    private record Key(String uri, String accept) {
+    }
+
+    private record Entry(String eTag, String contentType, byte[] body) {
+    }
+
+    private final CollectionVersions collectionVersions;
+    private final Map<String, Collection> cachedPaths = Map.of(
+            "/jobs/info", Collection.JOBS,
+            "/jobs/search", Collection.JOBS,
+            "/recruiters/info", Collection.RECRUITERS);
+    private final Map<Collection, Cache<Key, Entry>> caches = new EnumMap<>(Collection.class);
+
+    /**
+     * Constructs a ResponseCacheFilter.
+     *
+     * @param collectionVersions the versions of the collections, which the cached responses are checked against
+     * @param meterRegistry      exposes the hits and misses of the caches as the "responses" cache metrics, tagged
+     *                           with their collection
+     */
+    public ResponseCacheFilter(CollectionVersions collectionVersions, MeterRegistry meterRegistry) {
+        this.collectionVersions = collectionVersions;
+        for (Collection collection : Collection.values()) {
+            Cache<Key, Entry> cache = Caffeine.newBuilder()
+                    .maximumWeight(MAX_BYTES)
+                    .weigher((Key key, Entry entry) -> entry.body().length + key.uri().length())
+                    .expireAfterAccess(Duration.ofMinutes(30))
+                    .recordStats()
+                    .build();
+            caches.put(collection, cache);
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "responses",
+                    "collection", collection.name().toLowerCase());
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod()) || !cachedPaths.containsKey(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Collection collection = cachedPaths.get(request.getServletPath());
+        String eTag = currentETag(collection);
+        Cache<Key, Entry> cache = caches.get(collection);
+        Key key = new Key(uriOf(request), request.getHeader(HttpHeaders.ACCEPT));
+
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && entry.eTag().equals(eTag)) {
+            write(entry, request, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (wrapper.getStatus() == HttpServletResponse.SC_OK && eTag.equals(wrapper.getHeader(HttpHeaders.ETAG))
+                    && wrapper.getContentType() != null) {
+                cache.put(key, new Entry(eTag, wrapper.getContentType(), wrapper.getContentAsByteArray()));
+            }
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * Writes a cached response, or a 304 Not Modified if the client already has it.
+     */
+    private static void write(Entry entry, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (new ServletWebRequest(request, response).checkNotModified(entry.eTag())) {
+            return; // the status and the ETag header are set
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setHeader(HttpHeaders.ETAG, entry.eTag());
+        response.setContentType(entry.contentType());
+        response.setContentLength(entry.body().length);
+        response.getOutputStream().write(entry.body());
+    }
+
+    /**
+     * Returns the URL of the request followed by its query parameters sorted by name, so that the order of the
+     * parameters does not matter.
+     */
+    private static String uriOf(HttpServletRequest request) {
+        StringBuilder uri = new StringBuilder(request.getRequestURL());
+        char separator = '?';
+        for (Map.Entry<String, String[]> parameter : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            for (String value : parameter.getValue()) {
+                uri.append(separator).append(URLEncoder.encode(parameter.getKey(), StandardCharsets.UTF_8))
+                        .append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+                separator = '&';
+            }
+        }
+        return uri.toString();
+    }
+
+    private String currentETag(Collection collection) {
+        return collection == Collection.JOBS ? collectionVersions.jobsETag() : collectionVersions.recruitersETag();
+    }
+
+    /**
+     * Recruiter collections show the jobs of each recruiter, so both collections are evicted.
+     *
+     * @param event the event describing the changed jobs
+     */
+    @EventListener
+    public void onJobsChanged(JobsChangedEvent event) {
+        evict(Collection.JOBS);
+        evict(Collection.RECRUITERS);
+    }
+
+    /**
+     * Job collections show the recruiter of each job, so both collections are evicted.
+     *
+     * @param event the event describing the changed recruiters
+     */
+    @EventListener
+    public void onRecruitersChanged(RecruitersChangedEvent event) {
+        evict(Collection.JOBS);
+        evict(Collection.RECRUITERS);
+    }
+
+    /**
+     * Job and recruiter collections show the companies, so both collections are evicted.
+     *
+     * @param event the event describing the changed companies
+     */
+    @EventListener
+    public void onCompaniesChanged(CompaniesChangedEvent event) {
+        evict(Collection.JOBS);
+        evict(Collection.RECRUITERS);
+    }
+
+    private void evict(Collection collection) {
+        caches.get(collection).invalidateAll();
+    }
+}
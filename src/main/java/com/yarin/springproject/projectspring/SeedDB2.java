@@ -9,6 +9,7 @@ import com.yarin.springproject.projectspring.recruiter.RecruiterRepo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -35,6 +36,11 @@ import java.util.Arrays;
  * <p>
  * The objects created and saved during initialization will be managed by Spring and can be used throughout the application.
  * </p>
+ *
+ * <p>
+ * These few rows are the default (seed.mode=demo); benchmarks and load tests use the much larger generated dataset of
+ * {@link SyntheticSeedDB} instead (seed.mode=synthetic).
+ * </p>
  */
 @Configuration
 public class SeedDB2 {
@@ -50,6 +56,7 @@ public class SeedDB2 {
      */
 
     @Bean
+    @ConditionalOnProperty(name = "seed.mode", havingValue = "demo", matchIfMissing = true)
     CommandLineRunner initDatabase(JobRepo jobRepo, CompanyRepo companyRepo, RecruiterRepo recruiterRepo){
         return args -> {
             Company facebook = new Company("Facebook");
@@ -65,11 +72,13 @@ public class SeedDB2 {
             companyRepo.saveAll(Arrays.asList(facebook, twitter));
             recruiterRepo.saveAll(Arrays.asList(barak, pogba));
 
-            jobRepo.save(new Job("Java Developer", "15K", "Tel-Aviv", facebook, barak));
-            jobRepo.save(new Job("Java Developer", "20K", "Holon", twitter, pogba));
-            jobRepo.save(new Job("CPP Developer", "12K", "Ness-Ziona", twitter, pogba));
-            jobRepo.save(new Job("Front-end Developer", "25K", "Haifa", twitter, pogba));
-            jobRepo.save(new Job("Devops", "10K", "Jerusalem", facebook, barak));
+            // saved together, so the inserts go out in one JDBC batch
+            jobRepo.saveAll(Arrays.asList(
+                    new Job("Java Developer", "15K", "Tel-Aviv", facebook, barak),
+                    new Job("Java Developer", "20K", "Holon", twitter, pogba),
+                    new Job("CPP Developer", "12K", "Ness-Ziona", twitter, pogba),
+                    new Job("Front-end Developer", "25K", "Haifa", twitter, pogba),
+                    new Job("Devops", "10K", "Jerusalem", facebook, barak)));
         };
     }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.yarin.springproject.projectspring;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * The settings of the database seeding, bound from the "seed.*" properties.
+ *
+ * @param mode         which data the database is seeded with when the application starts
+ * @param randomSeed   the seed of the synthetic dataset: the same seed and sizes always give the same rows
+ * @param companies    the number of synthetic companies
+ * @param recruiters   the number of synthetic recruiters, each working for one company
+ * @param jobs         the number of synthetic jobs
+ * @param companySkew  the exponent of the Zipf distribution of the recruiters, and so of the jobs, over the companies;
+ *                     0 spreads them evenly, 1 gives the n-th largest company 1/n of the jobs of the
+ *                     largest one
+ * @param locationSkew the exponent of the Zipf distribution of the jobs over the locations
+ */
+@ConfigurationProperties("seed")
+public record SeedProperties(@DefaultValue("demo") Mode mode,
+                             @DefaultValue("42") long randomSeed,
+                             @DefaultValue("1000") int companies,
+                             @DefaultValue("20000") int recruiters,
+                             @DefaultValue("100000") int jobs,
+                             @DefaultValue("1.0") double companySkew,
+                             @DefaultValue("1.2") double locationSkew) {
+    /**
+     * Which data the database is seeded with.
+     */
+    public enum Mode {
+        /**
+         * The few hand-written companies, recruiters and jobs of {@link SeedDB2}.
+         */
+        DEMO,
+        /**
+         * A generated dataset of any size, see {@link SyntheticSeedDB}.
+         */
+        SYNTHETIC
+    }
+}
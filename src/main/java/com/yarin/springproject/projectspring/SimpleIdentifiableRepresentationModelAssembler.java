@@ -17,25 +17,31 @@ package com.yarin.springproject.projectspring;
  */
 
 import lombok.Getter;
-import lombok.Setter;
 import org.springframework.core.GenericTypeResolver;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
-import org.springframework.hateoas.server.LinkBuilder;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
 import org.springframework.hateoas.server.LinkRelationProvider;
 import org.springframework.hateoas.server.SimpleRepresentationModelAssembler;
 import org.springframework.hateoas.server.core.EvoInflectorLinkRelationProvider;
-import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
 import org.springframework.util.ReflectionUtils;
 
 import java.lang.reflect.Field;
-
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A {@link SimpleRepresentationModelAssembler} that mixes together a Spring web controller and a
  * {@link LinkRelationProvider} to build links upon a certain strategy.
  *
+ * <p>
+ * The {@code id} field of the resource type and the paths of the links are resolved once, when the assembler is
+ * created (see {@link LinkTemplate}), so assembling a resource only reads its ID and appends it to the base URI of the
+ * request. {@link #toCollectionModel(Iterable)} reads that base URI once for the whole collection.
+ * </p>
+ *
  * @author Greg Turnquist
  */
 public class SimpleIdentifiableRepresentationModelAssembler<T> implements SimpleRepresentationModelAssembler<T> {
@@ -55,10 +61,26 @@ public class SimpleIdentifiableRepresentationModelAssembler<T> implements Simple
      */
     @Getter private final Class<?> resourceType;
 
+    /**
+     * The {@code id} field of the resource type, made accessible once.
+     */
+    private final Field idField;
+
+    /**
+     * The relation of the link from a resource to its collection, e.g. "jobs".
+     */
+    private final LinkRelation collectionRel;
+
     /**
      * Default base path as empty.
      */
-    @Getter @Setter private String basePath = "";
+    @Getter private String basePath = "";
+
+    /**
+     * The path of the collection, e.g. "/jobs", and of a single resource, e.g. "/jobs/{id}".
+     */
+    private LinkTemplate collectionTemplate;
+    private LinkTemplate itemTemplate;
 
     /**
      * Default a assembler based on Spring MVC controller, resource type, and {@link LinkRelationProvider}. With this
@@ -77,6 +99,15 @@ public class SimpleIdentifiableRepresentationModelAssembler<T> implements Simple
         // SimpleIdentifiableRepresentationModelAssembler<User> -> User
         this.resourceType = GenericTypeResolver.resolveTypeArgument(this.getClass(),
                 SimpleIdentifiableRepresentationModelAssembler.class);
+
+        Field id = ReflectionUtils.findField(this.resourceType, "id");
+        if (id == null) {
+            throw new IllegalStateException(this.resourceType + " has no id field");
+        }
+        ReflectionUtils.makeAccessible(id);
+        this.idField = id;
+        this.collectionRel = this.relProvider.getCollectionResourceRelFor(this.resourceType);
+        resolveTemplates();
     }
 
     /**
@@ -88,6 +119,16 @@ public class SimpleIdentifiableRepresentationModelAssembler<T> implements Simple
         this(controllerClass, new EvoInflectorLinkRelationProvider());
     }
 
+    /**
+     * Sets the base path of the URIs, such as "api", and resolves the link templates again.
+     *
+     * @param basePath the base path, empty for none
+     */
+    public void setBasePath(String basePath) {
+        this.basePath = basePath;
+        resolveTemplates();
+    }
+
     /**
      * Add single item self link based on the object and link back to aggregate root of the {@literal T} domain type using
      * {@link LinkRelationProvider#getCollectionResourceRelFor(Class)}}.
@@ -95,17 +136,17 @@ public class SimpleIdentifiableRepresentationModelAssembler<T> implements Simple
      * @param resource
      */
     public void addLinks(EntityModel<T> resource) {
+        String baseUri = LinkTemplate.baseUri();
+        addLinks(resource, baseUri, this.collectionTemplate.toLink(baseUri, this.collectionRel));
+    }
 
-        resource.add(getCollectionLinkBuilder().slash(getId(resource)).withSelfRel());
-        resource.add(getCollectionLinkBuilder().withRel(this.relProvider.getCollectionResourceRelFor(this.resourceType)));
+    private void addLinks(EntityModel<T> resource, String baseUri, Link collectionLink) {
+        resource.add(this.itemTemplate.expand(baseUri, getId(resource), IanaLinkRelations.SELF));
+        resource.add(collectionLink);
     }
 
     private Object getId(EntityModel<T> resource) {
-
-        Field id = ReflectionUtils.findField(this.resourceType, "id");
-        ReflectionUtils.makeAccessible(id);
-
-        return ReflectionUtils.getField(id, resource.getContent());
+        return ReflectionUtils.getField(this.idField, resource.getContent());
     }
 
     /**
@@ -114,31 +155,46 @@ public class SimpleIdentifiableRepresentationModelAssembler<T> implements Simple
      * @param resources
      */
     public void addLinks(CollectionModel<EntityModel<T>> resources) {
-        resources.add(getCollectionLinkBuilder().withSelfRel());
+        resources.add(this.collectionTemplate.toLink(LinkTemplate.baseUri(), IanaLinkRelations.SELF));
     }
 
     /**
-     * Build up a URI for the collection using the Spring web controller followed by the resource type transformed by the
-     * {@link LinkRelationProvider}. Assumption is that an {@literal EmployeeController} serving up {@literal Employee}
-     * objects will be serving resources at {@code /employees} and {@code /employees/1}. If this is not the case, simply
-     * override this method in your concrete instance, or resort to overriding {@link #addLinks(EntityModel)} and
-     * {@link #addLinks(CollectionModel)} where you have full control over exactly what links are put in the individual
-     * and collection resources.
+     * Converts the entities into a collection of resources, reading the base URI of the request once and sharing the
+     * link to the collection (links are immutable) between all the resources.
      *
-     * @return
+     * @param entities the entities
+     * @return the collection of resources with their links
      */
-    protected LinkBuilder getCollectionLinkBuilder() {
-
-        WebMvcLinkBuilder linkBuilder = linkTo(this.controllerClass);
+    @Override
+    public CollectionModel<EntityModel<T>> toCollectionModel(Iterable<? extends T> entities) {
+        String baseUri = LinkTemplate.baseUri();
+        Link collectionLink = this.collectionTemplate.toLink(baseUri, this.collectionRel);
+
+        List<EntityModel<T>> resourceList = new ArrayList<>();
+        for (T entity : entities) {
+            EntityModel<T> resource = EntityModel.of(entity);
+            addLinks(resource, baseUri, collectionLink);
+            resourceList.add(resource);
+        }
+        return CollectionModel.of(resourceList, collectionLink.withSelfRel());
+    }
 
-        for (String pathComponent : (getPrefix() + this.relProvider.getCollectionResourceRelFor(this.resourceType))
-                .split("/")) {
+    /**
+     * Resolve the paths of the links using the Spring web controller followed by the resource type transformed by the
+     * {@link LinkRelationProvider}. Assumption is that an {@literal EmployeeController} serving up {@literal Employee}
+     * objects will be serving resources at {@code /employees} and {@code /employees/1}. If this is not the case, simply
+     * override {@link #addLinks(EntityModel)}, {@link #addLinks(CollectionModel)} and {@link #toCollectionModel(Iterable)}
+     * where you have full control over exactly what links are put in the individual and collection resources.
+     */
+    private void resolveTemplates() {
+        StringBuilder path = new StringBuilder();
+        for (String pathComponent : (getPrefix() + this.collectionRel.value()).split("/")) {
             if (!pathComponent.isEmpty()) {
-                linkBuilder = linkBuilder.slash(pathComponent);
+                path.append('/').append(pathComponent);
             }
         }
-
-        return linkBuilder;
+        this.collectionTemplate = LinkTemplate.to(this.controllerClass, path.toString());
+        this.itemTemplate = LinkTemplate.to(this.controllerClass, path + "/{id}");
     }
 
     /**
@@ -147,4 +203,4 @@ public class SimpleIdentifiableRepresentationModelAssembler<T> implements Simple
     private String getPrefix() {
         return getBasePath().isEmpty() ? "" : getBasePath() + "/";
     }
-}
\ No newline at end of file
+}
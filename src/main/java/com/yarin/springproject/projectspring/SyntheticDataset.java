@@ -0,0 +1,249 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.randomuser.RandomUser;
+import com.yarin.springproject.projectspring.service.LocalRandomUserService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generates companies, recruiters and jobs of any size from a seed, for benchmarks and load tests that need more than
+ * the few rows of {@link SeedDB2}. The same settings always give the same rows, with the IDs 1 to N of every table.
+ *
+ * <p>
+ * The data is skewed like a real job board, so that the queries meet the same imbalance:
+ * <ul>
+ *     <li>the recruiters are spread over the companies with a Zipf distribution ({@link SeedProperties#companySkew()}),
+ *     company 1 having the most of them, and every recruiter works for one company;</li>
+ *     <li>the jobs are spread evenly over the recruiters, and belong to the company of their recruiter, so that the
+ *     number of jobs of the companies follows the same Zipf distribution;</li>
+ *     <li>the locations follow another Zipf distribution ({@link SeedProperties#locationSkew()}), Tel-Aviv first;</li>
+ *     <li>the titles combine a level and a field, such as "Senior Java Developer", and the salary depends on both.</li>
+ * </ul>
+ * The recruiter names come from the dictionaries of the {@link LocalRandomUserService}, and their emails are unique.
+ * </p>
+ *
+ * <p>
+ * The companies and the recruiters are generated when the dataset is created; the jobs, which can be millions, are
+ * generated again by every call to {@link #forEachJob(Consumer)} without being kept in memory.
+ * </p>
+ */
+public class SyntheticDataset {
+    private static final String[] LEVELS = {"Junior", "Senior", "Lead", "Principal", "Student"};
+    private static final int[] LEVEL_SALARIES = {15, 30, 38, 45, 8};
+    private static final String[] FIELDS = {"Java", "Backend", "Frontend", "Fullstack", "DevOps", "Data", "Android",
+            "QA Automation", "Embedded", "Security"};
+    private static final int[] FIELD_PREMIUMS = {4, 4, 2, 3, 5, 6, 2, 0, 3, 7};
+    /**
+     * The locations, from the most to the least common.
+     */
+    private static final String[] LOCATIONS = {"Tel-Aviv", "Herzliya", "Haifa", "Jerusalem", "Petah Tikva",
+            "Ramat Gan", "Yokneam", "Holon", "Beer Sheva", "Rehovot", "Netanya", "Kfar Saba", "Ness-Ziona",
+            "Hod Hasharon", "Rishon LeZion", "Caesarea"};
+    private static final String[] COMPANY_PREFIXES = {"Blue", "Quantum", "Bright", "Cyber", "Open", "Deep", "Smart",
+            "Green", "Rapid", "Silver", "Nova", "Iron", "Cloud", "Pixel", "Solar", "Vector", "Atlas", "Orbit", "Echo",
+            "Zen"};
+    private static final String[] COMPANY_SUFFIXES = {"Labs", "Systems", "Technologies", "Networks", "Software",
+            "Dynamics", "Analytics", "Robotics", "Security", "Games"};
+
+    /**
+     * A row of the company table.
+     */
+    public record CompanyRow(long id, String name) {
+    }
+
+    /**
+     * A row of the recruiter table, with the company the recruiter works for.
+     */
+    public record RecruiterRow(long id, String name, String email, long companyId) {
+    }
+
+    /**
+     * A row of the job table.
+     */
+    public record JobRow(long id, String title, int salaryThousands, String location, long companyId,
+                         long recruiterId) {
+        /**
+         * Returns the salary in the 'numK' format of {@link com.yarin.springproject.projectspring.job.Job}.
+         *
+         * @return the salary, such as "15K"
+         */
+        public String salary() {
+            return salaryThousands + "K";
+        }
+    }
+
+    private final SeedProperties properties;
+    private final List<CompanyRow> companies;
+    private final List<RecruiterRow> recruiters;
+
+    /**
+     * Generates the companies and the recruiters of a dataset.
+     *
+     * @param properties the seed and the sizes of the dataset
+     * @throws IllegalArgumentException if a size is negative, or if there are jobs but no recruiters or recruiters
+     *                                  but no companies
+     */
+    public SyntheticDataset(SeedProperties properties) {
+        if (properties.companies() < 0 || properties.recruiters() < 0 || properties.jobs() < 0) {
+            throw new IllegalArgumentException("The sizes of the dataset cannot be negative");
+        }
+        if (properties.jobs() > 0 && properties.recruiters() == 0
+                || properties.recruiters() > 0 && properties.companies() == 0) {
+            throw new IllegalArgumentException("The jobs need recruiters, and the recruiters need companies");
+        }
+        this.properties = properties;
+
+        companies = new ArrayList<>(properties.companies());
+        for (int i = 0; i < properties.companies(); i++) {
+            companies.add(new CompanyRow(i + 1, companyName(i)));
+        }
+
+        RandomGenerator random = random(1);
+        Zipf companyOfRecruiter = new Zipf(properties.companies(), properties.companySkew());
+        List<RandomUser> users = new LocalRandomUserService().generate(properties.recruiters(), random);
+        recruiters = new ArrayList<>(users.size());
+        for (RandomUser user : users) {
+            recruiters.add(new RecruiterRow(recruiters.size() + 1,
+                    user.getName().getFirst() + " " + user.getName().getLast(), user.getEmail(),
+                    companyOfRecruiter.sample(random) + 1));
+        }
+    }
+
+    /**
+     * Returns the companies, the largest first.
+     *
+     * @return the companies, with the IDs 1 to {@link SeedProperties#companies()}
+     */
+    public List<CompanyRow> companies() {
+        return companies;
+    }
+
+    /**
+     * Returns the recruiters.
+     *
+     * @return the recruiters, with the IDs 1 to {@link SeedProperties#recruiters()}
+     */
+    public List<RecruiterRow> recruiters() {
+        return recruiters;
+    }
+
+    /**
+     * Generates the jobs one by one, in the order of their IDs.
+     *
+     * @param action called with every job
+     */
+    public void forEachJob(Consumer<JobRow> action) {
+        RandomGenerator random = random(2);
+        Zipf location = new Zipf(LOCATIONS.length, properties.locationSkew());
+        for (long id = 1; id <= properties.jobs(); id++) {
+            RecruiterRow recruiter = recruiters.get(random.nextInt(recruiters.size()));
+            int level = random.nextInt(LEVELS.length);
+            int field = random.nextInt(FIELDS.length);
+            int salary = Math.max(5, LEVEL_SALARIES[level] + FIELD_PREMIUMS[field] + random.nextInt(-3, 4));
+            action.accept(new JobRow(id, LEVELS[level] + " " + FIELDS[field] + " Developer", salary,
+                    LOCATIONS[location.sample(random)], recruiter.companyId(), recruiter.id()));
+        }
+    }
+
+    /**
+     * Writes the dataset to CSV files with a header row, named after the tables: company.csv, recruiter.csv,
+     * company_recruiter.csv and job.csv. Their columns are the columns of the tables, the versions being 0.
+     *
+     * @param directory the directory of the files, which must exist
+     * @throws IOException if a file cannot be written
+     */
+    public void writeCsv(Path directory) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("company.csv"), StandardCharsets.UTF_8)) {
+            writer.write("id,version,name\n");
+            for (CompanyRow company : companies) {
+                writer.write(company.id() + ",0," + quote(company.name()) + "\n");
+            }
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("recruiter.csv"), StandardCharsets.UTF_8)) {
+            writer.write("id,version,name,email\n");
+            for (RecruiterRow recruiter : recruiters) {
+                writer.write(recruiter.id() + ",0," + quote(recruiter.name()) + "," + quote(recruiter.email()) + "\n");
+            }
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("company_recruiter.csv"),
+                StandardCharsets.UTF_8)) {
+            writer.write("company_id,recruiter_id\n");
+            // in the order of the primary key, which H2 inserts several times faster than in random order
+            List<RecruiterRow> byCompany = new ArrayList<>(recruiters);
+            byCompany.sort(Comparator.comparingLong(RecruiterRow::companyId));
+            for (RecruiterRow recruiter : byCompany) {
+                writer.write(recruiter.companyId() + "," + recruiter.id() + "\n");
+            }
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("job.csv"), StandardCharsets.UTF_8)) {
+            writer.write("id,version,title,salary,salary_thousands,location,company_id,recruiter_id\n");
+            forEachJob(job -> {
+                try {
+                    writer.write(job.id() + ",0," + quote(job.title()) + "," + job.salary() + ","
+                            + job.salaryThousands() + "," + quote(job.location()) + "," + job.companyId() + ","
+                            + job.recruiterId() + "\n");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Names the companies "Blue Labs", "Quantum Labs", ..., then "Blue Systems", and so on; once all the combinations
+     * are used, a number is added, such as "Blue Labs 2".
+     */
+    private static String companyName(int index) {
+        int combinations = COMPANY_PREFIXES.length * COMPANY_SUFFIXES.length;
+        String name = COMPANY_PREFIXES[index % COMPANY_PREFIXES.length] + " "
+                + COMPANY_SUFFIXES[index / COMPANY_PREFIXES.length % COMPANY_SUFFIXES.length];
+        return index < combinations ? name : name + " " + (index / combinations + 1);
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Returns a generator of its own for every part of the dataset, so that the jobs do not change when the number of
+     * recruiters does not, and the other way around.
+     */
+    private RandomGenerator random(int stream) {
+        return new SplittableRandom(properties.randomSeed() * 31 + stream);
+    }
+
+    /**
+     * Samples the indexes 0 to n - 1 with the probability of the index i proportional to 1 / (i + 1)^exponent.
+     */
+    private static final class Zipf {
+        private final double[] cumulative;
+
+        Zipf(int n, double exponent) {
+            cumulative = new double[n];
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                total += 1 / Math.pow(i + 1, exponent);
+                cumulative[i] = total;
+            }
+        }
+
+        int sample(RandomGenerator random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[cumulative.length - 1]);
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+}
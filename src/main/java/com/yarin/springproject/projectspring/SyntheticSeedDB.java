@@ -0,0 +1,100 @@
+package com.yarin.springproject.projectspring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seeds the database with a {@link SyntheticDataset} instead of the rows of {@link SeedDB2}, when seed.mode is set to
+ * "synthetic". The size and the seed of the dataset are set by the other "seed.*" properties, see
+ * {@link SeedProperties}, for example: --seed.mode=synthetic --seed.jobs=1000000 --seed.recruiters=200000.
+ *
+ * <p>
+ * Saving the entities through the repositories or the API would take tens of minutes for a million jobs, so the dataset is
+ * written to CSV files in a temporary directory and every table is filled by a single "insert ... select" from the
+ * CSVREAD function of H2, which takes seconds to a minute for a million jobs, most of it spent updating the indexes of
+ * the job table. Every table is loaded in its own transaction: H2 commits one huge transaction much slower than a few
+ * large ones, and a failed load stops the application anyway. The rows are inserted with their IDs, and the
+ * sequences are then moved past them so that the entities created later get new IDs.
+ * </p>
+ *
+ * <p>
+ * The database is only seeded when it has no company, recruiter or job yet. The search indexes and the caches are
+ * built from the database when the application is ready, after the seeding.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "seed.mode", havingValue = "synthetic")
+public class SyntheticSeedDB {
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticSeedDB.class);
+
+    /**
+     * The allocation size of the ID sequences, see the entities.
+     */
+    private static final int ALLOCATION_SIZE = 50;
+
+    /**
+     * Seeds the database with a synthetic dataset.
+     *
+     * @param properties   the seed and the sizes of the dataset
+     * @param jdbcTemplate loads the CSV files into the tables
+     * @return a CommandLineRunner that performs the database initialization
+     */
+    @Bean
+    CommandLineRunner seedSyntheticData(SeedProperties properties, JdbcTemplate jdbcTemplate) {
+        return args -> {
+            Long existing = jdbcTemplate.queryForObject("select (select count(*) from company)"
+                    + " + (select count(*) from recruiter) + (select count(*) from job)", Long.class);
+            if (existing != null && existing > 0) {
+                logger.info("The database is not empty, it is not seeded with synthetic data");
+                return;
+            }
+            long start = System.nanoTime();
+            SyntheticDataset dataset = new SyntheticDataset(properties);
+            Path directory = Files.createTempDirectory("synthetic-seed");
+            try {
+                dataset.writeCsv(directory);
+                long written = System.nanoTime();
+                load(jdbcTemplate, "company", "id, version, name", directory);
+                load(jdbcTemplate, "recruiter", "id, version, name, email", directory);
+                load(jdbcTemplate, "company_recruiter", "company_id, recruiter_id", directory);
+                load(jdbcTemplate, "job", "id, version, title, salary, salary_thousands, location, company_id,"
+                        + " recruiter_id", directory);
+                restartSequence(jdbcTemplate, "company_seq", properties.companies());
+                restartSequence(jdbcTemplate, "recruiter_seq", properties.recruiters());
+                restartSequence(jdbcTemplate, "job_seq", properties.jobs());
+                logger.info("Seeded {} companies, {} recruiters and {} jobs from the seed {} in {} ms"
+                                + " ({} ms to generate the CSV files)", properties.companies(),
+                        properties.recruiters(), properties.jobs(), properties.randomSeed(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                        TimeUnit.NANOSECONDS.toMillis(written - start));
+            } finally {
+                FileSystemUtils.deleteRecursively(directory);
+            }
+        };
+    }
+
+    private static void load(JdbcTemplate jdbcTemplate, String table, String columns, Path directory) {
+        String file = directory.resolve(table + ".csv").toAbsolutePath().toString().replace("'", "''");
+        jdbcTemplate.update("insert into " + table + " (" + columns + ") select * from csvread('" + file
+                + "', null, 'charset=UTF-8')");
+    }
+
+    /**
+     * Moves a sequence past the given number of rows. The pooled optimizer of Hibernate hands out the IDs from
+     * value - allocation size + 1 to value for every value it reads, so the next value must be at least the number of
+     * rows plus the allocation size.
+     */
+    private static void restartSequence(JdbcTemplate jdbcTemplate, String sequence, int rows) {
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + ((long) rows + ALLOCATION_SIZE));
+    }
+}
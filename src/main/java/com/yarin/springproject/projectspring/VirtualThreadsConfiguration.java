@@ -0,0 +1,86 @@
+package com.yarin.springproject.projectspring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs the servlet requests, the @Async methods (such as RandomUserAPIService.getRecruiters) and the asynchronous
+ * responses (such as /jobs/export) on virtual threads, one new virtual thread per task.
+ *
+ * <p>
+ * It is off by default and turned on with {@code spring.threads.virtual.enabled=true}, the property Spring Boot 3.2
+ * uses for the same purpose. A request that blocks on JDBC or on an outbound HTTP call then parks its virtual thread
+ * instead of holding one of the 200 Tomcat worker threads, so the number of requests in progress is no longer capped
+ * by the thread pool. The database connections are still capped by the Hikari pool.
+ * </p>
+ *
+ * <p>
+ * Virtual threads need Java 21 or later, while the application is built for Java 17, so the executor is created
+ * through reflection, and the application fails to start if the mode is turned on with an older Java runtime.
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfiguration {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadsConfiguration.class);
+
+    /**
+     * Creates the executor that starts a new virtual thread, named "virtual-N", for every task.
+     *
+     * @return the executor
+     * @throws IllegalStateException if the Java runtime does not support virtual threads
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        int feature = Runtime.version().feature();
+        if (feature < 21) {
+            throw new IllegalStateException("spring.threads.virtual.enabled needs Java 21 or later, this is Java " + feature);
+        }
+        try {
+            // Thread.ofVirtual().name("virtual-", 0).factory()
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Object ofVirtual = Thread.class.getMethod("ofVirtual").invoke(null);
+            Object named = builder.getMethod("name", String.class, long.class).invoke(ofVirtual, "virtual-", 0L);
+            ThreadFactory factory = (ThreadFactory) builder.getMethod("factory").invoke(named);
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+            logger.info("Handling requests and @Async tasks on virtual threads");
+            return executor;
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e);
+        }
+    }
+
+    /**
+     * Makes Tomcat run every request on the virtual thread executor instead of its worker thread pool.
+     *
+     * @param virtualThreadExecutor the executor of the requests
+     * @return the customizer of the Tomcat protocol handler
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    /**
+     * Replaces the thread pool Spring Boot creates for the @Async methods and the asynchronous MVC responses.
+     *
+     * @param virtualThreadExecutor the executor of the tasks
+     * @return the task executor
+     */
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+}
@@ -0,0 +1,24 @@
+package com.yarin.springproject.projectspring.company;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An application event published after companies were saved to or deleted from the database.
+ * Components that keep derived state about companies (such as the name index) listen to it to stay in sync.
+ *
+ * @param saved      the companies that were created or updated, as they were saved
+ * @param deletedIds the IDs of the companies that were deleted
+ */
+public record CompaniesChangedEvent(Collection<Company> saved, Collection<Long> deletedIds) {
+
+    /**
+     * Creates an event for companies that were created or updated.
+     *
+     * @param saved the saved companies
+     * @return the event
+     */
+    public static CompaniesChangedEvent saved(Collection<Company> saved) {
+        return new CompaniesChangedEvent(saved, List.of());
+    }
+}
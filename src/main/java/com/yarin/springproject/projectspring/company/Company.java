@@ -24,11 +24,20 @@ public class Company {
 
     /**
      * The primary key of the company table.
+     * Allocated from the company_seq sequence in blocks of 50.
      */
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "company_seq")
+    @SequenceGenerator(name = "company_seq", sequenceName = "company_seq", allocationSize = 50)
     private Long id;
 
+    /**
+     * The version of the company, incremented by every update.
+     */
+    @Version
+    @JsonIgnore
+    private Long version;
+
     /**
      * The name of the company.
      */
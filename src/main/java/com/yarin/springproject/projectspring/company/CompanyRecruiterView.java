@@ -0,0 +1,17 @@
+package com.yarin.springproject.projectspring.company;
+
+/**
+ * A closed projection of one row of the company-recruiter association.
+ */
+public interface CompanyRecruiterView {
+
+    /**
+     * @return the ID of the company
+     */
+    Long getCompanyId();
+
+    /**
+     * @return the ID of the recruiter
+     */
+    Long getRecruiterId();
+}
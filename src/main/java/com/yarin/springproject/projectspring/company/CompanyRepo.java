@@ -1,7 +1,13 @@
 package com.yarin.springproject.projectspring.company;
 
+import com.yarin.springproject.projectspring.search.NameView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -27,4 +33,32 @@ public interface CompanyRepo extends JpaRepository<Company, Long> {
      * @return an Optional containing the company with the specified name, or an empty Optional if not found
      */
     Optional<Company> findByName(String name);
+
+    /**
+     * Retrieves the companies having any of the given names, in a single query.
+     *
+     * @param names the names of the companies to retrieve
+     * @return the companies found, companies whose name was not found are missing from the list
+     */
+    List<Company> findByNameIn(Collection<String> names);
+
+    /**
+     * Retrieves the existing company-recruiter associations among the given companies.
+     * Used by the bulk import to link only the pairs that are not linked yet.
+     *
+     * @param companyIds the IDs of the companies
+     * @return the IDs of every associated company and recruiter pair
+     */
+    @Query("select c.id as companyId, r.id as recruiterId from Company c join c.recruiters r where c.id in :companyIds")
+    List<CompanyRecruiterView> findRecruiterLinksByCompanyIdIn(@Param("companyIds") Collection<Long> companyIds);
+
+    /**
+     * Retrieves the ID and name of the companies whose ID is greater than the given cursor, in ascending ID order.
+     * Used to build the name index in batches.
+     *
+     * @param id       the cursor, the ID of the last company of the previous batch
+     * @param pageable the batch size (its page number is expected to be 0)
+     * @return a list of at most pageable.getPageSize() company names
+     */
+    List<NameView> findNamesByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 }
@@ -1,5 +1,6 @@
 package com.yarin.springproject.projectspring.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -68,6 +69,25 @@ public class CustomizedResponseEntityExceptionHandler extends ResponseEntityExce
         return new ResponseEntity<>(errorDetails, HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Exception handler method for handling OptimisticLockingFailureException, thrown when an entity was changed by
+     * another request between the time it was read and the time it was saved.
+     * It creates an ErrorDetails object with the current timestamp, an error message and the request description,
+     * and returns a ResponseEntity with the error details and an HTTP status of CONFLICT, so that the client can read
+     * the entity again and retry.
+     *
+     * @param ex      the OptimisticLockingFailureException that was thrown
+     * @param request the web request that resulted in the exception
+     * @return a ResponseEntity containing the error details and the HTTP status code
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public final ResponseEntity<Object> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex,
+                                                                                WebRequest request) {
+        String errorMessage = "Error: the entity was changed by another request, read it again and retry";
+        ErrorDetails errorDetails = new ErrorDetails(LocalDateTime.now(), errorMessage, request.getDescription(false));
+        return new ResponseEntity<>(errorDetails, HttpStatus.CONFLICT);
+    }
+
     /**
      * Overrides the handleMethodArgumentNotValid method of the base class to handle MethodArgumentNotValidException.
      * It creates an ErrorDetails object with the current timestamp, default error message from the field error,
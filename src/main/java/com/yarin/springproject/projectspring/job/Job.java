@@ -1,5 +1,6 @@
 package com.yarin.springproject.projectspring.job;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.yarin.springproject.projectspring.company.Company;
 import com.yarin.springproject.projectspring.recruiter.Recruiter;
 import jakarta.persistence.*;
@@ -7,23 +8,38 @@ import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 /**
  * Represents a job entity that is stored in the database.
  * The class is annotated with various annotations for code generation and validation purposes.
  * It defines the structure and attributes of a job.
+ * The updates of a job only write the columns that changed, and the version.
  */
 @Data
 @Entity
+@DynamicUpdate
+@Table(indexes = @Index(name = "idx_job_salary_thousands", columnList = "salaryThousands, id"))
 @NoArgsConstructor
 public class Job {
     /**
      * The ID of the job.
+     * IDs are taken from the job_seq sequence 50 at a time (pooled optimizer), so inserting jobs does not
+     * call the sequence for every row and the inserts can be sent in JDBC batches.
      */
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "job_seq")
+    @SequenceGenerator(name = "job_seq", sequenceName = "job_seq", allocationSize = 50)
     private Long id;
 
+    /**
+     * The version of the job, incremented by every update.
+     * Used for optimistic locking and to build the ETag of the job.
+     */
+    @Version
+    @JsonIgnore
+    private Long version;
+
     /**
      * The title of the job.
      * Must have a minimum length of 2 characters.
@@ -38,6 +54,14 @@ public class Job {
     @Pattern(regexp = "\\d+K$", message = "Salary should be in the format 'numK'")
     private String salary;
 
+    /**
+     * The salary of the job as a number of thousands, parsed from {@link #salary} whenever the job is saved.
+     * Stored in its own indexed column so that the database can sort and range-filter jobs by salary.
+     * It is null when the salary is missing.
+     */
+    @JsonIgnore
+    private Integer salaryThousands;
+
     /**
      * The location of the job.
      */
@@ -51,9 +75,10 @@ public class Job {
 
     /**
      * The recruiter associated with the job.
-     * Cascade type is set to REMOVE to delete the job if the recruiter is deleted.
+     * Deleting the job keeps its recruiter; the jobs of a deleted recruiter are deleted by
+     * {@link com.yarin.springproject.projectspring.service.TalentService#deleteRecruiter(Long)}.
      */
-    @ManyToOne(cascade = CascadeType.REMOVE)
+    @ManyToOne
     private Recruiter recruiter;
 
     /**
@@ -73,6 +98,32 @@ public class Job {
         this.recruiter = recruiter;
     }
 
+    /**
+     * Parses a salary in the format 'numK' into its number of thousands.
+     *
+     * @param salary The salary, such as "15K".
+     * @return The number of thousands, such as 15, or null if the salary is missing or not in the 'numK' format.
+     */
+    public static Integer parseSalaryThousands(String salary) {
+        if (salary == null || !salary.matches("\\d+K")) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(salary.substring(0, salary.length() - 1));
+        } catch (NumberFormatException e) {
+            return null; // too large for an int
+        }
+    }
+
+    /**
+     * Keeps {@link #salaryThousands} in sync with {@link #salary} before the job is inserted or updated.
+     */
+    @PrePersist
+    @PreUpdate
+    void syncSalaryThousands() {
+        this.salaryThousands = parseSalaryThousands(this.salary);
+    }
+
     /**
      * Returns a string representation of the Job object.
      * The string includes the job's ID, title, salary, and the names of the associated company and recruiter.
@@ -1,23 +1,52 @@
 package com.yarin.springproject.projectspring.job;
 
+import com.yarin.springproject.projectspring.CollectionVersions;
+import com.yarin.springproject.projectspring.ConditionalGet;
+import com.yarin.springproject.projectspring.ConditionalUpdate;
+import com.yarin.springproject.projectspring.KeysetPage;
+import com.yarin.springproject.projectspring.company.CompaniesChangedEvent;
 import com.yarin.springproject.projectspring.company.Company;
 import com.yarin.springproject.projectspring.exception.JobNotFoundException;
 import com.yarin.springproject.projectspring.recruiter.Recruiter;
+import com.yarin.springproject.projectspring.recruiter.RecruitersChangedEvent;
+import com.yarin.springproject.projectspring.search.JobFacetIndex;
+import com.yarin.springproject.projectspring.search.JobTitleIndex;
+import com.yarin.springproject.projectspring.search.NameIndex;
+import com.yarin.springproject.projectspring.service.JobExportService;
+import com.yarin.springproject.projectspring.service.JobImportReport;
+import com.yarin.springproject.projectspring.service.JobBulkReport;
+import com.yarin.springproject.projectspring.service.JobBulkService;
+import com.yarin.springproject.projectspring.service.JobImportService;
+import com.yarin.springproject.projectspring.service.JobIngestionQueue;
+import com.yarin.springproject.projectspring.service.JobIngestionStatus;
+import com.yarin.springproject.projectspring.service.MergePatchService;
 import com.yarin.springproject.projectspring.service.TalentService;
+import io.micrometer.core.annotation.Timed;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.net.URI;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import jakarta.validation.Valid;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 /**
@@ -26,103 +55,283 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
  * @author yarin0600@gmail.com
  */
 @RestController
+@Timed(value = "controller.invocations", histogram = true)
 public class JobController {
     private final TalentService talentService;
     private final JobDtoAssembler jobDtoAssembler;
     private final JobEntityAssembler jobEntityAssembler;
+    private final JobTitleIndex jobTitleIndex;
+    private final NameIndex nameIndex;
+    private final JobFacetIndex jobFacetIndex;
+    private final JobExportService jobExportService;
+    private final JobImportService jobImportService;
+    private final JobBulkService jobBulkService;
+    private final JobIngestionQueue jobIngestionQueue;
+    private final MergePatchService mergePatchService;
+    private final CollectionVersions collectionVersions;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
-     * Creates an JobController with the specified service, and assemblers.
+     * Creates an JobController with the specified service, assemblers and search index.
      * @param talentService
      * @param jobDtoAssembler
      * @param jobEntityAssembler
+     * @param jobTitleIndex
+     * @param nameIndex
+     * @param jobFacetIndex
+     * @param jobExportService
+     * @param jobImportService
+     * @param jobBulkService updates and deletes the jobs matching a filter, for PATCH and DELETE /jobs
+     * @param jobIngestionQueue queues the jobs created asynchronously, and writes them in the background
+     * @param mergePatchService applies the merge patches of PATCH /jobs/{id}
+     * @param collectionVersions the versions used as the ETags of the job collections
+     * @param eventPublisher publishes change events after every write, to keep the search indexes in sync
      */
-    public JobController(TalentService talentService, JobDtoAssembler jobDtoAssembler, JobEntityAssembler jobEntityAssembler) {
+    public JobController(TalentService talentService, JobDtoAssembler jobDtoAssembler, JobEntityAssembler jobEntityAssembler,
+                         JobTitleIndex jobTitleIndex, NameIndex nameIndex, JobFacetIndex jobFacetIndex,
+                         JobExportService jobExportService, JobImportService jobImportService,
+                         JobBulkService jobBulkService, JobIngestionQueue jobIngestionQueue,
+                         MergePatchService mergePatchService, CollectionVersions collectionVersions,
+                         ApplicationEventPublisher eventPublisher) {
         this.talentService = talentService;
         this.jobDtoAssembler = jobDtoAssembler;
         this.jobEntityAssembler = jobEntityAssembler;
+        this.jobTitleIndex = jobTitleIndex;
+        this.nameIndex = nameIndex;
+        this.jobFacetIndex = jobFacetIndex;
+        this.jobExportService = jobExportService;
+        this.jobImportService = jobImportService;
+        this.jobBulkService = jobBulkService;
+        this.jobIngestionQueue = jobIngestionQueue;
+        this.mergePatchService = mergePatchService;
+        this.collectionVersions = collectionVersions;
+        this.eventPublisher = eventPublisher;
     }
 
 
     /**
-     * Retrieves all jobs from the job repository.
+     * Retrieves one page of jobs from the job repository, ordered by ID or by salary, optionally within a salary range.
+     * Paging is done with a cursor on the job ID, so each page costs the same no matter how deep it is.
      *
-     * @return ResponseEntity containing a CollectionModel of EntityModel of Job, representing all the jobs,
-     *         along with links to each individual job and the collection of jobs.
+     * @param after     the ID of the last job of the previous page, omit for the first page
+     * @param before    the ID of the first job of the next page, used to page backwards
+     * @param size      the number of jobs in the page, {@value KeysetPage#DEFAULT_SIZE} by default and {@value KeysetPage#MAX_SIZE} at most
+     * @param minSalary the lowest salary, in thousands (15 for "15K")
+     * @param maxSalary the highest salary, in thousands
+     * @param sort      "salary" or "salary,desc" to order by salary (leaving out jobs without a salary), by ID otherwise
+     * @param request   the current request, holding the If-None-Match header
+     * @return ResponseEntity containing a CollectionModel of EntityModel of Job, representing the jobs of the page,
+     *         along with links to each individual job, the collection of jobs and the next/previous pages.
      */
-    @GetMapping("/jobs") // getting response 200 altogether with all jobs each together with link to itself and all.
-    public ResponseEntity<CollectionModel<EntityModel<Job>>> allJobs(){
-        return ResponseEntity.ok(jobEntityAssembler.toCollectionModel(talentService.getJobRepo().findAll()));
+    @GetMapping("/jobs") // getting response 200 altogether with a page of jobs each together with link to itself and all.
+    public ResponseEntity<CollectionModel<EntityModel<Job>>> allJobs(@RequestParam(required = false) Long after,
+                                                                     @RequestParam(required = false) Long before,
+                                                                     @RequestParam(required = false) Integer size,
+                                                                     @RequestParam(required = false) Integer minSalary,
+                                                                     @RequestParam(required = false) Integer maxSalary,
+                                                                     @RequestParam(required = false) String sort,
+                                                                     WebRequest request){
+        return ConditionalGet.of(request, collectionVersions.jobsETag(), () -> {
+            KeysetPage<Job> page = fetchJobIds(after, before, size, minSalary, maxSalary, sort)
+                    .mapContent(this::findAllInOrder);
+            return jobEntityAssembler.toCollectionModel(page.getContent()).add(page.getLinks());
+        });
     }
 
     /**
-     * Retrieves information about all jobs from the job repository unlike before each Job is wrapped a JobDTO.
+     * Retrieves information about one page of jobs from the job repository unlike before each Job is wrapped a JobDTO.
      * It helps us reveal the fields we wanted the client to see / hide those we wanted the client not to see.
      *
-     * @return ResponseEntity containing a CollectionModel of EntityModel of JobDTO, representing information about all the jobs,
-     *         along with links to each individual job and the collection of jobs.
+     * @param after     the ID of the last job of the previous page, omit for the first page
+     * @param before    the ID of the first job of the next page, used to page backwards
+     * @param size      the number of jobs in the page
+     * @param minSalary the lowest salary, in thousands (15 for "15K")
+     * @param maxSalary the highest salary, in thousands
+     * @param sort      "salary" or "salary,desc" to order by salary (leaving out jobs without a salary), by ID otherwise
+     * @param request   the current request, holding the If-None-Match header
+     * @return ResponseEntity containing a CollectionModel of EntityModel of JobDTO, representing information about the jobs of the page,
+     *         along with links to each individual job, the collection of jobs and the next/previous pages.
      */
     @GetMapping("/jobs/info")
-    public ResponseEntity<CollectionModel<EntityModel<JobDTO>>> allJobsInfo(){
-        return ResponseEntity.ok(jobDtoAssembler.toCollectionModel(
-                StreamSupport.stream(talentService.getJobRepo().findAll().spliterator(), false)
-                        .map(JobDTO::new).collect(Collectors.toList())));
+    public ResponseEntity<CollectionModel<EntityModel<JobDTO>>> allJobsInfo(@RequestParam(required = false) Long after,
+                                                                            @RequestParam(required = false) Long before,
+                                                                            @RequestParam(required = false) Integer size,
+                                                                            @RequestParam(required = false) Integer minSalary,
+                                                                            @RequestParam(required = false) Integer maxSalary,
+                                                                            @RequestParam(required = false) String sort,
+                                                                            WebRequest request){
+        return ConditionalGet.of(request, collectionVersions.jobsETag(), () -> jobDtoAssembler.toCollectionModel(
+                fetchJobIds(after, before, size, minSalary, maxSalary, sort)
+                        .mapContent(this::findInfoInOrder)));
+    }
+
+    /**
+     * Exports the whole job catalog as newline-delimited JSON, one job per line ordered by ID.
+     * Unlike /jobs/info the jobs are not collected in memory: they are streamed from the database and written
+     * to the response one by one, so the export can be used to sync any number of jobs.
+     *
+     * @return ResponseEntity whose body writes the jobs to the response once the request thread is released.
+     */
+    @GetMapping(value = "/jobs/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportJobs() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(jobExportService::exportTo);
     }
     /**
      * Retrieves information about a specific job from the job repository (same as above inside a container of JobDTO).
      *
+     * The response carries an ETag built from the versions of the job, its company and its recruiter,
+     * and a request whose If-None-Match matches it gets a 304 Not Modified without the job being read.
+     *
      * @param id The ID of the job to retrieve information for.
+     * @param request the current request, holding the If-None-Match header
      * @return ResponseEntity containing an EntityModel of JobDTO, representing information about the specified job,
      *         along with links to the job.
      * @throws JobNotFoundException if the specified job ID is not found in the repository.
      */
     @GetMapping("/jobs/{id}/info") // same as above just for specific job
-    public ResponseEntity<EntityModel<JobDTO>> singleJobInfo(@PathVariable long id) {
-        return talentService.getJobRepo().findById(id)
-                .map(JobDTO::new)
-                .map(jobDtoAssembler::toModel)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<EntityModel<JobDTO>> singleJobInfo(@PathVariable long id, WebRequest request) {
+        String eTag = talentService.getJobRepo().findVersionsById(id)
+                .map(JobVersionView::getETag)
                 .orElseThrow(() -> new JobNotFoundException("id " + id)); // creating an formatted error message nicer than we had
+        return ConditionalGet.of(request, eTag, () -> talentService.getJobRepo().findInfoById(id)
+                .map(jobDtoAssembler::toModel)
+                .orElseThrow(() -> new JobNotFoundException("id " + id)));
     }
     /**
-     * Retrieves jobs by partial title from the job repository (inside a container of JobDTO).
+     * Retrieves one page of jobs by partial title (inside a container of JobDTO), most relevant first.
+     * The matching is done by the in-memory title index: every word of the given title has to appear in the job title,
+     * as a whole word or as the beginning of a word, and the results are ranked with BM25.
+     * Only the jobs of the requested page are loaded from the job repository.
      *
      * @param title The partial title used to search for jobs.
+     * @param page  the page number, starting at 0
+     * @param size  the number of jobs in the page
+     * @param request the current request, holding the If-None-Match header
      * @return ResponseEntity containing a CollectionModel of EntityModel of JobDTO, representing jobs matching the partial title,
-     *         along with links to each individual job and the collection of jobs.
+     *         along with links to each individual job, the collection of jobs and the next/previous pages.
      */
     @GetMapping("/jobs/{title}") // get a job by partial title, if none found, returns link to all
-    public ResponseEntity<CollectionModel<EntityModel<JobDTO>>> jobByPartialTitle(@PathVariable String title) {
-        return ResponseEntity.ok(jobDtoAssembler.toCollectionModel(
-                StreamSupport.stream(talentService.getJobRepo().findByTitleContaining(title).spliterator(), false)
-                        .map(JobDTO::new).collect(Collectors.toList())));
+    public ResponseEntity<CollectionModel<EntityModel<JobDTO>>> jobByPartialTitle(@PathVariable String title,
+                                                                                  @RequestParam(required = false) Integer page,
+                                                                                  @RequestParam(required = false) Integer size,
+                                                                                  WebRequest request) {
+        return ConditionalGet.of(request, collectionVersions.jobsETag(), () -> jobDtoAssembler.toCollectionModel(
+                jobTitleIndex.search(title, page, size).mapContent(this::findInfoInOrder)));
     }
 
     /**
-     * Retrieves jobs by recruiter name from the job repository.
+     * Searches jobs by title, location, company and salary band, and counts the matches per facet value.
+     * Values of the same filter are alternatives (location=Haifa&amp;location=Holon), different filters must all match.
+     * The search and the counts are answered by the in-memory title and facet indexes, only the jobs of the requested
+     * page are loaded from the job repository.
      *
-     * @param name The name of the recruiter used to search for jobs.
+     * @param title      words that must appear in the job title, as in /jobs/{title}
+     * @param location   the accepted locations
+     * @param company    the accepted company names
+     * @param salaryBand the accepted salary bands, such as "10K-19K"
+     * @param minSalary  the lowest salary, in thousands (15 for "15K")
+     * @param maxSalary  the highest salary, in thousands
+     * @param after      the ID of the last job of the previous page, omit for the first page
+     * @param before     the ID of the first job of the next page, used to page backwards
+     * @param size       the number of jobs in the page
+     * @param request    the current request, holding the If-None-Match header
+     * @return ResponseEntity containing a page of the matching jobs along with links to each individual job and
+     *         the next/previous pages, the total number of matches and the facet counts.
+     */
+    @GetMapping("/jobs/search")
+    public ResponseEntity<JobSearchModel> searchJobs(@RequestParam(required = false) String title,
+                                                     @RequestParam(required = false) List<String> location,
+                                                     @RequestParam(required = false) List<String> company,
+                                                     @RequestParam(required = false) List<String> salaryBand,
+                                                     @RequestParam(required = false) Integer minSalary,
+                                                     @RequestParam(required = false) Integer maxSalary,
+                                                     @RequestParam(required = false) Long after,
+                                                     @RequestParam(required = false) Long before,
+                                                     @RequestParam(required = false) Integer size,
+                                                     WebRequest request) {
+        return ConditionalGet.of(request, collectionVersions.jobsETag(), () -> {
+            BitSet titleMatches = null;
+            if (title != null && !title.isBlank()) {
+                titleMatches = new BitSet();
+                for (Long id : jobTitleIndex.matches(title)) {
+                    // the facet index only holds the IDs that fit in an int, see JobFacetIndex
+                    if (id >= 0 && id <= Integer.MAX_VALUE) {
+                        titleMatches.set(id.intValue());
+                    }
+                }
+            }
+            JobFacetIndex.Result result = jobFacetIndex.search(new JobFacetIndex.Filters(titleMatches, location, company, salaryBand,
+                    minSalary, maxSalary));
+
+            KeysetPage<JobDTO> page = KeysetPage.fetch(after, before, size,
+                    (cursor, limit) -> result.idsAfter(cursor, limit.getPageSize()),
+                    (cursor, limit) -> result.idsBefore(cursor, limit.getPageSize()),
+                    Function.identity())
+                    .mapContent(this::findInfoInOrder);
+            return new JobSearchModel(jobDtoAssembler.toCollectionModel(page),
+                    result.matches().cardinality(), result.facets());
+        });
+    }
+
+    /**
+     * Retrieves one page of jobs by recruiter name from the job repository.
+     * The partial name is resolved to recruiter IDs by the in-memory name index, ignoring case,
+     * so only the jobs of the matching recruiters are read from the database.
+     *
+     * @param name   The name of the recruiter used to search for jobs.
+     * @param after  the ID of the last job of the previous page, omit for the first page
+     * @param before the ID of the first job of the next page, used to page backwards
+     * @param size   the number of jobs in the page
+     * @param request the current request, holding the If-None-Match header
      * @return ResponseEntity containing a CollectionModel of EntityModel of JobDTO, representing jobs associated with the specified recruiter,
-     *         along with links to each individual job and the collection of jobs.
+     *         along with links to each individual job, the collection of jobs and the next/previous pages.
      */
     @GetMapping("/jobs/byrecruiter/{name}")
-    public ResponseEntity<CollectionModel<EntityModel<JobDTO>>> jobsByRecruiter(@PathVariable String name){
-        return ResponseEntity.ok(jobDtoAssembler.toCollectionModel(
-                StreamSupport.stream(talentService.getJobRepo().findByRecruiterNameContaining(name).spliterator(), false)
-                        .map(JobDTO::new).collect(Collectors.toList())));
+    public ResponseEntity<CollectionModel<EntityModel<JobDTO>>> jobsByRecruiter(@PathVariable String name,
+                                                                                @RequestParam(required = false) Long after,
+                                                                                @RequestParam(required = false) Long before,
+                                                                                @RequestParam(required = false) Integer size,
+                                                                                WebRequest request){
+        return ConditionalGet.of(request, collectionVersions.jobsETag(), () -> {
+            Set<Long> recruiterIds = nameIndex.recruitersNamed(name);
+            return jobDtoAssembler.toCollectionModel(KeysetPage.fetch(after, before, size,
+                    (cursor, limit) -> recruiterIds.isEmpty() ? List.<Long>of()
+                            : talentService.getJobRepo().findIdsByRecruiterIdInAfter(recruiterIds, cursor, limit),
+                    (cursor, limit) -> recruiterIds.isEmpty() ? List.<Long>of()
+                            : talentService.getJobRepo().findIdsByRecruiterIdInBefore(recruiterIds, cursor, limit),
+                    Function.identity()).mapContent(this::findInfoInOrder));
+        });
     }
     /**
-     * Retrieves jobs by company name from the job repository.
+     * Retrieves one page of jobs by company name from the job repository.
+     * The partial name is resolved to company IDs by the in-memory name index, ignoring case,
+     * so only the jobs of the matching companies are read from the database.
      *
-     * @param name The name of the company used to search for jobs.
+     * @param name   The name of the company used to search for jobs.
+     * @param after  the ID of the last job of the previous page, omit for the first page
+     * @param before the ID of the first job of the next page, used to page backwards
+     * @param size   the number of jobs in the page
+     * @param request the current request, holding the If-None-Match header
      * @return ResponseEntity containing a CollectionModel of EntityModel of JobDTO, representing jobs associated with the specified company,
-     *         along with links to each individual job and the collection of jobs.
+     *         along with links to each individual job, the collection of jobs and the next/previous pages.
      */
     @GetMapping("/jobs/bycompany/{name}")
-    public ResponseEntity<CollectionModel<EntityModel<JobDTO>>> jobsByCompany(@PathVariable String name){
-        return ResponseEntity.ok(jobDtoAssembler.toCollectionModel(
-                StreamSupport.stream(talentService.getJobRepo().findByCompanyNameContaining(name).spliterator(), false)
-                        .map(JobDTO::new).collect(Collectors.toList())));
+    public ResponseEntity<CollectionModel<EntityModel<JobDTO>>> jobsByCompany(@PathVariable String name,
+                                                                              @RequestParam(required = false) Long after,
+                                                                              @RequestParam(required = false) Long before,
+                                                                              @RequestParam(required = false) Integer size,
+                                                                              WebRequest request){
+        return ConditionalGet.of(request, collectionVersions.jobsETag(), () -> {
+            Set<Long> companyIds = nameIndex.companiesNamed(name);
+            return jobDtoAssembler.toCollectionModel(KeysetPage.fetch(after, before, size,
+                    (cursor, limit) -> companyIds.isEmpty() ? List.<Long>of()
+                            : talentService.getJobRepo().findIdsByCompanyIdInAfter(companyIds, cursor, limit),
+                    (cursor, limit) -> companyIds.isEmpty() ? List.<Long>of()
+                            : talentService.getJobRepo().findIdsByCompanyIdInBefore(companyIds, cursor, limit),
+                    Function.identity()).mapContent(this::findInfoInOrder));
+        });
     }
 
     /**
@@ -161,43 +370,46 @@ public class JobController {
         // Use the company name from the job
         String companyName = job.getCompany().getName();
 
-        // Check if the company already exists in the database
-        Optional<Company> existingCompany = talentService.getCompanyRepo().findByName(companyName);
+        // Check if the company already exists in the database (its ID is usually cached)
+        Optional<Long> existingCompanyId = talentService.findCompanyIdByName(companyName);
 
         Company company;
-        if (existingCompany.isPresent()) {
-            company = existingCompany.get();
+        if (existingCompanyId.isPresent()) {
+            // A reference is enough to save the job, the company itself is not loaded
+            company = talentService.getCompanyRepo().getReferenceById(existingCompanyId.get());
         } else {
             // Create a new Company entity
-            company = new Company(companyName);
-            talentService.getCompanyRepo().save(company);
+            company = talentService.saveCompany(new Company(companyName));
+            eventPublisher.publishEvent(CompaniesChangedEvent.saved(List.of(company)));
         }
         // Use the recruiter email from the job
         String recruiterEmail = job.getRecruiter().getEmail();
 
-        // Check if the recruiter already exists in the database
-        Optional<Recruiter> existingRecruiter = talentService.getRecruiterRepo().findByEmail(recruiterEmail);
+        // Check if the recruiter already exists in the database (its ID is usually cached)
+        Optional<Long> existingRecruiterId = talentService.findRecruiterIdByEmail(recruiterEmail);
 
         Recruiter recruiter;
-        if (existingRecruiter.isPresent()) {
-            recruiter = existingRecruiter.get();
+        if (existingRecruiterId.isPresent()) {
+            recruiter = talentService.getRecruiterRepo().getReferenceById(existingRecruiterId.get());
         } else {
             // Create a new Recruiter entity
-            recruiter = job.getRecruiter();
-            talentService.getRecruiterRepo().save(recruiter);
+            recruiter = talentService.saveRecruiter(job.getRecruiter());
+            eventPublisher.publishEvent(RecruitersChangedEvent.saved(List.of(recruiter)));
+        }
+        // Associate the Recruiter with the Company, if they are not associated yet
+        boolean linked = talentService.linkRecruiterToCompany(existingCompanyId.orElseGet(company::getId),
+                existingRecruiterId.orElseGet(recruiter::getId));
+        if (linked && existingRecruiterId.isPresent()) {
+            // the link is inserted with JDBC, so report the change of the recruiter
+            eventPublisher.publishEvent(RecruitersChangedEvent.saved(List.of(recruiter)));
         }
-        // Associate the Recruiter with the Company
-        recruiter.addCompany(company);
-
-        // save after updating the list.
-        talentService.saveCompany(company);
-        talentService.saveRecruiter(recruiter);
 
         // Create a new Job entity with the provided data
         Job newJob = new Job(job.getTitle(), job.getSalary(), job.getLocation(), company, recruiter);
 
         // Save the Job entity using JobRepo
         Job savedJob = talentService.getJobRepo().save(newJob);
+        eventPublisher.publishEvent(JobsChangedEvent.saved(List.of(savedJob)));
 
         // Build the URI for the newly created Job resource
         URI location = ServletUriComponentsBuilder.fromCurrentRequest()
@@ -209,6 +421,89 @@ public class JobController {
         return ResponseEntity.created(location).build();
     }
 
+    /**
+     * Accepts a new job to be created in the background, when the request has a Prefer header with the respond-async
+     * preference (RFC 7240), alone or among other preferences, e.g. "Prefer: respond-async, wait=5".
+     * The job is validated and queued without waiting for it to be saved, so a burst of postings does not keep the
+     * request threads busy; the queued jobs are saved in batches, see JobIngestionQueue.
+     * The request body is the same as for a job created synchronously, see {@link #createJob(Job)}, which also handles
+     * the requests whose Prefer header does not ask for respond-async.
+     *
+     * Example usage: POST /jobs with Prefer: respond-async
+     *
+     * @param job    The Job object containing the details of the job to be created.
+     * @param prefer The values of the Prefer headers of the request.
+     * @return ResponseEntity with a 202 status, the status of the accepted job, its URL in the Location header and
+     *         "Preference-Applied: respond-async", or with a 503 status and a Retry-After header if too many jobs are
+     *         waiting to be saved; or the response of {@link #createJob(Job)} without respond-async.
+     * @throws ResponseStatusException with a 400 status if the job is invalid
+     */
+    @PostMapping(value = "/jobs", headers = "Prefer")
+    public ResponseEntity<?> acceptJob(@Valid @RequestBody Job job, @RequestHeader("Prefer") List<String> prefer) {
+        if (!prefersRespondAsync(prefer)) {
+            return createJob(job);
+        }
+        Optional<JobIngestionStatus> status = jobIngestionQueue.submit(job);
+        if (status.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/jobs/ingestion/{id}")
+                .buildAndExpand(status.get().id())
+                .toUri();
+        return ResponseEntity.accepted()
+                .location(location)
+                .header("Preference-Applied", "respond-async")
+                .body(status.get());
+    }
+
+    /**
+     * Tells whether the Prefer headers have the respond-async preference. Every header holds comma-separated
+     * preferences, each a token optionally followed by "=value" and ";"-separated parameters; tokens ignore case.
+     */
+    private static boolean prefersRespondAsync(List<String> prefer) {
+        for (String header : prefer) {
+            for (String preference : header.split(",")) {
+                String token = preference.split("[=;]", 2)[0].trim();
+                if (token.equalsIgnoreCase("respond-async")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retrieves the status of a job accepted by POST /jobs with Prefer: respond-async: queued, created (with the ID
+     * of the job) or rejected (with the reason). The statuses are kept for a limited time, see JobIngestionProperties.
+     *
+     * @param id the ID of the accepted job, from the Location header of the 202 response
+     * @return ResponseEntity containing the status of the accepted job.
+     * @throws ResponseStatusException with a 404 status if the ID is unknown or its status has expired
+     */
+    @GetMapping("/jobs/ingestion/{id}")
+    public ResponseEntity<JobIngestionStatus> ingestionStatus(@PathVariable String id) {
+        return jobIngestionQueue.status(id)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No accepted job with ID " + id));
+    }
+
+    /**
+     * Creates many jobs at once, for example from a partner feed.
+     * Each job has the same shape as in POST /jobs, and its company and recruiter are created when they do not exist yet.
+     * The jobs are saved in batches, so an invalid job or a failed batch does not stop the others from being created.
+     *
+     * @param jobs the jobs to create
+     * @return ResponseEntity containing the number of created and rejected jobs, and the result of every job
+     *         (its ID, or why it was rejected) in the order they were sent.
+     */
+    @PostMapping("/jobs/bulk")
+    public ResponseEntity<JobImportReport> createJobs(@RequestBody List<Job> jobs) {
+        return ResponseEntity.ok(jobImportService.importJobs(jobs));
+    }
+
     /**
      * Deletes a job with the specified ID.
      *
@@ -227,13 +522,67 @@ public class JobController {
 
         // Delete the job from the repository
         talentService.getJobRepo().deleteById(id);
+        eventPublisher.publishEvent(JobsChangedEvent.deleted(List.of(id)));
 
         // Return a ResponseEntity with no content and an appropriate HTTP status
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Deletes all the jobs matching every given criterion with a single statement, for example all the jobs of a
+     * recruiter. At least one criterion is required.
+     *
+     * Example usage: DELETE /jobs?recruiterId=2&location=Holon
+     *
+     * @param recruiterId the ID of the recruiter of the jobs
+     * @param companyId   the ID of the company of the jobs
+     * @param location    the location of the jobs
+     * @param minSalary   the lowest salary of the jobs, in thousands
+     * @param maxSalary   the highest salary of the jobs, in thousands
+     * @return ResponseEntity containing the number of deleted jobs.
+     * @throws ResponseStatusException with a 400 status if no criterion is given
+     */
+    @DeleteMapping("/jobs")
+    public ResponseEntity<JobBulkReport> deleteJobs(@RequestParam(required = false) Long recruiterId,
+                                                    @RequestParam(required = false) Long companyId,
+                                                    @RequestParam(required = false) String location,
+                                                    @RequestParam(required = false) Integer minSalary,
+                                                    @RequestParam(required = false) Integer maxSalary) {
+        return ResponseEntity.ok(jobBulkService.deleteJobs(
+                new JobBulkService.Filter(recruiterId, companyId, location, minSalary, maxSalary)));
+    }
+
+    /**
+     * Applies a JSON Merge Patch of the salary and the location to all the jobs matching every given criterion,
+     * with a single statement, for example to reprice the jobs of a company. At least one criterion is required.
+     *
+     * Example usage: PATCH /jobs?companyId=1&maxSalary=14 with Content-Type: application/merge-patch+json
+     * Request body: { "salary": "15K" }
+     *
+     * @param recruiterId the ID of the recruiter of the jobs
+     * @param companyId   the ID of the company of the jobs
+     * @param location    the location of the jobs
+     * @param minSalary   the lowest salary of the jobs, in thousands
+     * @param maxSalary   the highest salary of the jobs, in thousands
+     * @param patch       the salary or the location to set, a null value removing it
+     * @return ResponseEntity containing the number of updated jobs.
+     * @throws ResponseStatusException with a 400 status if no criterion is given or the patch is invalid
+     */
+    @PatchMapping(value = "/jobs", consumes = MergePatchService.MEDIA_TYPE)
+    public ResponseEntity<JobBulkReport> patchJobs(@RequestParam(required = false) Long recruiterId,
+                                                   @RequestParam(required = false) Long companyId,
+                                                   @RequestParam(required = false) String location,
+                                                   @RequestParam(required = false) Integer minSalary,
+                                                   @RequestParam(required = false) Integer maxSalary,
+                                                   @RequestBody Map<String, Object> patch) {
+        return ResponseEntity.ok(jobBulkService.updateJobs(
+                new JobBulkService.Filter(recruiterId, companyId, location, minSalary, maxSalary), patch));
+    }
     /**
      * Updates a job with the specified ID based on the fields provided in the request body.
      *
+     * The job is loaded, changed and saved whole; PATCH /jobs/{id} changes the given fields only, without loading it.
+     *
      * @param id      The ID of the job to be updated.
      * @param request The request body containing the fields to be updated.
      *                The expected JSON format of the request body:
@@ -242,18 +591,27 @@ public class JobController {
      *                    "salary": "25K",
      *                    "location": "Yokneam Elite"
      *                }
+     * @param ifMatch the ETag of the job as last read by the client, from GET /jobs/{id}/info, or null to update
+     *                any version of the job
      * @return ResponseEntity containing an EntityModel of JobDTO representing the updated job,
      *         along with the HTTP status of the response.
      * @throws JobNotFoundException if no job is found with the provided ID in the job repository.
+     * @throws ResponseStatusException with a 412 status if the job was changed since the version in If-Match
      */
     @PutMapping("/jobs/{id}")
-    public ResponseEntity<EntityModel<JobDTO>> updateJob(@PathVariable Long id, @RequestBody Map<String, Object> request) {
+    public ResponseEntity<EntityModel<JobDTO>> updateJob(@PathVariable Long id, @RequestBody Map<String, Object> request,
+                                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         // Retrieve the Job by id from the JobRepository
         Optional<Job> optionalJob = talentService.getJobRepo().findById(id);
         if (optionalJob.isEmpty()) {
             throw new JobNotFoundException("id " + id);
         }
         Job job = optionalJob.get();
+        Set<Long> expectedVersions = ConditionalUpdate.expectedVersions(ifMatch, "job", id);
+        if (expectedVersions != null && !expectedVersions.contains(job.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    "The job " + id + " was changed since the version in If-Match");
+        }
 
         // Iterate through the fields in the request body
         for (Map.Entry<String, Object> entry : request.entrySet()) {
@@ -287,10 +645,117 @@ public class JobController {
 
         // Save the updated Job to the JobRepository
         talentService.getJobRepo().save(job);
+        eventPublisher.publishEvent(JobsChangedEvent.saved(List.of(job)));
 
         // Return a ResponseEntity with the updated Job and an appropriate HTTP status
         return ResponseEntity.ok(jobDtoAssembler.toModel(new JobDTO(job)));
     }
 
+    /**
+     * Applies a JSON Merge Patch to a job: only the title, the salary and the location given in the body are changed,
+     * a null value removing the salary or the location. The job is updated with a single statement writing these
+     * columns and the version, without being loaded first.
+     *
+     * Example usage: PATCH /jobs/1 with Content-Type: application/merge-patch+json, If-Match: "job-1-0-0-0"
+     * Request body: { "salary": "25K" }
+     *
+     * @param id      The ID of the job to be updated.
+     * @param patch   The fields to change and their new values.
+     * @param ifMatch the ETag of the job as last read by the client, from GET /jobs/{id}/info or from a previous
+     *                patch, or null to update any version of the job
+     * @return ResponseEntity containing an EntityModel of JobDTO representing the updated job, with its new ETag.
+     * @throws JobNotFoundException if no job is found with the provided ID in the job repository.
+     * @throws ResponseStatusException with a 400 status if the patch is invalid, or a 412 status if the job was changed
+     *         since the version in If-Match
+     */
+    @PatchMapping(value = "/jobs/{id}", consumes = MergePatchService.MEDIA_TYPE)
+    public ResponseEntity<EntityModel<JobDTO>> patchJob(@PathVariable long id, @RequestBody Map<String, Object> patch,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Job job = mergePatchService.patchJob(id, patch, ConditionalUpdate.expectedVersions(ifMatch, "job", id));
+        eventPublisher.publishEvent(JobsChangedEvent.saved(List.of(job)));
+        String eTag = talentService.getJobRepo().findVersionsById(id).map(JobVersionView::getETag).orElse(null);
+        return ResponseEntity.ok().eTag(eTag).body(jobDtoAssembler.toModel(new JobDTO(job)));
+    }
 
+    /**
+     * Loads the jobs with the given IDs in one query, keeping the order of the IDs.
+     * IDs of jobs that no longer exist are skipped.
+     *
+     * @param ids the IDs of the jobs to load
+     * @return the jobs, in the order of their IDs
+     */
+    private List<Job> findAllInOrder(List<Long> ids) {
+        Map<Long, Job> jobsById = talentService.getJobRepo().findAllById(ids).stream()
+                .collect(Collectors.toMap(Job::getId, Function.identity()));
+        return ids.stream().map(jobsById::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Reads the JobDTOs of the jobs with the given IDs in one joined query, keeping the order of the IDs.
+     * No entity is loaded, so a page costs one query whatever its size.
+     * IDs of jobs that no longer exist are skipped.
+     *
+     * @param ids the IDs of the jobs to read
+     * @return the JobDTOs, in the order of their IDs
+     */
+    private List<JobDTO> findInfoInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, JobDTO> jobsById = talentService.getJobRepo().findInfoByIdIn(ids).stream()
+                .collect(Collectors.toMap(JobDTO::getId, Function.identity()));
+        return ids.stream().map(jobsById::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Fetches one page of job IDs, ordered by ID or by salary and optionally within a salary range.
+     * When ordering by salary, the cursor is still a job ID: its salary is looked up to seek to the (salary, ID) position.
+     *
+     * @param after     the ID of the last job of the previous page, or null
+     * @param before    the ID of the first job of the next page, or null
+     * @param size      the requested page size, or null
+     * @param minSalary the lowest salary, in thousands, or null
+     * @param maxSalary the highest salary, in thousands, or null
+     * @param sort      null, "id", "salary" or "salary,desc"
+     * @return the page of job IDs
+     * @throws ResponseStatusException with a 400 status if the sort is not supported
+     */
+    private KeysetPage<Long> fetchJobIds(Long after, Long before, Integer size, Integer minSalary, Integer maxSalary, String sort) {
+        JobRepo jobRepo = talentService.getJobRepo();
+        if (sort == null || sort.equals("id")) {
+            return KeysetPage.fetch(after, before, size,
+                    (cursor, limit) -> jobRepo.findIdsAfter(cursor, minSalary, maxSalary, limit),
+                    (cursor, limit) -> jobRepo.findIdsBefore(cursor, minSalary, maxSalary, limit),
+                    Function.identity());
+        }
+        if (sort.equals("salary")) {
+            return KeysetPage.fetch(after, before, size,
+                    (cursor, limit) -> cursor == Long.MIN_VALUE
+                            ? jobRepo.findIdsBySalaryAfter(Integer.MIN_VALUE, Long.MIN_VALUE, minSalary, maxSalary, limit)
+                            : jobRepo.findIdsBySalaryAfter(salaryOf(cursor), cursor, minSalary, maxSalary, limit),
+                    (cursor, limit) -> jobRepo.findIdsBySalaryBefore(salaryOf(cursor), cursor, minSalary, maxSalary, limit),
+                    Function.identity());
+        }
+        if (sort.equals("salary,desc")) {
+            return KeysetPage.fetch(after, before, size,
+                    (cursor, limit) -> cursor == Long.MIN_VALUE
+                            ? jobRepo.findIdsBySalaryBefore(Integer.MAX_VALUE, Long.MAX_VALUE, minSalary, maxSalary, limit)
+                            : jobRepo.findIdsBySalaryBefore(salaryOf(cursor), cursor, minSalary, maxSalary, limit),
+                    (cursor, limit) -> jobRepo.findIdsBySalaryAfter(salaryOf(cursor), cursor, minSalary, maxSalary, limit),
+                    Function.identity());
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported sort '" + sort + "', use 'salary' or 'salary,desc'");
+    }
+
+    /**
+     * Looks up the salary of the job used as a cursor.
+     *
+     * @param id the ID of the job
+     * @return the salary, in thousands
+     * @throws JobNotFoundException if the job does not exist (anymore) or has no salary
+     */
+    private Integer salaryOf(Long id) {
+        return talentService.getJobRepo().findSalaryThousandsById(id)
+                .orElseThrow(() -> new JobNotFoundException("cursor job with id " + id));
+    }
 }
@@ -2,8 +2,6 @@ package com.yarin.springproject.projectspring.job;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
-import com.yarin.springproject.projectspring.company.Company;
-import com.yarin.springproject.projectspring.recruiter.Recruiter;
 import lombok.Value;
 
 
@@ -11,78 +9,103 @@ import lombok.Value;
  * Represents a Data Transfer Object (DTO) for a Job.
  * The class is annotated with various annotations to define its behavior during serialization/deserialization.
  * It provides a subset of properties from the Job class and is used for data transfer purposes.
+ *
+ * <p>
+ * A JobDTO is a flat, read-only copy of the columns the response needs, not a wrapper of a managed Job:
+ * the collection endpoints fill it directly from a joined query (see {@link JobRepo#findInfoByIdIn}),
+ * so building a page of JobDTOs neither loads the Company and Recruiter entities nor adds anything to the
+ * persistence context.
+ * </p>
  */
 @Value
 @JsonPropertyOrder({"title", "salary", "company", "recruiter", "location"})
 public class JobDTO {
     /**
-     * The Job object.
+     * The ID of the job.
      * This field is ignored during serialization/deserialization.
      */
     @JsonIgnore
-    Job job;
+    Long id;
 
     /**
-     * Constructs a new JobDTO with the provided Job object.
-     *
-     * @param job The Job object.
+     * The title of the job.
      */
-    public JobDTO(Job job) {
-        this.job = job;
-    }
+    String title;
 
     /**
-     * Returns the ID of the job.
-     *
-     * @return The ID of the job.
+     * The salary of the job.
      */
-    @JsonIgnore
-    public Long getId() {
-        return this.job.getId();
-    }
+    String salary;
 
     /**
-     * Returns the title of the job.
-     *
-     * @return The title of the job.
+     * The company associated with the job, or null if it has none.
      */
-    public String getTitle() {
-        return this.job.getTitle();
-    }
+    CompanyInfo company;
 
     /**
-     * Returns the salary of the job.
+     * The recruiter associated with the job, or null if it has none.
+     */
+    RecruiterInfo recruiter;
+
+    /**
+     * The location of the job.
+     */
+    String location;
+
+    /**
+     * The company of a job, as shown to the client.
      *
-     * @return The salary of the job.
+     * @param id   the ID of the company
+     * @param name the name of the company
      */
-    public String getSalary() {
-        return this.job.getSalary();
+    public record CompanyInfo(Long id, String name) {
     }
 
     /**
-     * Returns the company associated with the job.
+     * The recruiter of a job, as shown to the client.
      *
-     * @return The company associated with the job.
+     * @param id    the ID of the recruiter
+     * @param name  the name of the recruiter
+     * @param email the email address of the recruiter
      */
-    public Company getCompany() {
-        return this.job.getCompany();
+    public record RecruiterInfo(Long id, String name, String email) {
     }
 
     /**
-     * Returns the recruiter associated with the job.
+     * Constructs a new JobDTO from the columns of a job and of its company and recruiter.
+     * Used by the constructor expressions of the JobRepo queries.
      *
-     * @return The recruiter associated with the job.
+     * @param id             The ID of the job.
+     * @param title          The title of the job.
+     * @param salary         The salary of the job.
+     * @param location       The location of the job.
+     * @param companyId      The ID of the company, null if the job has no company.
+     * @param companyName    The name of the company.
+     * @param recruiterId    The ID of the recruiter, null if the job has no recruiter.
+     * @param recruiterName  The name of the recruiter.
+     * @param recruiterEmail The email of the recruiter.
      */
-    public Recruiter getRecruiter() {
-        return this.job.getRecruiter();
+    public JobDTO(Long id, String title, String salary, String location, Long companyId, String companyName,
+                  Long recruiterId, String recruiterName, String recruiterEmail) {
+        this.id = id;
+        this.title = title;
+        this.salary = salary;
+        this.location = location;
+        this.company = companyId == null ? null : new CompanyInfo(companyId, companyName);
+        this.recruiter = recruiterId == null ? null : new RecruiterInfo(recruiterId, recruiterName, recruiterEmail);
     }
 
     /**
-     * Returns the location of the job.
+     * Constructs a new JobDTO with the provided Job object.
      *
-     * @return The location of the job.
+     * @param job The Job object.
      */
-    public String getLocation() {
-        return this.job.getLocation();
+    public JobDTO(Job job) {
+        this(job.getId(), job.getTitle(), job.getSalary(), job.getLocation(),
+                job.getCompany() == null ? null : job.getCompany().getId(),
+                job.getCompany() == null ? null : job.getCompany().getName(),
+                job.getRecruiter() == null ? null : job.getRecruiter().getId(),
+                job.getRecruiter() == null ? null : job.getRecruiter().getName(),
+                job.getRecruiter() == null ? null : job.getRecruiter().getEmail());
     }
 }
@@ -1,10 +1,18 @@
 package com.yarin.springproject.projectspring.job;
 
+import com.yarin.springproject.projectspring.KeysetPage;
+import com.yarin.springproject.projectspring.LinkTemplate;
+import com.yarin.springproject.projectspring.search.RankedPage;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.server.SimpleRepresentationModelAssembler;
 import org.springframework.stereotype.Component;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 /**
@@ -12,8 +20,16 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
  * Implements the SimpleRepresentationModelAssembler interface to build links based on a Spring web controller and a LinkRelationProvider.
  */
 @Component
+@Timed(value = "assembler.invocations", histogram = true)
 public class JobDtoAssembler implements SimpleRepresentationModelAssembler<JobDTO> {
 
+    /**
+     * The paths of /jobs/{id}/info and /jobs/info, resolved once from the mappings of the JobController.
+     */
+    private final LinkTemplate jobInfoTemplate = LinkTemplate.to(methodOn(JobController.class).singleJobInfo(0L, null));
+    private final LinkTemplate allJobsInfoTemplate = LinkTemplate.to(methodOn(JobController.class)
+            .allJobsInfo(null, null, null, null, null, null, null));
+
     /**
      * Adds links to the EntityModel representing a single JobDTO.
      *
@@ -21,8 +37,7 @@ public class JobDtoAssembler implements SimpleRepresentationModelAssembler<JobDT
      */
     @Override
     public void addLinks(EntityModel<JobDTO> resource) {
-        resource.add(linkTo(methodOn(JobController.class)
-                .singleJobInfo(resource.getContent().getId())).withSelfRel());
+        resource.add(jobInfoTemplate.expand(LinkTemplate.baseUri(), resource.getContent().getId(), IanaLinkRelations.SELF));
     }
 
     /**
@@ -32,6 +47,43 @@ public class JobDtoAssembler implements SimpleRepresentationModelAssembler<JobDT
      */
     @Override
     public void addLinks(CollectionModel<EntityModel<JobDTO>> resources) {
-        resources.add(linkTo(methodOn(JobController.class).allJobsInfo()).withSelfRel());
+        resources.add(allJobsInfoTemplate.toLink(LinkTemplate.baseUri(), IanaLinkRelations.SELF));
+    }
+
+    /**
+     * Converts JobDTOs into a CollectionModel, reading the base URI of the request once for all of their links.
+     *
+     * @param jobs The JobDTOs.
+     * @return The CollectionModel of EntityModel of JobDTO.
+     */
+    @Override
+    public CollectionModel<EntityModel<JobDTO>> toCollectionModel(Iterable<? extends JobDTO> jobs) {
+        String baseUri = LinkTemplate.baseUri();
+        List<EntityModel<JobDTO>> resources = new ArrayList<>();
+        for (JobDTO job : jobs) {
+            resources.add(EntityModel.of(job, jobInfoTemplate.expand(baseUri, job.getId(), IanaLinkRelations.SELF)));
+        }
+        return CollectionModel.of(resources, allJobsInfoTemplate.toLink(baseUri, IanaLinkRelations.SELF));
+    }
+
+    /**
+     * Converts a page of JobDTOs into a CollectionModel, adding the HAL next/prev links of the page
+     * to the links added by {@link #addLinks(CollectionModel)}.
+     *
+     * @param page The page of JobDTOs.
+     * @return The CollectionModel of EntityModel of JobDTO with the navigation links of the page.
+     */
+    public CollectionModel<EntityModel<JobDTO>> toCollectionModel(KeysetPage<JobDTO> page) {
+        return toCollectionModel(page.getContent()).add(page.getLinks());
+    }
+
+    /**
+     * Converts a page of ranked JobDTOs into a CollectionModel, adding the HAL next/prev links of the page.
+     *
+     * @param page The page of JobDTOs.
+     * @return The CollectionModel of EntityModel of JobDTO with the navigation links of the page.
+     */
+    public CollectionModel<EntityModel<JobDTO>> toCollectionModel(RankedPage<JobDTO> page) {
+        return toCollectionModel(page.getContent()).add(page.getLinks());
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package com.yarin.springproject.projectspring.job;
 
 import com.yarin.springproject.projectspring.SimpleIdentifiableRepresentationModelAssembler;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Component;
 
 /**
@@ -8,6 +9,7 @@ import org.springframework.stereotype.Component;
  * Extends the SimpleIdentifiableRepresentationModelAssembler class to build links based on a Spring web controller and a LinkRelationProvider.
  */
 @Component
+@Timed(value = "assembler.invocations", histogram = true)
 public class JobEntityAssembler extends SimpleIdentifiableRepresentationModelAssembler<Job> {
 
     /**
@@ -0,0 +1,28 @@
+package com.yarin.springproject.projectspring.job;
+
+/**
+ * A projection of a Job holding only the fields the search facets are built from.
+ * Used to build the facet index without loading the company and recruiter entities of every job.
+ */
+public interface JobFacetView {
+
+    /**
+     * @return the ID of the job
+     */
+    Long getId();
+
+    /**
+     * @return the location of the job
+     */
+    String getLocation();
+
+    /**
+     * @return the name of the company of the job
+     */
+    String getCompany();
+
+    /**
+     * @return the salary of the job, in the format 'numK'
+     */
+    String getSalary();
+}
@@ -1,9 +1,19 @@
 package com.yarin.springproject.projectspring.job;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing Job entities in the database.
@@ -35,4 +45,232 @@ public interface JobRepo extends JpaRepository<Job, Long> {
      * @return a list of jobs associated with companies matching the given name
      */
     List<Job> findByCompanyNameContaining(String name);
+
+    /**
+     * Retrieves the ID and title of the jobs whose ID is greater than the given cursor, in ascending ID order.
+     * Used to build the title search index in batches.
+     *
+     * @param id       the cursor, the ID of the last job of the previous batch
+     * @param pageable the batch size (its page number is expected to be 0)
+     * @return a list of at most pageable.getPageSize() job titles
+     */
+    List<JobTitleView> findTitlesByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Retrieves the IDs of the jobs of the given recruiters that are greater than the given cursor, in ascending order.
+     *
+     * @param recruiterIds the IDs of the recruiters
+     * @param id           the cursor, the ID of the last job of the previous page
+     * @param pageable     the page size (its page number is expected to be 0)
+     * @return a list of at most pageable.getPageSize() job IDs
+     */
+    @Query("select j.id from Job j where j.recruiter.id in :recruiterIds and j.id > :id order by j.id")
+    List<Long> findIdsByRecruiterIdInAfter(@Param("recruiterIds") Collection<Long> recruiterIds, @Param("id") Long id,
+                                           Pageable pageable);
+
+    /**
+     * Retrieves the IDs of the jobs of the given recruiters that are less than the given cursor, in descending order.
+     */
+    @Query("select j.id from Job j where j.recruiter.id in :recruiterIds and j.id < :id order by j.id desc")
+    List<Long> findIdsByRecruiterIdInBefore(@Param("recruiterIds") Collection<Long> recruiterIds, @Param("id") Long id,
+                                            Pageable pageable);
+
+    /**
+     * Retrieves the IDs of the jobs of the given companies that are greater than the given cursor, in ascending order.
+     *
+     * @param companyIds the IDs of the companies
+     * @param id         the cursor, the ID of the last job of the previous page
+     * @param pageable   the page size (its page number is expected to be 0)
+     * @return a list of at most pageable.getPageSize() job IDs
+     */
+    @Query("select j.id from Job j where j.company.id in :companyIds and j.id > :id order by j.id")
+    List<Long> findIdsByCompanyIdInAfter(@Param("companyIds") Collection<Long> companyIds, @Param("id") Long id,
+                                         Pageable pageable);
+
+    /**
+     * Retrieves the IDs of the jobs of the given companies that are less than the given cursor, in descending order.
+     */
+    @Query("select j.id from Job j where j.company.id in :companyIds and j.id < :id order by j.id desc")
+    List<Long> findIdsByCompanyIdInBefore(@Param("companyIds") Collection<Long> companyIds, @Param("id") Long id,
+                                          Pageable pageable);
+
+    /**
+     * Reads the JobDTOs of the given jobs with a single joined query.
+     * The DTOs are built by a constructor expression, so no Job, Company or Recruiter entity is loaded
+     * into the persistence context.
+     *
+     * @param ids the IDs of the jobs
+     * @return the JobDTOs of the jobs that exist, in no particular order
+     */
+    @Query("select new com.yarin.springproject.projectspring.job.JobDTO(j.id, j.title, j.salary, j.location, "
+            + "c.id, c.name, r.id, r.name, r.email) "
+            + "from Job j left join j.company c left join j.recruiter r where j.id in :ids")
+    List<JobDTO> findInfoByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Reads the versions of a job, of its company and of its recruiter, to build the ETag of the job.
+     *
+     * @param id the ID of the job
+     * @return the versions, or empty if the job does not exist
+     */
+    @Query("select j.id as id, j.version as version, c.version as companyVersion, r.version as recruiterVersion "
+            + "from Job j left join j.company c left join j.recruiter r where j.id = :id")
+    Optional<JobVersionView> findVersionsById(@Param("id") Long id);
+
+    /**
+     * Reads the JobDTO of a single job, as {@link #findInfoByIdIn(Collection)} does.
+     *
+     * @param id the ID of the job
+     * @return the JobDTO, or empty if the job does not exist
+     */
+    @Query("select new com.yarin.springproject.projectspring.job.JobDTO(j.id, j.title, j.salary, j.location, "
+            + "c.id, c.name, r.id, r.name, r.email) "
+            + "from Job j left join j.company c left join j.recruiter r where j.id = :id")
+    Optional<JobDTO> findInfoById(@Param("id") Long id);
+
+    /**
+     * Retrieves the facet fields of the jobs whose ID is greater than the given cursor, in ascending ID order.
+     * Used to build the facet index in batches, reading the company name with a join instead of loading the company.
+     *
+     * @param id       the cursor, the ID of the last job of the previous batch
+     * @param pageable the batch size (its page number is expected to be 0)
+     * @return a list of at most pageable.getPageSize() job facet views
+     */
+    @Query("select j.id as id, j.location as location, c.name as company, j.salary as salary "
+            + "from Job j left join j.company c where j.id > :id order by j.id")
+    List<JobFacetView> findFacetsByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Retrieves the facet fields of the given jobs, to update the facet index after a bulk update.
+     *
+     * @param ids the IDs of the jobs
+     * @return the job facet views of the jobs that exist, in no particular order
+     */
+    @Query("select j.id as id, j.location as location, c.name as company, j.salary as salary "
+            + "from Job j left join j.company c where j.id in :ids")
+    List<JobFacetView> findFacetsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Retrieves the IDs of the jobs within the salary range whose ID is greater than the given cursor, in ascending ID order.
+     * A null bound leaves that side of the range open; with both bounds null, jobs without a salary are included too.
+     *
+     * @param id        the cursor, the ID of the last job of the previous page
+     * @param minSalary the lowest salary, in thousands, or null
+     * @param maxSalary the highest salary, in thousands, or null
+     * @param pageable  the page size (its page number is expected to be 0)
+     * @return a list of at most pageable.getPageSize() job IDs
+     */
+    @Query("select j.id from Job j where j.id > :id "
+            + "and (:minSalary is null or j.salaryThousands >= :minSalary) "
+            + "and (:maxSalary is null or j.salaryThousands <= :maxSalary) order by j.id")
+    List<Long> findIdsAfter(@Param("id") Long id, @Param("minSalary") Integer minSalary,
+                            @Param("maxSalary") Integer maxSalary, Pageable pageable);
+
+    /**
+     * Retrieves the IDs of the jobs within the salary range whose ID is less than the given cursor, in descending ID order.
+     *
+     * @see #findIdsAfter(Long, Integer, Integer, Pageable)
+     */
+    @Query("select j.id from Job j where j.id < :id "
+            + "and (:minSalary is null or j.salaryThousands >= :minSalary) "
+            + "and (:maxSalary is null or j.salaryThousands <= :maxSalary) order by j.id desc")
+    List<Long> findIdsBefore(@Param("id") Long id, @Param("minSalary") Integer minSalary,
+                             @Param("maxSalary") Integer maxSalary, Pageable pageable);
+
+    /**
+     * Retrieves the IDs of the jobs within the salary range that come after the given (salary, ID) position,
+     * in ascending salary then ID order. Jobs without a salary are left out.
+     * Served by the (salary_thousands, id) index, so a page costs the same wherever it starts.
+     *
+     * @param salary    the salary, in thousands, of the last job of the previous page
+     * @param id        the ID of the last job of the previous page
+     * @param minSalary the lowest salary, in thousands, or null
+     * @param maxSalary the highest salary, in thousands, or null
+     * @param pageable  the page size (its page number is expected to be 0)
+     * @return a list of at most pageable.getPageSize() job IDs
+     */
+    @Query("select j.id from Job j where j.salaryThousands is not null "
+            + "and (j.salaryThousands > :salary or (j.salaryThousands = :salary and j.id > :id)) "
+            + "and (:minSalary is null or j.salaryThousands >= :minSalary) "
+            + "and (:maxSalary is null or j.salaryThousands <= :maxSalary) "
+            + "order by j.salaryThousands, j.id")
+    List<Long> findIdsBySalaryAfter(@Param("salary") Integer salary, @Param("id") Long id,
+                                    @Param("minSalary") Integer minSalary, @Param("maxSalary") Integer maxSalary,
+                                    Pageable pageable);
+
+    /**
+     * Retrieves the IDs of the jobs within the salary range that come before the given (salary, ID) position,
+     * in descending salary then ID order. Jobs without a salary are left out.
+     *
+     * @see #findIdsBySalaryAfter(Integer, Long, Integer, Integer, Pageable)
+     */
+    @Query("select j.id from Job j where j.salaryThousands is not null "
+            + "and (j.salaryThousands < :salary or (j.salaryThousands = :salary and j.id < :id)) "
+            + "and (:minSalary is null or j.salaryThousands >= :minSalary) "
+            + "and (:maxSalary is null or j.salaryThousands <= :maxSalary) "
+            + "order by j.salaryThousands desc, j.id desc")
+    List<Long> findIdsBySalaryBefore(@Param("salary") Integer salary, @Param("id") Long id,
+                                     @Param("minSalary") Integer minSalary, @Param("maxSalary") Integer maxSalary,
+                                     Pageable pageable);
+
+    /**
+     * Retrieves the salary, in thousands, of a job.
+     *
+     * @param id the ID of the job
+     * @return an Optional containing the salary, or an empty Optional if the job does not exist or has no salary
+     */
+    @Query("select j.salaryThousands from Job j where j.id = :id")
+    Optional<Integer> findSalaryThousandsById(@Param("id") Long id);
+
+    /**
+     * Fills the numeric salary column of the jobs that have a 'numK' salary but no numeric salary yet,
+     * such as rows written before the column existed or by a bulk load that bypassed the entity.
+     *
+     * @return the number of updated jobs
+     */
+    @Modifying
+    @Transactional
+    @Query("update Job j set j.salaryThousands = cast(substring(j.salary, 1, length(j.salary) - 1) as Integer) "
+            + "where j.salaryThousands is null and j.salary like '%K'")
+    int backfillSalaryThousands();
+
+    /**
+     * Retrieves the IDs of the jobs of a recruiter.
+     *
+     * @param recruiterId the ID of the recruiter
+     * @return the IDs of the jobs, in no particular order
+     */
+    @Query("select j.id from Job j where j.recruiter.id = :recruiterId")
+    List<Long> findIdsByRecruiterId(@Param("recruiterId") Long recruiterId);
+
+    /**
+     * Deletes the jobs of a recruiter with a single statement, without loading them.
+     * Must be called inside a transaction.
+     *
+     * @param recruiterId the ID of the recruiter
+     * @return the number of deleted jobs
+     */
+    @Modifying
+    @Query("delete from Job j where j.recruiter.id = :recruiterId")
+    int deleteInBulkByRecruiterId(@Param("recruiterId") Long recruiterId);
+
+    /**
+     * The JDBC fetch size used by {@link #streamAllWithCompanyAndRecruiter()}.
+     */
+    int EXPORT_FETCH_SIZE = 500;
+
+    /**
+     * Streams every job together with its company and recruiter, ordered by ID.
+     * The rows are read from a scrollable result with the given JDBC fetch size instead of being loaded into a list,
+     * so the stream has to be consumed inside a transaction and closed afterwards.
+     *
+     * @return a stream of all the jobs
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select j from Job j left join fetch j.company left join fetch j.recruiter order by j.id")
+    Stream<Job> streamAllWithCompanyAndRecruiter();
 }
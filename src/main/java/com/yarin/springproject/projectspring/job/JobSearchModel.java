@@ -0,0 +1,51 @@
+package com.yarin.springproject.projectspring.job;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+
+import java.util.Map;
+
+/**
+ * The response of the faceted job search: a page of JobDTOs like the other job collections,
+ * along with the total number of matches and the number of matches per facet value.
+ */
+public class JobSearchModel extends CollectionModel<EntityModel<JobDTO>> {
+
+    private final int total;
+
+    private final Map<String, Map<String, Integer>> facets;
+
+    /**
+     * Constructs a JobSearchModel from an assembled page of jobs.
+     *
+     * @param jobs   the assembled page of jobs, along with its links
+     * @param total  the total number of jobs matching the search
+     * @param facets facet name -> (facet value -> number of matches)
+     */
+    public JobSearchModel(CollectionModel<EntityModel<JobDTO>> jobs, int total, Map<String, Map<String, Integer>> facets) {
+        super(jobs.getContent(), jobs.getLinks(), null);
+        this.total = total;
+        this.facets = facets;
+    }
+
+    /**
+     * Returns the total number of jobs matching the search, over all the pages.
+     *
+     * @return the total number of matches
+     */
+    @JsonProperty("total")
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns the number of matches per facet value, for example the number of matching jobs per location.
+     *
+     * @return facet name -> (facet value -> number of matches)
+     */
+    @JsonProperty("facets")
+    public Map<String, Map<String, Integer>> getFacets() {
+        return facets;
+    }
+}
@@ -0,0 +1,18 @@
+package com.yarin.springproject.projectspring.job;
+
+/**
+ * A closed projection of a Job holding only its ID and title.
+ * Used to build the title search index without loading the company and recruiter of every job.
+ */
+public interface JobTitleView {
+
+    /**
+     * @return the ID of the job
+     */
+    Long getId();
+
+    /**
+     * @return the title of the job
+     */
+    String getTitle();
+}
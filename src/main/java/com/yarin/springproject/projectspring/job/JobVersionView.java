@@ -0,0 +1,37 @@
+package com.yarin.springproject.projectspring.job;
+
+/**
+ * A closed projection of the versions of a job and of the company and recruiter shown with it.
+ * Used to answer conditional requests without loading the job.
+ */
+public interface JobVersionView {
+
+    /**
+     * @return the ID of the job
+     */
+    Long getId();
+
+    /**
+     * @return the version of the job
+     */
+    Long getVersion();
+
+    /**
+     * @return the version of the company of the job, or null if it has none
+     */
+    Long getCompanyVersion();
+
+    /**
+     * @return the version of the recruiter of the job, or null if it has none
+     */
+    Long getRecruiterVersion();
+
+    /**
+     * Builds the strong ETag of the job, which changes whenever the job, its company or its recruiter is updated.
+     *
+     * @return the quoted ETag
+     */
+    default String getETag() {
+        return "\"job-" + getId() + "-" + getVersion() + "-" + getCompanyVersion() + "-" + getRecruiterVersion() + "\"";
+    }
+}
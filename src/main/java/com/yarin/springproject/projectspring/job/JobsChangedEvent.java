@@ -0,0 +1,46 @@
+package com.yarin.springproject.projectspring.job;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An application event published after jobs were saved to or deleted from the database.
+ * Components that keep derived state about jobs (such as the search indexes) listen to it to stay in sync.
+ *
+ * @param saved      the jobs that were created or updated, as they were saved
+ * @param deletedIds the IDs of the jobs that were deleted
+ * @param updatedIds the IDs of the jobs whose salary or location was set by a bulk update, without loading them;
+ *                   the components that keep these fields read them again from the database
+ */
+public record JobsChangedEvent(Collection<Job> saved, Collection<Long> deletedIds, Collection<Long> updatedIds) {
+
+    /**
+     * Creates an event for jobs that were created or updated.
+     *
+     * @param saved the saved jobs
+     * @return the event
+     */
+    public static JobsChangedEvent saved(Collection<Job> saved) {
+        return new JobsChangedEvent(saved, List.of(), List.of());
+    }
+
+    /**
+     * Creates an event for jobs that were deleted.
+     *
+     * @param deletedIds the IDs of the deleted jobs
+     * @return the event
+     */
+    public static JobsChangedEvent deleted(Collection<Long> deletedIds) {
+        return new JobsChangedEvent(List.of(), deletedIds, List.of());
+    }
+
+    /**
+     * Creates an event for jobs that were changed by a bulk update, which only sets their salary or location.
+     *
+     * @param updatedIds the IDs of the updated jobs
+     * @return the event
+     */
+    public static JobsChangedEvent updated(Collection<Long> updatedIds) {
+        return new JobsChangedEvent(List.of(), List.of(), updatedIds);
+    }
+}
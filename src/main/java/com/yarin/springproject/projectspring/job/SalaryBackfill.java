@@ -0,0 +1,38 @@
+package com.yarin.springproject.projectspring.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the numeric salary column of existing jobs when the application starts.
+ * It runs after the database seeders, and only touches jobs whose numeric salary is still missing.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class SalaryBackfill implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(SalaryBackfill.class);
+
+    private final JobRepo jobRepo;
+
+    /**
+     * Constructs a SalaryBackfill.
+     *
+     * @param jobRepo the repository of the jobs to backfill
+     */
+    public SalaryBackfill(JobRepo jobRepo) {
+        this.jobRepo = jobRepo;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int updated = jobRepo.backfillSalaryThousands();
+        if (updated > 0) {
+            logger.info("Backfilled the numeric salary of {} jobs", updated);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.yarin.springproject.projectspring.job.Job;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 import jakarta.validation.constraints.Email;
 
 import java.util.*;
@@ -17,20 +18,32 @@ import java.util.*;
  * boilerplate code. The @Entity annotation specifies that instances of this class should be persisted in a database,
  * and a table will be generated for this class in the database. The @Data annotation is provided by Lombok and automatically
  * generates boilerplate code for getters, setters, toString, equals, and hashCode methods. The @NoArgsConstructor annotation
- * generates a no-args constructor using Lombok.
+ * generates a no-args constructor using Lombok. The @DynamicUpdate annotation makes the updates of a recruiter only
+ * write the columns that changed, and the version.
  */
 @Data
 @Entity
+@DynamicUpdate
 @NoArgsConstructor
 public class Recruiter {
 
     /**
      * The primary key of the recruiter table is represented by the 'id' field.
+     * Its values are allocated from the recruiter_seq sequence in blocks of 50.
      */
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recruiter_seq")
+    @SequenceGenerator(name = "recruiter_seq", sequenceName = "recruiter_seq", allocationSize = 50)
     private Long id;
 
+    /**
+     * The version of the recruiter, incremented by every update.
+     * Used for optimistic locking and to build the ETag of the recruiter.
+     */
+    @Version
+    @JsonIgnore
+    private Long version;
+
     /**
      * The name of the recruiter.
      */
@@ -44,12 +57,14 @@ public class Recruiter {
 
     /**
      * The list of jobs associated with the recruiter.
+     * The jobs are not removed in cascade, which would load and delete them one by one: a recruiter is deleted
+     * together with its jobs by {@link com.yarin.springproject.projectspring.service.TalentService#deleteRecruiter(Long)}.
      *
      * @JsonIgnore annotation is used to indicate that this field should be ignored when serializing the Recruiter object
      * into JSON format.
      */
     @JsonIgnore
-    @OneToMany(mappedBy = "recruiter", cascade = CascadeType.REMOVE)
+    @OneToMany(mappedBy = "recruiter")
     private List<Job> jobs = new ArrayList<>();
 
     /**
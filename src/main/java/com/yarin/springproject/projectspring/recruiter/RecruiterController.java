@@ -1,25 +1,35 @@
 package com.yarin.springproject.projectspring.recruiter;
 
-import com.yarin.springproject.projectspring.company.Company;
+import com.yarin.springproject.projectspring.CollectionVersions;
+import com.yarin.springproject.projectspring.ConditionalGet;
+import com.yarin.springproject.projectspring.ConditionalUpdate;
+import com.yarin.springproject.projectspring.LinkTemplate;
 import com.yarin.springproject.projectspring.exception.RecruiterNotFoundException;
+import com.yarin.springproject.projectspring.job.JobsChangedEvent;
 import com.yarin.springproject.projectspring.randomuser.RandomUser;
+import com.yarin.springproject.projectspring.search.NameIndex;
+import com.yarin.springproject.projectspring.service.MergePatchService;
 import com.yarin.springproject.projectspring.service.RandomUserAPIService;
+import com.yarin.springproject.projectspring.service.RandomUserBuffer;
 import com.yarin.springproject.projectspring.service.TalentService;
+import io.micrometer.core.annotation.Timed;
 import jakarta.validation.Valid;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -34,11 +44,18 @@ import java.util.concurrent.CompletableFuture;
  * in JSON format.
  */
 @RestController
+@Timed(value = "controller.invocations", histogram = true)
 public class RecruiterController {
 
     private final TalentService talentService;
     private final RecruiterEntityAssembler recruiterEntityAssembler;
     private final RecruiterDtoAssembler recruiterDtoAssembler;
+    private final NameIndex nameIndex;
+    private final CollectionVersions collectionVersions;
+    private final RandomUserAPIService randomUserAPIService;
+    private final RandomUserBuffer randomUserBuffer;
+    private final MergePatchService mergePatchService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Constructs a new RecruiterController with the given dependencies.
@@ -46,12 +63,27 @@ public class RecruiterController {
      * @param talentService              the TalentService used for managing recruiter-related operations
      * @param recruiterEntityAssembler   the RecruiterEntityAssembler used for converting Recruiter entities to DTOs
      * @param recruiterDtoAssembler      the RecruiterDtoAssembler used for converting Recruiter DTOs to entities
+     * @param nameIndex                  the NameIndex used for resolving partial company names
+     * @param collectionVersions         the versions used as the ETags of the recruiter collections
+     * @param randomUserAPIService       fetches the random users the random recruiters are made of
+     * @param randomUserBuffer           holds random users fetched ahead of time, for single random recruiters
+     * @param mergePatchService          applies the merge patches of PATCH /recruiters/{id}
+     * @param eventPublisher             publishes change events after writes, to keep the search indexes in sync
      */
     public RecruiterController(TalentService talentService, RecruiterEntityAssembler recruiterEntityAssembler,
-                               RecruiterDtoAssembler recruiterDtoAssembler) {
+                               RecruiterDtoAssembler recruiterDtoAssembler, NameIndex nameIndex,
+                               CollectionVersions collectionVersions, RandomUserAPIService randomUserAPIService,
+                               RandomUserBuffer randomUserBuffer, MergePatchService mergePatchService,
+                               ApplicationEventPublisher eventPublisher) {
         this.talentService = talentService;
         this.recruiterEntityAssembler = recruiterEntityAssembler;
         this.recruiterDtoAssembler = recruiterDtoAssembler;
+        this.nameIndex = nameIndex;
+        this.collectionVersions = collectionVersions;
+        this.randomUserAPIService = randomUserAPIService;
+        this.randomUserBuffer = randomUserBuffer;
+        this.mergePatchService = mergePatchService;
+        this.eventPublisher = eventPublisher;
     }
     /**
      * Retrieves all recruiters and returns them as a collection of EntityModel objects.
@@ -59,12 +91,14 @@ public class RecruiterController {
      * TalentService and converts them into EntityModel objects using the RecruiterEntityAssembler. The recruiters
      * are then wrapped in a CollectionModel and returned in the response body with a 200 OK status code.
      *
+     * @param request the current request, holding the If-None-Match header
      * @return a ResponseEntity containing a CollectionModel of EntityModel objects representing the recruiters,
      *         or an empty collection if no recruiters are found
      */
     @GetMapping("/recruiters") // getting response 200 altogether with all recruiters each together with link to itself and all.
-    public ResponseEntity<CollectionModel<EntityModel<Recruiter>>> allRecruiters(){
-        return ResponseEntity.ok(recruiterEntityAssembler.toCollectionModel(talentService.getRecruiterRepo().findAll()));
+    public ResponseEntity<CollectionModel<EntityModel<Recruiter>>> allRecruiters(WebRequest request){
+        return ConditionalGet.of(request, collectionVersions.recruitersETag(),
+                () -> recruiterEntityAssembler.toCollectionModel(talentService.getRecruiterRepo().findAll()));
     }
 
     /**
@@ -75,12 +109,13 @@ public class RecruiterController {
      * RecruiterDtoAssembler. The recruiter information is then returned in the response body as a CollectionModel of
      * EntityModel objects with a 200 OK status code.
      *
+     * @param request the current request, holding the If-None-Match header
      * @return a ResponseEntity containing a CollectionModel of EntityModel objects representing the RecruiterDTOs,
      *         or an empty collection if no recruiters are found
      */
     @GetMapping("/recruiters/info") // same as /recruiters but it's exposing recruiterDTOs and not Recruiters, you can see the difference
-    public ResponseEntity<CollectionModel<EntityModel<RecruiterDTO>>> allRecruiterInfo(){
-        return ResponseEntity.ok(recruiterDtoAssembler.toCollectionModel(
+    public ResponseEntity<CollectionModel<EntityModel<RecruiterDTO>>> allRecruiterInfo(WebRequest request){
+        return ConditionalGet.of(request, collectionVersions.recruitersETag(), () -> recruiterDtoAssembler.toCollectionModel(
                 StreamSupport.stream(talentService.getRecruiterRepo().findAll().spliterator(), false)
                         .map(RecruiterDTO::new).collect(Collectors.toList())));
     }
@@ -93,18 +128,26 @@ public class RecruiterController {
      * it into a RecruiterDTO object, and wraps it in an EntityModel using the RecruiterDtoAssembler. The recruiter
      * information is then returned in the response body as an EntityModel with a 200 OK status code.
      *
+     * The response carries an ETag built from the version of the recruiter, which changes with its companies too,
+     * and the version of the job collection, and a request whose
+     * If-None-Match matches it gets a 304 Not Modified without the recruiter being loaded.
+     *
      * @param id the ID of the recruiter to retrieve
+     * @param request the current request, holding the If-None-Match header
      * @return a ResponseEntity containing an EntityModel representing the RecruiterDTO, or a 404 Not Found response
      *         if no recruiter is found with the provided ID
      * @throws RecruiterNotFoundException if no recruiter is found with the provided ID
      */
     @GetMapping("/recruiters/{id}/info") // same as above just for specific recruiter
-    public ResponseEntity<EntityModel<RecruiterDTO>> singleRecruiterInfo(@PathVariable long id) {
-        return talentService.getRecruiterRepo().findById(id)
+    public ResponseEntity<EntityModel<RecruiterDTO>> singleRecruiterInfo(@PathVariable long id, WebRequest request) {
+        String jobsETag = collectionVersions.jobsETag(); // read first, so that the ETag is never newer than the body
+        String eTag = talentService.getRecruiterRepo().findVersionsById(id)
+                .map(versions -> versions.getETag(jobsETag))
+                .orElseThrow(() -> new RecruiterNotFoundException("Recruiter not found with id: " + id)); // creating an formatted error message nicer than we had
+        return ConditionalGet.of(request, eTag, () -> talentService.getRecruiterRepo().findById(id)
                 .map(RecruiterDTO::new)
                 .map(recruiterDtoAssembler::toModel)
-                .map(ResponseEntity::ok)
-                .orElseThrow(() -> new RecruiterNotFoundException("Recruiter not found with id: " + id)); // creating an formatted error message nicer than we had
+                .orElseThrow(() -> new RecruiterNotFoundException("Recruiter not found with id: " + id)));
     }
 
 
@@ -118,18 +161,25 @@ public class RecruiterController {
      * in the response body as a ResponseEntity with a 200 OK status code.
      *
      * @param name the name of the company to retrieve recruiters for
+     * @param request the current request, holding the If-None-Match header
      * @return a ResponseEntity containing a CollectionModel of EntityModels representing the RecruiterDTOs
      */
     @GetMapping("/recruiters/bycompany/{name}")
-    public ResponseEntity<CollectionModel<EntityModel<RecruiterDTO>>> recruitersByCompany(@PathVariable String name) {
-        List<Recruiter> recruiters = talentService.getRecruiterRepo().findByCompaniesNameContaining(name);
-        List<RecruiterDTO> recruiterDTOs = recruiters.stream() // creates DTOs of the list we retrieved from the repo
-                .map(RecruiterDTO::new)
-                .collect(Collectors.toList());
-
-        // wrap it all in Collection Model
-        CollectionModel<EntityModel<RecruiterDTO>> collectionModel = recruiterDtoAssembler.toCollectionModel(recruiterDTOs);
-        return ResponseEntity.ok(collectionModel); // returns the wrapped CollectionModel inside ResponseEntity.
+    public ResponseEntity<CollectionModel<EntityModel<RecruiterDTO>>> recruitersByCompany(@PathVariable String name,
+                                                                                          WebRequest request) {
+        return ConditionalGet.of(request, collectionVersions.recruitersETag(), () -> {
+            // resolve the partial company name with the in-memory name index, then load only the recruiters of those companies
+            Set<Long> companyIds = nameIndex.companiesNamed(name);
+            List<Recruiter> recruiters = companyIds.isEmpty() ? List.of()
+                    : talentService.getRecruiterRepo().findDistinctByCompaniesIdIn(companyIds);
+            List<RecruiterDTO> recruiterDTOs = recruiters.stream() // creates DTOs of the list we retrieved from the repo
+                    .map(RecruiterDTO::new)
+                    .collect(Collectors.toList());
+
+            // wrap it all in Collection Model
+            CollectionModel<EntityModel<RecruiterDTO>> collectionModel = recruiterDtoAssembler.toCollectionModel(recruiterDTOs);
+            return collectionModel;
+        });
     }
 
     /**
@@ -154,13 +204,14 @@ public class RecruiterController {
 
     @PostMapping("/recruiters")
     public ResponseEntity<?> createRecruiter(@Valid @RequestBody Recruiter recruiter) {
-        if (talentService.getRecruiterRepo().findByEmail(recruiter.getEmail()).isPresent()) {
+        if (talentService.findRecruiterIdByEmail(recruiter.getEmail()).isPresent()) {
             String errorMessage = "Recruiter with email " + recruiter.getEmail() + " already exists.";
             return ResponseEntity.status(HttpStatus.CONFLICT).body(errorMessage);
         }
 
         // Save the recruiter
         Recruiter savedRecruiter = talentService.getRecruiterRepo().save(recruiter);
+        eventPublisher.publishEvent(RecruitersChangedEvent.saved(List.of(savedRecruiter)));
 
         // Build the URI for the newly created Recruiter resource
         URI location = ServletUriComponentsBuilder.fromCurrentRequest()
@@ -179,60 +230,77 @@ public class RecruiterController {
      * with an error message. Otherwise, the recruiter is saved using the TalentService, and a URI for the newly created
      * resource is built. The method returns a ResponseEntity with the appropriate HTTP status code, including the location
      * URI in the response header when the recruiter is successfully created.
+     * The random user is taken from the RandomUserBuffer, which fetches users ahead of time in the background, so the
+     * API is only called on the request thread when the buffer is empty.
      * Example request body: (empty)
-     * @return a ResponseEntity with an appropriate HTTP status code and location URI for the created resource, or a conflict
-     * response if a recruiter with the same email already exists
-     * @throws ExecutionException   if an execution error occurs while retrieving data from the external API
-     * @throws InterruptedException if the current thread is interrupted while waiting for the external API response
+     * @return a ResponseEntity with an appropriate HTTP status code and location URI for the created resource, or a
+     * conflict response if a recruiter with the same email already exists
      */
-  @PostMapping("/recruiters/randomUser")
-  public ResponseEntity<?> createRandomRecruiter() throws ExecutionException, InterruptedException {
-      RestTemplateBuilder restTemplateBuilder = new RestTemplateBuilder();
-
-      // Call the method on the instantiated RandomUserAPIService object
-
-      CompletableFuture<RandomUser> completableFutureRecruiter = null;
-      RandomUserAPIService randomUserAPIService = new RandomUserAPIService(restTemplateBuilder);
-      completableFutureRecruiter = randomUserAPIService.getRecruiters();
-
-      completableFutureRecruiter.join();
-
-      StringBuilder sbName = new StringBuilder();
-      sbName.append(completableFutureRecruiter.get().getName().getFirst());
-      sbName.append(" ");
-      sbName.append(completableFutureRecruiter.get().getName().getLast());
-      String recName = sbName.toString();
-      String recEmail = completableFutureRecruiter.get().getEmail();
-      Recruiter recruiter = new Recruiter(recName , recEmail);
-
-      sbName = null; // let the gc collect it maybe earlier, no more usage.
+    @PostMapping("/recruiters/randomUser")
+    public ResponseEntity<?> createRandomRecruiter() {
+        Recruiter recruiter = toRecruiter(randomUserBuffer.take());
+        if (talentService.findRecruiterIdByEmail(recruiter.getEmail()).isPresent()) {
+            String errorMessage = "Recruiter with email " + recruiter.getEmail() + " already exists.";
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorMessage);
+        }
 
-      System.out.println(recruiter);
+        // Save the recruiter
+        Recruiter savedRecruiter = talentService.getRecruiterRepo().save(recruiter);
+        eventPublisher.publishEvent(RecruitersChangedEvent.saved(List.of(savedRecruiter)));
 
-      if (talentService.getRecruiterRepo().findByEmail(recruiter.getEmail()).isPresent()) {
-          String errorMessage = "Recruiter with email " + recruiter.getEmail() + " already exists.";
-          return ResponseEntity.status(HttpStatus.CONFLICT).body(errorMessage);
-      }
+        // Build the URI for the created resource
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replacePath("/recruiters/{id}/info")
+                .buildAndExpand(savedRecruiter.getId())
+                .toUri();
 
-      // Save the recruiter
-      Recruiter savedRecruiter = talentService.getRecruiterRepo().save(recruiter);
+        // Return a ResponseEntity with the created Recruiter resource and an appropriate HTTP status
+        return ResponseEntity.created(location).build();
+    }
 
-      // Build the URI for the newly created Recruiter resource
-      URI location = ServletUriComponentsBuilder.fromCurrentRequest()
-              .replacePath("/recruiters/{id}/info")
-              .buildAndExpand(savedRecruiter.getId())
-              .toUri();
+    /**
+     * Creates many recruiters with random names and emails obtained from an external API.
+     * This method handles HTTP POST requests to "/recruiters/randomUser?count=N". The N users are fetched with a single
+     * call to the API, the users whose email already belongs to a recruiter (or to another user of the batch) are
+     * skipped, and the others are saved together.
+     * Example request body: (empty)
+     *
+     * @param count the number of random users to fetch, from 1 to {@value RandomUserAPIService#MAX_RESULTS}
+     * @return a future of a ResponseEntity with a 201 Created status and the created recruiters, which may be fewer
+     * than requested
+     * @throws ResponseStatusException with a 400 status if the count is out of range
+     */
+    @PostMapping(value = "/recruiters/randomUser", params = "count")
+    public CompletableFuture<ResponseEntity<CollectionModel<EntityModel<RecruiterDTO>>>> createRandomRecruiters(
+            @RequestParam int count) {
+        if (count < 1 || count > RandomUserAPIService.MAX_RESULTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "count must be between 1 and " + RandomUserAPIService.MAX_RESULTS);
+        }
+        // the links are built from the request, which is not available on the thread completing the future
+        String baseUri = LinkTemplate.baseUri();
+
+        return randomUserAPIService.getRecruiters(count).thenApply(randomUsers -> {
+            List<Recruiter> saved = talentService.saveRecruitersWithNewEmails(
+                    randomUsers.stream().map(RecruiterController::toRecruiter).toList());
+            eventPublisher.publishEvent(RecruitersChangedEvent.saved(saved));
+            return ResponseEntity.status(HttpStatus.CREATED).body(recruiterDtoAssembler.toCollectionModel(
+                    saved.stream().map(RecruiterDTO::new).toList(), baseUri));
+        });
+    }
 
-      // Return a ResponseEntity with the created Recruiter resource and an appropriate HTTP status
-      return ResponseEntity.created(location).build();
-  }
+    private static Recruiter toRecruiter(RandomUser randomUser) {
+        return new Recruiter(randomUser.getName().getFirst() + " " + randomUser.getName().getLast(),
+                randomUser.getEmail());
+    }
 
     /**
      * Deletes a recruiter by their ID.
      *
      * This method handles HTTP DELETE requests to the "/recruiters/{id}" endpoint. It deletes the recruiter with the
      * specified ID and all jobs associated with that recruiter. If the recruiter does not exist, a RecruiterNotFoundException
-     * is thrown. The method removes the recruiter from the associated companies and deletes the recruiter from the repository.
+     * is thrown. The jobs, the links to the associated companies and the recruiter are deleted by one statement each, in
+     * one transaction, without loading them (see TalentService#deleteRecruiter).
      * It returns a ResponseEntity with no content and an appropriate HTTP status code.
      *
      * Example usage: DELETE /recruiters/1
@@ -244,21 +312,11 @@ public class RecruiterController {
      */
   @DeleteMapping("/recruiters/{id}")
   public ResponseEntity<Void> deleteRecruiter(@PathVariable Long id) {
-      // Check if the recruiter exists
-      Optional<Recruiter> recruiterOptional = talentService.getRecruiterRepo().findById(id);
-      if (recruiterOptional.isEmpty()) {
-          throw new RecruiterNotFoundException("Recruiter not found with ID: " + id);
-      }
-
-      Recruiter recruiter = recruiterOptional.get();
-
-      // Remove the recruiter from associated companies
-      for (Company company : recruiter.getCompanies()) {
-          company.getRecruiters().remove(recruiter);
-      }
-
-      // Delete the recruiter from the repository
-      talentService.getRecruiterRepo().deleteById(id);
+      // Delete the recruiter with its jobs and company links, remembering which jobs were deleted
+      Optional<String> email = talentService.getRecruiterRepo().findEmailById(id);
+      List<Long> jobIds = talentService.deleteRecruiter(id);
+      eventPublisher.publishEvent(JobsChangedEvent.deleted(jobIds));
+      eventPublisher.publishEvent(RecruitersChangedEvent.deleted(List.of(id), email.stream().toList()));
 
       // Return a ResponseEntity with no content and an appropriate HTTP status
       return ResponseEntity.noContent().build();
@@ -279,20 +337,31 @@ public class RecruiterController {
      *   "email": "MarioGomez@walla.com"
      * }
      * This updates the recruiter with ID 1, setting the name to "Mario Gomez" and email to "MarioGomez@walla.com".
+     * PATCH /recruiters/{id} changes the given fields only, without loading the recruiter.
      *
      * @param id      the ID of the recruiter to be updated
      * @param request a Map representing the request body containing the fields to be updated
+     * @param ifMatch the ETag of the recruiter as last read by the client, from GET /recruiters/{id}/info, or null to
+     *                update any version of the recruiter
      * @return a ResponseEntity with the updated recruiter and an appropriate HTTP status code
      * @throws RecruiterNotFoundException if the recruiter with the specified ID does not exist
+     * @throws ResponseStatusException with a 412 status if the recruiter was changed since the version in If-Match
      */
     @PutMapping("/recruiters/{id}")
-    public ResponseEntity<EntityModel<RecruiterDTO>> updateRecruiter(@PathVariable Long id,  @RequestBody Map<String, Object> request) {
+    public ResponseEntity<EntityModel<RecruiterDTO>> updateRecruiter(@PathVariable Long id,  @RequestBody Map<String, Object> request,
+                                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         // Retrieve the Job by id from the JobRepository
         Optional<Recruiter> optionalRecruiter = talentService.getRecruiterRepo().findById(id);
         if (optionalRecruiter.isEmpty()) {
             throw new RecruiterNotFoundException("id " + id);
         }
         Recruiter recruiter = optionalRecruiter.get();
+        String previousEmail = recruiter.getEmail();
+        Set<Long> expectedVersions = ConditionalUpdate.expectedVersions(ifMatch, "recruiter", id);
+        if (expectedVersions != null && !expectedVersions.contains(recruiter.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    "The recruiter " + id + " was changed since the version in If-Match");
+        }
 
         // Iterate through the fields in the request body
         for (Map.Entry<String, Object> entry : request.entrySet()) {
@@ -319,10 +388,47 @@ public class RecruiterController {
 
         // Save the updated Job to the JobRepository
         talentService.getRecruiterRepo().save(recruiter);
+        eventPublisher.publishEvent(RecruitersChangedEvent.updated(recruiter, previousEmail));
 
         // Return a ResponseEntity with the updated Job and an appropriate HTTP status
         return ResponseEntity.ok(recruiterDtoAssembler.toModel(new RecruiterDTO(recruiter)));
     }
 
+    /**
+     * Applies a JSON Merge Patch to a recruiter: only the name and the email given in the body are changed.
+     * The recruiter is updated with a single statement writing these columns and the version, without being loaded
+     * first.
+     *
+     * Example usage: PATCH /recruiters/1 with Content-Type: application/merge-patch+json,
+     * If-Match: "recruiter-1-0-jobs-lx2k3b9c-4"
+     * Request body: { "email": "MarioGomez@walla.com" }
+     *
+     * @param id      the ID of the recruiter to be updated
+     * @param patch   the fields to change and their new values
+     * @param ifMatch the ETag of the recruiter as last read by the client, from GET /recruiters/{id}/info or from a
+     *                previous patch, or null to update any version of the recruiter
+     * @return a ResponseEntity with the updated recruiter and its new ETag
+     * @throws RecruiterNotFoundException if the recruiter with the specified ID does not exist
+     * @throws ResponseStatusException with a 400 status if the patch is invalid, a 409 status if another recruiter
+     *         already has the patched email, as for POST /recruiters, or a 412 status if the recruiter was changed since
+     *         the version in If-Match
+     */
+    @PatchMapping(value = "/recruiters/{id}", consumes = MergePatchService.MEDIA_TYPE)
+    public ResponseEntity<EntityModel<RecruiterDTO>> patchRecruiter(@PathVariable long id, @RequestBody Map<String, Object> patch,
+                                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        // the previous email is only read when the patch changes it, to drop its cached ID
+        String previousEmail = patch != null && patch.get("email") != null
+                ? talentService.getRecruiterRepo().findEmailById(id).orElse(null)
+                : null;
+        Recruiter recruiter = mergePatchService.patchRecruiter(id, patch,
+                ConditionalUpdate.expectedVersions(ifMatch, "recruiter", id));
+        eventPublisher.publishEvent(RecruitersChangedEvent.updated(recruiter, previousEmail));
+        String jobsETag = collectionVersions.jobsETag();
+        String eTag = talentService.getRecruiterRepo().findVersionsById(id)
+                .map(versions -> versions.getETag(jobsETag))
+                .orElse(null);
+        return ResponseEntity.ok().eTag(eTag).body(recruiterDtoAssembler.toModel(new RecruiterDTO(recruiter)));
+    }
+
 
 }
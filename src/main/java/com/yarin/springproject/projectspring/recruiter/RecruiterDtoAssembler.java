@@ -1,11 +1,16 @@
 package com.yarin.springproject.projectspring.recruiter;
 
+import com.yarin.springproject.projectspring.LinkTemplate;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.server.SimpleRepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 /**
@@ -21,10 +26,22 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
  *
  * Note: This class is a Spring `@Component` and can be autowired where needed to assemble and add links to `RecruiterDTO`
  * resources.
+ *
+ * The paths of the links are resolved once, when the assembler is created, and a collection reads the base URI of the
+ * request once for all of its resources (see `LinkTemplate`).
  */
 @Component
+@Timed(value = "assembler.invocations", histogram = true)
 public class RecruiterDtoAssembler implements SimpleRepresentationModelAssembler<RecruiterDTO> {
 
+    /**
+     * The paths of /recruiters/{id}/info and /recruiters/info, resolved from the mappings of the RecruiterController.
+     */
+    private final LinkTemplate recruiterInfoTemplate = LinkTemplate.to(methodOn(RecruiterController.class)
+            .singleRecruiterInfo(0L, null));
+    private final LinkTemplate allRecruiterInfoTemplate = LinkTemplate.to(methodOn(RecruiterController.class)
+            .allRecruiterInfo(null));
+
     /**
      * Adds HATEOAS links to the provided `EntityModel` of a `RecruiterDTO`.
      *
@@ -35,8 +52,8 @@ public class RecruiterDtoAssembler implements SimpleRepresentationModelAssembler
      */
     @Override
     public void addLinks(EntityModel<RecruiterDTO> resource) {
-        resource.add(linkTo(methodOn(RecruiterController.class)
-                .singleRecruiterInfo(resource.getContent().getId())).withSelfRel());
+        resource.add(recruiterInfoTemplate.expand(LinkTemplate.baseUri(), resource.getContent().getId(),
+                IanaLinkRelations.SELF));
     }
 
     /**
@@ -49,6 +66,36 @@ public class RecruiterDtoAssembler implements SimpleRepresentationModelAssembler
      */
     @Override
     public void addLinks(CollectionModel<EntityModel<RecruiterDTO>> resources) {
-        resources.add(linkTo(methodOn(RecruiterController.class).allRecruiterInfo()).withSelfRel());
+        resources.add(allRecruiterInfoTemplate.toLink(LinkTemplate.baseUri(), IanaLinkRelations.SELF));
+    }
+
+    /**
+     * Converts `RecruiterDTO` objects into a `CollectionModel`, reading the base URI of the request once for all of
+     * their links.
+     *
+     * @param recruiters the `RecruiterDTO` objects
+     * @return the `CollectionModel` of `EntityModel` resources of `RecruiterDTO`
+     */
+    @Override
+    public CollectionModel<EntityModel<RecruiterDTO>> toCollectionModel(Iterable<? extends RecruiterDTO> recruiters) {
+        return toCollectionModel(recruiters, LinkTemplate.baseUri());
+    }
+
+    /**
+     * Converts `RecruiterDTO` objects into a `CollectionModel` whose links start with the given base URI.
+     * Used when the links are built outside of the thread of the request, which the base URI is read from.
+     *
+     * @param recruiters the `RecruiterDTO` objects
+     * @param baseUri    the base URI of the links, as returned by `LinkTemplate.baseUri()` on the request thread
+     * @return the `CollectionModel` of `EntityModel` resources of `RecruiterDTO`
+     */
+    public CollectionModel<EntityModel<RecruiterDTO>> toCollectionModel(Iterable<? extends RecruiterDTO> recruiters,
+                                                                        String baseUri) {
+        List<EntityModel<RecruiterDTO>> resources = new ArrayList<>();
+        for (RecruiterDTO recruiter : recruiters) {
+            resources.add(EntityModel.of(recruiter,
+                    recruiterInfoTemplate.expand(baseUri, recruiter.getId(), IanaLinkRelations.SELF)));
+        }
+        return CollectionModel.of(resources, allRecruiterInfoTemplate.toLink(baseUri, IanaLinkRelations.SELF));
     }
 }
@@ -1,6 +1,7 @@
 package com.yarin.springproject.projectspring.recruiter;
 
 import com.yarin.springproject.projectspring.SimpleIdentifiableRepresentationModelAssembler;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Component;
 
 /**
@@ -19,6 +20,7 @@ import org.springframework.stereotype.Component;
  * Note: This class is a Spring `@Component` and can be autowired where needed to assemble and add links to `Recruiter` resources.
  */
 @Component
+@Timed(value = "assembler.invocations", histogram = true)
 public class RecruiterEntityAssembler extends SimpleIdentifiableRepresentationModelAssembler<Recruiter> {
 
     /**
@@ -1,7 +1,13 @@
 package com.yarin.springproject.projectspring.recruiter;
 
+import com.yarin.springproject.projectspring.search.NameView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +33,14 @@ public interface RecruiterRepo extends JpaRepository<Recruiter, Long> {
      */
     Optional<Recruiter> findByEmail(String email);
 
+    /**
+     * Retrieves the recruiters having any of the given emails, in a single query.
+     *
+     * @param emails the emails of the recruiters to retrieve
+     * @return the recruiters found, recruiters whose email was not found are missing from the list
+     */
+    List<Recruiter> findByEmailIn(Collection<String> emails);
+
     /**
      * Retrieves a `Recruiter` entity by the specified name.
 
@@ -47,5 +61,53 @@ public interface RecruiterRepo extends JpaRepository<Recruiter, Long> {
      * @return a list of `Recruiter` entities matching the search criteria
      */
     List<Recruiter> findByCompaniesNameContaining(String name);
-}
 
+    /**
+     * Retrieves the `Recruiter` entities associated with any of the specified companies, each recruiter once.
+     *
+     * @param companyIds the IDs of the companies
+     * @return a list of `Recruiter` entities associated with the companies
+     */
+    List<Recruiter> findDistinctByCompaniesIdIn(Collection<Long> companyIds);
+
+    /**
+     * Retrieves the ID and name of the recruiters whose ID is greater than the given cursor, in ascending ID order.
+     * Used to build the name index in batches.
+     *
+     * @param id       the cursor, the ID of the last recruiter of the previous batch
+     * @param pageable the batch size (its page number is expected to be 0)
+     * @return a list of at most pageable.getPageSize() recruiter names
+     */
+    List<NameView> findNamesByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Reads the version of a recruiter, to build the ETag of the recruiter. The version also changes when the
+     * recruiter is linked to a company (see TalentService#linkRecruiterToCompany).
+     *
+     * @param id the ID of the recruiter
+     * @return the version, or empty if the recruiter does not exist
+     */
+    @Query("select r.id as id, r.version as version from Recruiter r where r.id = :id")
+    Optional<RecruiterVersionView> findVersionsById(@Param("id") Long id);
+
+    /**
+     * Reads the email of a recruiter without loading it, to drop its cached ID when the email changes or the recruiter
+     * is deleted (see TalentService#findRecruiterIdByEmail).
+     *
+     * @param id the ID of the recruiter
+     * @return the email, or empty if the recruiter does not exist
+     */
+    @Query("select r.email from Recruiter r where r.id = :id")
+    Optional<String> findEmailById(@Param("id") Long id);
+
+    /**
+     * Deletes a recruiter with a single statement, without loading it. Its jobs and its company links must be
+     * deleted first. Must be called inside a transaction.
+     *
+     * @param id the ID of the recruiter
+     * @return the number of deleted recruiters, 0 if the recruiter does not exist
+     */
+    @Modifying
+    @Query("delete from Recruiter r where r.id = :id")
+    int deleteInBulkById(@Param("id") Long id);
+}
@@ -0,0 +1,29 @@
+package com.yarin.springproject.projectspring.recruiter;
+
+/**
+ * A closed projection of the version of a recruiter.
+ * Used to answer conditional requests without loading the recruiter.
+ */
+public interface RecruiterVersionView {
+
+    /**
+     * @return the ID of the recruiter
+     */
+    Long getId();
+
+    /**
+     * @return the version of the recruiter, incremented by every update and by every new link to a company
+     */
+    Long getVersion();
+
+    /**
+     * Builds the strong ETag of the recruiter, which changes whenever the recruiter is updated or linked to a company,
+     * and whenever a job changes, since the representation of the recruiter lists its jobs.
+     *
+     * @param jobsETag the current ETag of the job collection, see CollectionVersions#jobsETag()
+     * @return the quoted ETag
+     */
+    default String getETag(String jobsETag) {
+        return "\"recruiter-" + getId() + "-" + getVersion() + "-" + jobsETag.replace("\"", "") + "\"";
+    }
+}
@@ -0,0 +1,50 @@
+package com.yarin.springproject.projectspring.recruiter;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An application event published after recruiters were saved to or deleted from the database.
+ * Components that keep derived state about recruiters (such as the name index) listen to it to stay in sync.
+ *
+ * @param saved          the recruiters that were created or updated, as they were saved
+ * @param deletedIds     the IDs of the recruiters that were deleted
+ * @param previousEmails the emails that no longer belong to a recruiter: the emails the updated recruiters had before
+ *                       the update, when it changed them, and the emails of the deleted recruiters
+ */
+public record RecruitersChangedEvent(Collection<Recruiter> saved, Collection<Long> deletedIds,
+                                     Collection<String> previousEmails) {
+
+    /**
+     * Creates an event for recruiters that were created, or updated without changing their email.
+     *
+     * @param saved the saved recruiters
+     * @return the event
+     */
+    public static RecruitersChangedEvent saved(Collection<Recruiter> saved) {
+        return new RecruitersChangedEvent(saved, List.of(), List.of());
+    }
+
+    /**
+     * Creates an event for a recruiter that was updated, and whose email may have changed.
+     *
+     * @param recruiter     the updated recruiter
+     * @param previousEmail the email of the recruiter before the update, or null if it is not known to have changed
+     * @return the event
+     */
+    public static RecruitersChangedEvent updated(Recruiter recruiter, String previousEmail) {
+        return new RecruitersChangedEvent(List.of(recruiter), List.of(),
+                previousEmail == null || previousEmail.equals(recruiter.getEmail()) ? List.of() : List.of(previousEmail));
+    }
+
+    /**
+     * Creates an event for recruiters that were deleted.
+     *
+     * @param deletedIds the IDs of the deleted recruiters
+     * @param emails     the emails of the deleted recruiters
+     * @return the event
+     */
+    public static RecruitersChangedEvent deleted(Collection<Long> deletedIds, Collection<String> emails) {
+        return new RecruitersChangedEvent(List.of(), deletedIds, emails);
+    }
+}
@@ -0,0 +1,405 @@
+package com.yarin.springproject.projectspring.search;
+
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.job.JobFacetView;
+import com.yarin.springproject.projectspring.job.JobRepo;
+import com.yarin.springproject.projectspring.job.JobsChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory index of the location, company and salary band of every job, answering filtered searches
+ * together with the number of matches per facet value.
+ *
+ * <p>
+ * Every facet value (such as the location "Haifa") maps to a bitset holding a bit for the ID of each job having
+ * that value. Filters are unions (values of the same facet) and intersections (different facets) of those bitsets,
+ * and the count of a facet value is the cardinality of its bitset intersected with the matches, so a search never
+ * runs a GROUP BY. Counts are disjunctive: the counts of a facet ignore the filter on that same facet, so a client
+ * can show how many matches picking another value of the facet would give. The salaries are kept the same way, sorted,
+ * so a salary range is the union of the bitsets of the salaries in the range.
+ * </p>
+ *
+ * <p>
+ * The index is built from the database once the application is ready and kept in sync through
+ * {@link JobsChangedEvent}s. Job IDs must fit in an int, which they do for any catalog an in-memory index can hold.
+ * </p>
+ */
+@Component
+public class JobFacetIndex {
+    private static final Logger logger = LoggerFactory.getLogger(JobFacetIndex.class);
+
+    /**
+     * The facet names, as used in the search parameters and in the facet counts.
+     */
+    public static final String LOCATION = "location";
+    public static final String COMPANY = "company";
+    public static final String SALARY_BAND = "salaryBand";
+
+    /**
+     * The width of a salary band, in thousands.
+     */
+    private static final int BAND_WIDTH = 10;
+
+    /**
+     * The largest number of values returned per facet, the most frequent first.
+     */
+    private static final int MAX_FACET_VALUES = 20;
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    /**
+     * The facet values of one job.
+     */
+    private record Entry(String location, String company, Integer salaryThousands, String salaryBand) {
+    }
+
+    /**
+     * The filters of a search. A null or empty set means the facet is not filtered.
+     *
+     * @param ids         the IDs the matches are restricted to (for example the title matches), or null
+     * @param locations   the accepted locations
+     * @param companies   the accepted company names
+     * @param salaryBands the accepted salary bands, such as "10K-19K"
+     * @param minSalary   the lowest salary, in thousands, or null
+     * @param maxSalary   the highest salary, in thousands, or null
+     */
+    public record Filters(BitSet ids, Collection<String> locations, Collection<String> companies,
+                          Collection<String> salaryBands, Integer minSalary, Integer maxSalary) {
+    }
+
+    /**
+     * The result of a search.
+     *
+     * @param matches the IDs of the matching jobs
+     * @param facets  facet name -> (facet value -> number of matches), the most frequent values first
+     */
+    public record Result(BitSet matches, Map<String, Map<String, Integer>> facets) {
+
+        /**
+         * Lists the matching IDs greater than the cursor, in ascending order.
+         *
+         * @param cursor the cursor
+         * @param limit  the largest number of IDs to return
+         * @return the IDs
+         */
+        public List<Long> idsAfter(long cursor, int limit) {
+            List<Long> ids = new ArrayList<>(limit);
+            int from = cursor < 0 ? 0 : (int) Math.min(cursor, Integer.MAX_VALUE - 1) + 1;
+            for (int id = matches.nextSetBit(from); id >= 0 && ids.size() < limit; id = matches.nextSetBit(id + 1)) {
+                ids.add((long) id);
+            }
+            return ids;
+        }
+
+        /**
+         * Lists the matching IDs less than the cursor, in descending order.
+         *
+         * @param cursor the cursor
+         * @param limit  the largest number of IDs to return
+         * @return the IDs
+         */
+        public List<Long> idsBefore(long cursor, int limit) {
+            List<Long> ids = new ArrayList<>(limit);
+            if (cursor <= 0) {
+                return ids;
+            }
+            int from = (int) Math.min(cursor - 1, Integer.MAX_VALUE - 1);
+            for (int id = matches.previousSetBit(from); id >= 0 && ids.size() < limit; id = matches.previousSetBit(id - 1)) {
+                ids.add((long) id);
+            }
+            return ids;
+        }
+    }
+
+    private final JobRepo jobRepo;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final BitSet all = new BitSet();
+    private final Map<String, BitSet> byLocation = new HashMap<>();
+    private final Map<String, BitSet> byCompany = new HashMap<>();
+    private final Map<String, BitSet> bySalaryBand = new HashMap<>();
+    private final NavigableMap<Integer, BitSet> bySalary = new TreeMap<>();
+
+    /**
+     * Constructs the index, which stays empty until {@link #rebuild()} runs.
+     *
+     * @param jobRepo the repository the index is built from
+     */
+    public JobFacetIndex(JobRepo jobRepo) {
+        this.jobRepo = jobRepo;
+    }
+
+    /**
+     * Finds the salary band of a salary, in bands of {@value #BAND_WIDTH}K such as "10K-19K".
+     *
+     * @param salaryThousands the salary, in thousands
+     * @return the salary band, or null if the salary is missing
+     */
+    public static String salaryBand(Integer salaryThousands) {
+        if (salaryThousands == null) {
+            return null;
+        }
+        int low = salaryThousands / BAND_WIDTH * BAND_WIDTH;
+        return low + "K-" + (low + BAND_WIDTH - 1) + "K";
+    }
+
+    /**
+     * Rebuilds the whole index from the database, reading the facet fields in batches ordered by ID.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            all.clear();
+            byLocation.clear();
+            byCompany.clear();
+            bySalaryBand.clear();
+            bySalary.clear();
+            List<JobFacetView> batch = jobRepo.findFacetsByIdGreaterThan(Long.MIN_VALUE, PageRequest.ofSize(REBUILD_BATCH_SIZE));
+            while (!batch.isEmpty()) {
+                for (JobFacetView job : batch) {
+                    Integer salary = Job.parseSalaryThousands(job.getSalary());
+                    add(job.getId(), new Entry(job.getLocation(), job.getCompany(), salary, salaryBand(salary)));
+                }
+                batch = jobRepo.findFacetsByIdGreaterThan(batch.get(batch.size() - 1).getId(),
+                        PageRequest.ofSize(REBUILD_BATCH_SIZE));
+            }
+            logger.info("Indexed the facets of {} jobs", entries.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies saved, deleted and bulk updated jobs to the index. The facet fields of the bulk updated jobs are read
+     * again from the database, in batches, before the index is locked.
+     *
+     * @param event the event describing the changed jobs
+     */
+    @EventListener
+    public void onJobsChanged(JobsChangedEvent event) {
+        List<JobFacetView> updated = new ArrayList<>(event.updatedIds().size());
+        List<Long> ids = List.copyOf(event.updatedIds());
+        for (int from = 0; from < ids.size(); from += REBUILD_BATCH_SIZE) {
+            updated.addAll(jobRepo.findFacetsByIdIn(ids.subList(from, Math.min(from + REBUILD_BATCH_SIZE, ids.size()))));
+        }
+        lock.writeLock().lock();
+        try {
+            for (Long id : event.deletedIds()) {
+                remove(id);
+            }
+            for (Long id : event.updatedIds()) {
+                // a job deleted since the update is not read again, and stays out of the index
+                remove(id);
+            }
+            for (JobFacetView job : updated) {
+                Integer salary = Job.parseSalaryThousands(job.getSalary());
+                add(job.getId(), new Entry(job.getLocation(), job.getCompany(), salary, salaryBand(salary)));
+            }
+            for (Job job : event.saved()) {
+                remove(job.getId());
+                Integer salary = Job.parseSalaryThousands(job.getSalary());
+                add(job.getId(), new Entry(job.getLocation(),
+                        job.getCompany() == null ? null : job.getCompany().getName(),
+                        salary, salaryBand(salary)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the jobs matching the filters and counts the matches per facet value.
+     *
+     * @param filters the filters of the search
+     * @return the matching IDs and the facet counts
+     */
+    public Result search(Filters filters) {
+        lock.readLock().lock();
+        try {
+            BitSet base = (BitSet) all.clone();
+            if (filters.ids() != null) {
+                base.and(filters.ids());
+            }
+            if (filters.minSalary() != null || filters.maxSalary() != null) {
+                base.and(salaryRange(filters.minSalary(), filters.maxSalary()));
+            }
+            BitSet locations = union(byLocation, filters.locations());
+            BitSet companies = union(byCompany, filters.companies());
+            BitSet salaryBands = union(bySalaryBand, filters.salaryBands());
+
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            facets.put(LOCATION, count(byLocation, intersect(base, companies, salaryBands)));
+            facets.put(COMPANY, count(byCompany, intersect(base, locations, salaryBands)));
+            facets.put(SALARY_BAND, count(bySalaryBand, intersect(base, locations, companies)));
+            return new Result(intersect(base, locations, companies, salaryBands), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed jobs
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Unions the bitsets of the salaries in the range, bounds included. The jobs without a salary are left out.
+     * Must be called while holding the read lock.
+     */
+    private BitSet salaryRange(Integer min, Integer max) {
+        BitSet range = new BitSet();
+        if (min != null && max != null && min > max) {
+            return range;
+        }
+        NavigableMap<Integer, BitSet> salaries = bySalary;
+        if (min != null) {
+            salaries = salaries.tailMap(min, true);
+        }
+        if (max != null) {
+            salaries = salaries.headMap(max, true);
+        }
+        for (BitSet ids : salaries.values()) {
+            range.or(ids);
+        }
+        return range;
+    }
+
+    /**
+     * Unions the bitsets of the given values, or returns null when no value is given (the facet is not filtered).
+     */
+    private static BitSet union(Map<String, BitSet> facet, Collection<String> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        BitSet union = new BitSet();
+        for (String value : values) {
+            BitSet ids = facet.get(value);
+            if (ids != null) {
+                union.or(ids);
+            }
+        }
+        return union;
+    }
+
+    /**
+     * Intersects the base with every non-null filter, leaving the base untouched.
+     */
+    private static BitSet intersect(BitSet base, BitSet... filters) {
+        BitSet result = (BitSet) base.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the matches of every value of a facet, keeping the most frequent values.
+     * The intersections are counted without being built: the set bits of the sparser of the two bitsets are looked up
+     * in the other one.
+     */
+    private static Map<String, Integer> count(Map<String, BitSet> facet, BitSet matches) {
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+        int matchCount = matches.cardinality();
+        for (Map.Entry<String, BitSet> value : facet.entrySet()) {
+            BitSet ids = value.getValue();
+            int count = ids.cardinality() < matchCount ? countCommon(ids, matches) : countCommon(matches, ids);
+            if (count > 0) {
+                counts.add(Map.entry(value.getKey(), count));
+            }
+        }
+        counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Integer> top = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> count : counts.subList(0, Math.min(MAX_FACET_VALUES, counts.size()))) {
+            top.put(count.getKey(), count.getValue());
+        }
+        return top;
+    }
+
+    /**
+     * Counts the bits set in both bitsets, going through the set bits of the first one.
+     */
+    private static int countCommon(BitSet sparse, BitSet dense) {
+        int count = 0;
+        for (int bit = sparse.nextSetBit(0); bit >= 0; bit = sparse.nextSetBit(bit + 1)) {
+            if (dense.get(bit)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Must be called while holding the write lock.
+     */
+    private void add(Long id, Entry entry) {
+        int bit = Math.toIntExact(id);
+        entries.put(id, entry);
+        all.set(bit);
+        set(byLocation, entry.location(), bit);
+        set(byCompany, entry.company(), bit);
+        set(bySalaryBand, entry.salaryBand(), bit);
+        set(bySalary, entry.salaryThousands(), bit);
+    }
+
+    /**
+     * Must be called while holding the write lock.
+     */
+    private void remove(Long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        int bit = Math.toIntExact(id);
+        all.clear(bit);
+        clear(byLocation, entry.location(), bit);
+        clear(byCompany, entry.company(), bit);
+        clear(bySalaryBand, entry.salaryBand(), bit);
+        clear(bySalary, entry.salaryThousands(), bit);
+    }
+
+    private static <V> void set(Map<V, BitSet> facet, V value, int bit) {
+        if (value != null) {
+            facet.computeIfAbsent(value, v -> new BitSet()).set(bit);
+        }
+    }
+
+    private static <V> void clear(Map<V, BitSet> facet, V value, int bit) {
+        BitSet ids = value == null ? null : facet.get(value);
+        if (ids != null) {
+            ids.clear(bit);
+            if (ids.isEmpty()) {
+                facet.remove(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.yarin.springproject.projectspring.search;
+
+import com.yarin.springproject.projectspring.KeysetPage;
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.job.JobRepo;
+import com.yarin.springproject.projectspring.job.JobTitleView;
+import com.yarin.springproject.projectspring.job.JobsChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory inverted index over the titles of all jobs, ranking matches with Okapi BM25.
+ *
+ * <p>
+ * Titles are split into lower-case words. Each word maps to a posting list of the jobs containing it together with
+ * the number of times it occurs in their title. A query matches the jobs whose title contains every query word,
+ * where a query word also matches the words it is a prefix of ("dev" matches "developer"), so that searching by
+ * partial title keeps working. Exact word matches weigh more than prefix matches.
+ * </p>
+ *
+ * <p>
+ * The index is built from the database once the application is ready and kept in sync through
+ * {@link JobsChangedEvent}s, so a search only touches the posting lists of the query words and never the database.
+ * </p>
+ */
+@Component
+public class JobTitleIndex {
+    private static final Logger logger = LoggerFactory.getLogger(JobTitleIndex.class);
+
+    /**
+     * BM25 term frequency saturation.
+     */
+    private static final double K1 = 1.2;
+
+    /**
+     * BM25 document length normalization.
+     */
+    private static final double B = 0.75;
+
+    /**
+     * Weight of a word that only starts with the query word, relative to an exact match.
+     */
+    private static final double PREFIX_WEIGHT = 0.5;
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    /**
+     * Most relevant first, ties broken by ascending ID.
+     */
+    private static final Comparator<Map.Entry<Long, Double>> RANKING =
+            Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey());
+
+    private final JobRepo jobRepo;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Word -> (job ID -> number of occurrences of the word in the job title), sorted by word for prefix lookups.
+     */
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+
+    /**
+     * Job ID -> the words of its title, needed to remove the job from the posting lists.
+     */
+    private final Map<Long, String[]> documents = new HashMap<>();
+
+    private long totalLength;
+
+    /**
+     * Constructs the index, which stays empty until {@link #rebuild()} runs.
+     *
+     * @param jobRepo the repository the index is built from
+     */
+    public JobTitleIndex(JobRepo jobRepo) {
+        this.jobRepo = jobRepo;
+    }
+
+    /**
+     * Splits a title or a query into lower-case words.
+     *
+     * @param text the text to split
+     * @return the words of the text, possibly empty
+     */
+    static String[] tokenize(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Rebuilds the whole index from the database, reading the titles in batches ordered by ID.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+            List<JobTitleView> batch = jobRepo.findTitlesByIdGreaterThanOrderByIdAsc(Long.MIN_VALUE, PageRequest.ofSize(REBUILD_BATCH_SIZE));
+            while (!batch.isEmpty()) {
+                for (JobTitleView job : batch) {
+                    add(job.getId(), job.getTitle());
+                }
+                batch = jobRepo.findTitlesByIdGreaterThanOrderByIdAsc(batch.get(batch.size() - 1).getId(),
+                        PageRequest.ofSize(REBUILD_BATCH_SIZE));
+            }
+            logger.info("Indexed the titles of {} jobs", documents.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies saved and deleted jobs to the index. The jobs changed by a bulk update keep their title, so they are
+     * left as they are.
+     *
+     * @param event the event describing the changed jobs
+     */
+    @EventListener
+    public void onJobsChanged(JobsChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : event.deletedIds()) {
+                remove(id);
+            }
+            for (Job job : event.saved()) {
+                remove(job.getId());
+                add(job.getId(), job.getTitle());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds one page of the jobs whose title contains every word of the query (as a word or a word prefix).
+     *
+     * <p>
+     * Only the jobs up to the end of the requested page are ranked: they are selected with a heap holding at most that
+     * many jobs, so a broad query costs O(m log k) for m matches and k = (page + 1) * size, and not a sort of all the
+     * matches.
+     * </p>
+     *
+     * @param query the words to search for
+     * @param page  the requested page number, starting at 0, or null for the first page
+     * @param size  the requested page size, or null for {@link KeysetPage#DEFAULT_SIZE}
+     * @return the IDs of the matching jobs of the page, most relevant first, ties broken by ascending ID
+     */
+    public RankedPage<Long> search(String query, Integer page, Integer size) {
+        int limit = KeysetPage.clampSize(size);
+        int number = page == null ? 0 : Math.max(0, page);
+        Map<Long, Double> scores = scores(query);
+        long from = (long) number * limit;
+        if (from >= scores.size()) {
+            return RankedPage.of(List.of(), number, limit, scores.size());
+        }
+        int top = (int) Math.min(from + limit, scores.size());
+        // the worst of the kept jobs is at the head, and is replaced by any better job
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(top + 1, RANKING.reversed());
+        for (Map.Entry<Long, Double> score : scores.entrySet()) {
+            if (heap.size() < top) {
+                heap.add(score);
+            } else if (RANKING.compare(score, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(score);
+            }
+        }
+        Long[] ranked = new Long[heap.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = heap.poll().getKey();
+        }
+        return RankedPage.of(Arrays.asList(ranked), number, limit, scores.size());
+    }
+
+    /**
+     * Finds all the jobs whose title contains every word of the query (as a word or a word prefix), without ranking
+     * them.
+     *
+     * @param query the words to search for
+     * @return the IDs of the matching jobs, in no particular order
+     */
+    public Set<Long> matches(String query) {
+        return scores(query).keySet();
+    }
+
+    /**
+     * @return the number of indexed jobs
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scores the jobs matching every word of the query, as the sum of the BM25 scores of the words.
+     */
+    private Map<Long, Double> scores(String query) {
+        String[] words = tokenize(query);
+        if (words.length == 0) {
+            return Map.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (String word : words) {
+                Map<Long, Double> wordScores = score(word);
+                if (scores == null) {
+                    scores = wordScores;
+                } else {
+                    // every word has to match: keep only the jobs matched by all the words so far
+                    scores.keySet().retainAll(wordScores.keySet());
+                    scores.replaceAll((id, score) -> score + wordScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return Map.of();
+                }
+            }
+            return scores;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scores every job containing the word, or a word starting with it, with BM25.
+     * Must be called while holding the read lock.
+     */
+    private Map<Long, Double> score(String word) {
+        Map<Long, Double> scores = new HashMap<>();
+        int documentCount = documents.size();
+        double averageLength = documentCount == 0 ? 0 : (double) totalLength / documentCount;
+        for (Map.Entry<String, Map<Long, Integer>> term : postings.subMap(word, true, word + Character.MAX_VALUE, false).entrySet()) {
+            Map<Long, Integer> postingList = term.getValue();
+            double idf = Math.log(1 + (documentCount - postingList.size() + 0.5) / (postingList.size() + 0.5));
+            double weight = term.getKey().equals(word) ? 1 : PREFIX_WEIGHT;
+            for (Map.Entry<Long, Integer> posting : postingList.entrySet()) {
+                int frequency = posting.getValue();
+                int length = documents.get(posting.getKey()).length;
+                double score = weight * idf * frequency * (K1 + 1)
+                        / (frequency + K1 * (1 - B + B * length / averageLength));
+                scores.merge(posting.getKey(), score, Double::sum);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Must be called while holding the write lock.
+     */
+    private void add(Long id, String title) {
+        String[] words = tokenize(title);
+        documents.put(id, words);
+        totalLength += words.length;
+        for (String word : words) {
+            postings.computeIfAbsent(word, w -> new HashMap<>()).merge(id, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Must be called while holding the write lock.
+     */
+    private void remove(Long id) {
+        String[] words = documents.remove(id);
+        if (words == null) {
+            return;
+        }
+        totalLength -= words.length;
+        for (String word : words) {
+            Map<Long, Integer> postingList = postings.get(word);
+            if (postingList != null && postingList.remove(id) != null && postingList.isEmpty()) {
+                postings.remove(word);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.yarin.springproject.projectspring.search;
+
+import com.yarin.springproject.projectspring.company.CompaniesChangedEvent;
+import com.yarin.springproject.projectspring.company.Company;
+import com.yarin.springproject.projectspring.company.CompanyRepo;
+import com.yarin.springproject.projectspring.recruiter.Recruiter;
+import com.yarin.springproject.projectspring.recruiter.RecruiterRepo;
+import com.yarin.springproject.projectspring.recruiter.RecruitersChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Trigram indexes over the names of all recruiters and companies, resolving the partial names used by the
+ * "by recruiter" and "by company" endpoints to ID sets without a leading-wildcard LIKE over joins.
+ *
+ * <p>
+ * The indexes are built from the database once the application is ready and kept in sync through
+ * {@link RecruitersChangedEvent}s and {@link CompaniesChangedEvent}s. A rebuild fills new indexes and then replaces
+ * the current ones, so the lookups running meanwhile still see every name. The events received during a rebuild
+ * wait for it to finish and are applied to the new indexes.
+ * </p>
+ */
+@Component
+public class NameIndex {
+    private static final Logger logger = LoggerFactory.getLogger(NameIndex.class);
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final RecruiterRepo recruiterRepo;
+    private final CompanyRepo companyRepo;
+
+    private volatile TrigramIndex recruiters = new TrigramIndex();
+    private volatile TrigramIndex companies = new TrigramIndex();
+
+    /**
+     * Constructs the index, which stays empty until {@link #rebuild()} runs.
+     *
+     * @param recruiterRepo the repository the recruiter names are read from
+     * @param companyRepo   the repository the company names are read from
+     */
+    public NameIndex(RecruiterRepo recruiterRepo, CompanyRepo companyRepo) {
+        this.recruiterRepo = recruiterRepo;
+        this.companyRepo = companyRepo;
+    }
+
+    /**
+     * Rebuilds both indexes from the database, reading the names in batches ordered by ID.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        recruiters = load(recruiterRepo::findNamesByIdGreaterThanOrderByIdAsc);
+        companies = load(companyRepo::findNamesByIdGreaterThanOrderByIdAsc);
+        logger.info("Indexed the names of {} recruiters and {} companies", recruiters.size(), companies.size());
+    }
+
+    /**
+     * Applies saved and deleted recruiters to the recruiter index.
+     *
+     * @param event the event describing the changed recruiters
+     */
+    @EventListener
+    public synchronized void onRecruitersChanged(RecruitersChangedEvent event) {
+        TrigramIndex index = recruiters;
+        event.deletedIds().forEach(index::remove);
+        for (Recruiter recruiter : event.saved()) {
+            index.put(recruiter.getId(), recruiter.getName());
+        }
+    }
+
+    /**
+     * Applies saved and deleted companies to the company index.
+     *
+     * @param event the event describing the changed companies
+     */
+    @EventListener
+    public synchronized void onCompaniesChanged(CompaniesChangedEvent event) {
+        TrigramIndex index = companies;
+        event.deletedIds().forEach(index::remove);
+        for (Company company : event.saved()) {
+            index.put(company.getId(), company.getName());
+        }
+    }
+
+    /**
+     * Finds the recruiters whose name contains the given text, ignoring case.
+     *
+     * @param name the partial name
+     * @return the IDs of the matching recruiters
+     */
+    public Set<Long> recruitersNamed(String name) {
+        return recruiters.search(name);
+    }
+
+    /**
+     * Finds the companies whose name contains the given text, ignoring case.
+     *
+     * @param name the partial name
+     * @return the IDs of the matching companies
+     */
+    public Set<Long> companiesNamed(String name) {
+        return companies.search(name);
+    }
+
+    private static TrigramIndex load(BiFunction<Long, Pageable, List<NameView>> query) {
+        TrigramIndex index = new TrigramIndex();
+        List<NameView> batch = query.apply(Long.MIN_VALUE, PageRequest.ofSize(REBUILD_BATCH_SIZE));
+        while (!batch.isEmpty()) {
+            for (NameView entity : batch) {
+                index.put(entity.getId(), entity.getName());
+            }
+            batch = query.apply(batch.get(batch.size() - 1).getId(), PageRequest.ofSize(REBUILD_BATCH_SIZE));
+        }
+        return index;
+    }
+}
@@ -0,0 +1,18 @@
+package com.yarin.springproject.projectspring.search;
+
+/**
+ * A closed projection of an entity holding only its ID and name.
+ * Used to build the name index of recruiters and companies without loading their relationships.
+ */
+public interface NameView {
+
+    /**
+     * @return the ID of the entity
+     */
+    Long getId();
+
+    /**
+     * @return the name of the entity
+     */
+    String getName();
+}
@@ -0,0 +1,95 @@
+package com.yarin.springproject.projectspring.search;
+
+import com.yarin.springproject.projectspring.KeysetPage;
+import lombok.Getter;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A single page of search results ranked by relevance.
+ *
+ * <p>
+ * Ranked results have no stable order on the ID, so unlike {@link KeysetPage} they are paged by page number.
+ * The ranking lives in memory, which makes skipping to a page a sublist of the ranked IDs and not an OFFSET scan.
+ * </p>
+ *
+ * @param <T> the type of the page content
+ */
+@Getter
+public class RankedPage<T> {
+
+    private final List<T> content;
+
+    private final int page;
+
+    private final boolean hasNext;
+
+    private RankedPage(List<T> content, int page, boolean hasNext) {
+        this.content = content;
+        this.page = page;
+        this.hasNext = hasNext;
+    }
+
+    /**
+     * Cuts one page out of the ranked results.
+     *
+     * @param ranked all the results, most relevant first
+     * @param page   the requested page number, starting at 0, or null for the first page
+     * @param size   the requested page size, or null for {@link KeysetPage#DEFAULT_SIZE}
+     * @return the page
+     */
+    public static <T> RankedPage<T> of(List<T> ranked, Integer page, Integer size) {
+        int limit = KeysetPage.clampSize(size);
+        int number = page == null ? 0 : Math.max(0, page);
+        long from = Math.min((long) number * limit, ranked.size());
+        long to = Math.min(from + limit, ranked.size());
+        return new RankedPage<>(ranked.subList((int) from, (int) to), number, to < ranked.size());
+    }
+
+    /**
+     * Cuts one page out of the top-ranked results, when only the results up to the end of the page were ranked.
+     *
+     * @param top   the results up to the end of the page at most, most relevant first
+     * @param page  the page number, starting at 0
+     * @param size  the page size
+     * @param total the number of results, ranked or not
+     * @return the page
+     */
+    public static <T> RankedPage<T> of(List<T> top, int page, int size, int total) {
+        long from = Math.min((long) page * size, top.size());
+        return new RankedPage<>(top.subList((int) from, top.size()), page, (long) page * size + size < total);
+    }
+
+    /**
+     * Converts the whole content of this page at once, for example to load all the entities of the page in one query.
+     *
+     * @param mapper the conversion of the content, which has to keep its order
+     * @return a new page holding the converted content
+     */
+    public <R> RankedPage<R> mapContent(Function<List<T>, List<R>> mapper) {
+        return new RankedPage<>(mapper.apply(content), page, hasNext);
+    }
+
+    /**
+     * Builds the HAL {@code next} and {@code prev} links of this page from the current request.
+     *
+     * @return the navigation links of this page
+     */
+    public List<Link> getLinks() {
+        List<Link> links = new ArrayList<>(2);
+        if (hasNext) {
+            links.add(Link.of(ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("page", page + 1).toUriString(), IanaLinkRelations.NEXT));
+        }
+        if (page > 0) {
+            links.add(Link.of(ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("page", page - 1).toUriString(), IanaLinkRelations.PREV));
+        }
+        return links;
+    }
+}
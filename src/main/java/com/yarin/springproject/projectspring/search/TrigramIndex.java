@@ -0,0 +1,184 @@
+package com.yarin.springproject.projectspring.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory trigram (3-gram) index resolving case-insensitive substring queries over short names to IDs.
+ *
+ * <p>
+ * Every name is cut into all its overlapping 3-character sequences, and each trigram maps to the IDs of the names
+ * containing it. A query of 3 characters or more is answered by intersecting the ID sets of its trigrams, starting
+ * from the smallest one, and then checking the few remaining candidates against the query, so a lookup never
+ * scans all the names. Shorter queries have no trigram and fall back to checking every name.
+ * </p>
+ *
+ * <p>
+ * This class is thread safe: searches run concurrently, updates are exclusive.
+ * </p>
+ */
+public class TrigramIndex {
+    private static final int GRAM = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Trigram -> IDs of the names containing it.
+     */
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+
+    /**
+     * ID -> lower-case name.
+     */
+    private final Map<Long, String> names = new HashMap<>();
+
+    /**
+     * Adds a name to the index, replacing the previous name of the same ID.
+     *
+     * @param id   the ID of the entity
+     * @param name the name of the entity, null names are not indexed
+     */
+    public void put(Long id, String name) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (name == null) {
+                return;
+            }
+            String normalized = normalize(name);
+            names.put(id, normalized);
+            for (String trigram : trigrams(normalized)) {
+                postings.computeIfAbsent(trigram, t -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the name of the given ID from the index, if present.
+     *
+     * @param id the ID of the entity
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every name from the index.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            names.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the IDs whose name contains the query, ignoring case.
+     *
+     * @param query the substring to look for
+     * @return the matching IDs, possibly empty
+     */
+    public Set<Long> search(String query) {
+        String normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            if (normalized.length() < GRAM) {
+                Set<Long> matches = new HashSet<>();
+                names.forEach((id, name) -> {
+                    if (name.contains(normalized)) {
+                        matches.add(id);
+                    }
+                });
+                return matches;
+            }
+
+            List<Set<Long>> candidates = new ArrayList<>();
+            for (String trigram : trigrams(normalized)) {
+                Set<Long> ids = postings.get(trigram);
+                if (ids == null) {
+                    return Set.of();
+                }
+                candidates.add(ids);
+            }
+            candidates.sort(Comparator.comparingInt(Set::size));
+
+            Set<Long> matches = new HashSet<>();
+            for (Long id : candidates.get(0)) {
+                if (containsInAll(candidates, id) && names.get(id).contains(normalized)) {
+                    matches.add(id);
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed names
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean containsInAll(List<Set<Long>> candidates, Long id) {
+        for (int i = 1; i < candidates.size(); i++) {
+            if (!candidates.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            trigrams.add(text.substring(i, i + GRAM));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Must be called while holding the write lock.
+     */
+    private void removeLocked(Long id) {
+        String name = names.remove(id);
+        if (name == null) {
+            return;
+        }
+        for (String trigram : trigrams(name)) {
+            Set<Long> ids = postings.get(trigram);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(trigram);
+            }
+        }
+    }
+}
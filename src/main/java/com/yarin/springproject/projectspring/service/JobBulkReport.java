@@ -0,0 +1,9 @@
+package com.yarin.springproject.projectspring.service;
+
+/**
+ * The result of a bulk update or a bulk delete of jobs.
+ *
+ * @param affected the number of jobs that were updated or deleted
+ */
+public record JobBulkReport(int affected) {
+}
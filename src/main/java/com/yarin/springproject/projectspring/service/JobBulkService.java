@@ -0,0 +1,215 @@
+package com.yarin.springproject.projectspring.service;
+
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.job.JobsChangedEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The JobBulkService updates or deletes all the jobs matching a filter at once, for the maintenance runs that reprice
+ * or remove the postings of a recruiter, a company or a location.
+ * It is used by the JobController for the bulk update and bulk delete endpoints.
+ *
+ * <p>
+ * Instead of loading and saving or deleting the jobs one by one, the jobs are changed by a few update or delete
+ * statements. The IDs of the matching jobs are read first and their rows locked, in the same transaction, and the
+ * statements then apply to these IDs only, in batches: a job inserted or changed by another transaction meanwhile is
+ * not touched, so the {@link JobsChangedEvent} published once the transaction is committed, and the count returned,
+ * cover exactly the changed rows. The search indexes, the collection ETags and the cached responses are kept in sync
+ * as for the jobs changed one by one. The updates also increment the versions of the jobs, so that their ETags change.
+ * </p>
+ */
+@Service
+public class JobBulkService {
+    private static final Logger logger = LoggerFactory.getLogger(JobBulkService.class);
+
+    /**
+     * The fields a bulk update can set.
+     */
+    private static final Set<String> BULK_FIELDS = Set.of("salary", "location");
+
+    /**
+     * The number of IDs in the in list of one update or delete statement.
+     */
+    private static final int STATEMENT_BATCH_SIZE = 1000;
+
+    /**
+     * The jobs a bulk operation applies to: the jobs matching every given criterion.
+     * A bulk operation needs at least one criterion, so that it never applies to every job by mistake.
+     *
+     * @param recruiterId the ID of the recruiter of the jobs, or null
+     * @param companyId   the ID of the company of the jobs, or null
+     * @param location    the location of the jobs, or null
+     * @param minSalary   the lowest salary of the jobs, in thousands, or null
+     * @param maxSalary   the highest salary of the jobs, in thousands, or null
+     */
+    public record Filter(Long recruiterId, Long companyId, String location, Integer minSalary, Integer maxSalary) {
+
+        /**
+         * @return whether the filter has no criterion
+         */
+        public boolean isEmpty() {
+            return recruiterId == null && companyId == null && location == null && minSalary == null
+                    && maxSalary == null;
+        }
+    }
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final MergePatchService mergePatchService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Constructs a JobBulkService.
+     *
+     * @param entityManager      runs the bulk statements
+     * @param transactionManager runs every bulk operation in its own transaction
+     * @param mergePatchService  validates the bulk updates, which are merge patches of the jobs
+     * @param eventPublisher     publishes the changed jobs once the transaction is committed
+     */
+    public JobBulkService(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                          MergePatchService mergePatchService, ApplicationEventPublisher eventPublisher) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mergePatchService = mergePatchService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Sets the salary or the location of all the jobs matching a filter, with one update statement per batch of jobs.
+     *
+     * @param filter the jobs to update
+     * @param patch  a merge patch of the salary and the location, a null value removing the field
+     * @return the number of updated jobs
+     * @throws ResponseStatusException with a 400 status if the filter is empty or the patch is invalid
+     */
+    public JobBulkReport updateJobs(Filter filter, Map<String, Object> patch) {
+        requireCriteria(filter);
+        Map<String, Object> values = mergePatchService.jobValues(patch, BULK_FIELDS);
+        List<Long> ids = new ArrayList<>();
+        Integer updated = transactionTemplate.execute(status -> {
+            ids.addAll(findIds(filter));
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+            int count = 0;
+            for (List<Long> batch : batches(ids)) {
+                CriteriaUpdate<Job> update = builder.createCriteriaUpdate(Job.class);
+                Root<Job> root = update.from(Job.class);
+                values.forEach(update::set); // a null value gets the type of its column
+                update.set(root.<Long>get("version"), builder.sum(root.<Long>get("version"), 1L));
+                update.where(root.get("id").in(batch));
+                count += entityManager.createQuery(update).executeUpdate();
+            }
+            return count;
+        });
+        if (!ids.isEmpty()) {
+            eventPublisher.publishEvent(JobsChangedEvent.updated(ids));
+        }
+        logger.info("Bulk updated {} jobs matching {} with {}", updated, filter, patch);
+        return new JobBulkReport(updated == null ? 0 : updated);
+    }
+
+    /**
+     * Deletes all the jobs matching a filter, with one delete statement per batch of jobs.
+     *
+     * @param filter the jobs to delete
+     * @return the number of deleted jobs
+     * @throws ResponseStatusException with a 400 status if the filter is empty
+     */
+    public JobBulkReport deleteJobs(Filter filter) {
+        requireCriteria(filter);
+        List<Long> ids = new ArrayList<>();
+        Integer deleted = transactionTemplate.execute(status -> {
+            ids.addAll(findIds(filter));
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+            int count = 0;
+            for (List<Long> batch : batches(ids)) {
+                CriteriaDelete<Job> delete = builder.createCriteriaDelete(Job.class);
+                Root<Job> root = delete.from(Job.class);
+                delete.where(root.get("id").in(batch));
+                count += entityManager.createQuery(delete).executeUpdate();
+            }
+            return count;
+        });
+        if (!ids.isEmpty()) {
+            eventPublisher.publishEvent(JobsChangedEvent.deleted(ids));
+        }
+        logger.info("Bulk deleted {} jobs matching {}", deleted, filter);
+        return new JobBulkReport(deleted == null ? 0 : deleted);
+    }
+
+    private static void requireCriteria(Filter filter) {
+        if (filter.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A bulk operation needs a recruiterId, a companyId, a location or a salary range");
+        }
+    }
+
+    /**
+     * Reads the IDs of the jobs matching a filter and locks their rows until the end of the transaction, so that no
+     * other transaction changes or deletes them before the bulk statements run.
+     */
+    private List<Long> findIds(Filter filter) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<Job> root = query.from(Job.class);
+        query.select(root.get("id")).where(matches(builder, root, filter));
+        return entityManager.createQuery(query).setLockMode(LockModeType.PESSIMISTIC_WRITE).getResultList();
+    }
+
+    private static List<List<Long>> batches(List<Long> ids) {
+        List<List<Long>> batches = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += STATEMENT_BATCH_SIZE) {
+            batches.add(ids.subList(from, Math.min(from + STATEMENT_BATCH_SIZE, ids.size())));
+        }
+        return batches;
+    }
+
+    /**
+     * Builds the where clause of a filter. The recruiter and the company are compared by their foreign key,
+     * without a join.
+     */
+    private static Predicate matches(CriteriaBuilder builder, Root<Job> root, Filter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.recruiterId() != null) {
+            predicates.add(builder.equal(root.get("recruiter").get("id"), filter.recruiterId()));
+        }
+        if (filter.companyId() != null) {
+            predicates.add(builder.equal(root.get("company").get("id"), filter.companyId()));
+        }
+        if (filter.location() != null) {
+            predicates.add(builder.equal(root.get("location"), filter.location()));
+        }
+        if (filter.minSalary() != null) {
+            predicates.add(builder.greaterThanOrEqualTo(root.get("salaryThousands"), filter.minSalary()));
+        }
+        if (filter.maxSalary() != null) {
+            predicates.add(builder.lessThanOrEqualTo(root.get("salaryThousands"), filter.maxSalary()));
+        }
+        return builder.and(predicates.toArray(new Predicate[0]));
+    }
+}
@@ -0,0 +1,111 @@
+package com.yarin.springproject.projectspring.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yarin.springproject.projectspring.company.Company;
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.job.JobRepo;
+import com.yarin.springproject.projectspring.recruiter.Recruiter;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * The JobExportService writes the whole job catalog as newline-delimited JSON (one job object per line).
+ * It is used by the JobController for the /jobs/export endpoint, which feeds the nightly sync.
+ *
+ * <p>
+ * The jobs are streamed from the database and every job is written to the output as soon as it is read, with
+ * Jackson's streaming generator instead of building a list of DTOs. The persistence context is cleared every
+ * {@link JobRepo#EXPORT_FETCH_SIZE} jobs, so the heap used by an export does not grow with the size of the catalog.
+ * </p>
+ */
+@Service
+public class JobExportService {
+    private static final Logger logger = LoggerFactory.getLogger(JobExportService.class);
+
+    private final JobRepo jobRepo;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructs a JobExportService.
+     *
+     * @param jobRepo       the repository the jobs are streamed from
+     * @param entityManager the entity manager of the export transaction, used to detach the written jobs
+     * @param objectMapper  the object mapper whose factory creates the JSON generator
+     */
+    public JobExportService(JobRepo jobRepo, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.jobRepo = jobRepo;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes every job to the output stream, one JSON object per line, ordered by ID.
+     * The output stream is flushed after every batch of jobs but is not closed.
+     *
+     * @param out the stream to write to, usually the body of the HTTP response
+     * @return the number of exported jobs
+     * @throws IOException if writing to the output stream fails, for example when the client disconnects
+     */
+    @Transactional(readOnly = true)
+    public long exportTo(OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<Job> jobs = jobRepo.streamAllWithCompanyAndRecruiter();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null); // lines are separated by the newline alone
+            for (Iterator<Job> it = jobs.iterator(); it.hasNext(); ) {
+                Job job = it.next();
+                write(generator, job);
+                generator.writeRaw('\n');
+                entityManager.detach(job);
+                if (++count % JobRepo.EXPORT_FETCH_SIZE == 0) {
+                    entityManager.clear(); // the companies and recruiters of the batch
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        }
+        logger.info("Exported {} jobs", count);
+        return count;
+    }
+
+    /**
+     * Writes a job with the same fields as the JobDTO, plus its ID so that the importer can match the jobs.
+     */
+    private static void write(JsonGenerator generator, Job job) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", job.getId());
+        generator.writeStringField("title", job.getTitle());
+        generator.writeStringField("salary", job.getSalary());
+        Company company = job.getCompany();
+        if (company == null) {
+            generator.writeNullField("company");
+        } else {
+            generator.writeObjectFieldStart("company");
+            generator.writeStringField("name", company.getName());
+            generator.writeEndObject();
+        }
+        Recruiter recruiter = job.getRecruiter();
+        if (recruiter == null) {
+            generator.writeNullField("recruiter");
+        } else {
+            generator.writeObjectFieldStart("recruiter");
+            generator.writeStringField("name", recruiter.getName());
+            generator.writeStringField("email", recruiter.getEmail());
+            generator.writeEndObject();
+        }
+        generator.writeStringField("location", job.getLocation());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,49 @@
+package com.yarin.springproject.projectspring.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * The result of a bulk job import, with one item per submitted job in the order they were submitted.
+ *
+ * @param created  the number of jobs that were created
+ * @param rejected the number of jobs that were not created
+ * @param items    the result of every submitted job
+ */
+public record JobImportReport(int created, int rejected, List<Item> items) {
+
+    /**
+     * The outcome of importing one job.
+     */
+    public enum Status {
+        /**
+         * The job was created.
+         */
+        CREATED,
+        /**
+         * The job was invalid, or belonged to a batch that could not be saved, and was not created.
+         */
+        REJECTED
+    }
+
+    /**
+     * The result of importing one job.
+     *
+     * @param index  the position of the job in the submitted list, starting at 0
+     * @param status whether the job was created
+     * @param id     the ID of the created job, null if it was rejected
+     * @param error  why the job was rejected, null if it was created
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Item(int index, Status status, Long id, String error) {
+
+        static Item created(int index, Long id) {
+            return new Item(index, Status.CREATED, id, null);
+        }
+
+        static Item rejected(int index, String error) {
+            return new Item(index, Status.REJECTED, null, error);
+        }
+    }
+}
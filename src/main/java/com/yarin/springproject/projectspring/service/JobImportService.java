@@ -0,0 +1,245 @@
+package com.yarin.springproject.projectspring.service;
+
+import com.yarin.springproject.projectspring.company.CompaniesChangedEvent;
+import com.yarin.springproject.projectspring.company.Company;
+import com.yarin.springproject.projectspring.company.CompanyRecruiterView;
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.job.JobsChangedEvent;
+import com.yarin.springproject.projectspring.recruiter.Recruiter;
+import com.yarin.springproject.projectspring.recruiter.RecruitersChangedEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The JobImportService creates many jobs at once, for the partner feeds that push thousands of postings.
+ * It is used by the JobController for the bulk import endpoint.
+ *
+ * <p>
+ * Unlike creating the jobs one by one, which looks up and saves the company and the recruiter of every job,
+ * the jobs are imported in chunks of {@value #CHUNK_SIZE}, each in its own transaction:
+ * - the companies and recruiters of the whole chunk are looked up with one query each (by name and by email),
+ * - the missing companies and recruiters are inserted together, then the missing company-recruiter links
+ *   are inserted in one JDBC batch,
+ * - the jobs are inserted together.
+ * Inserts are sent in JDBC batches (see hibernate.jdbc.batch_size), and the persistence context is cleared after
+ * every chunk so that the memory used does not grow with the number of jobs.
+ * </p>
+ *
+ * <p>
+ * Invalid jobs are rejected one by one without stopping the import. If a chunk fails to be saved, its transaction is
+ * rolled back, its jobs are reported as rejected, and the import goes on with the next chunk.
+ * </p>
+ */
+@Service
+public class JobImportService {
+    private static final Logger logger = LoggerFactory.getLogger(JobImportService.class);
+
+    /**
+     * The number of jobs saved in a single transaction.
+     */
+    static final int CHUNK_SIZE = 500;
+
+    private static final String INSERT_LINK = "insert into company_recruiter (company_id, recruiter_id) values (?, ?)";
+
+    private final TalentService talentService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * The companies created by a chunk, the recruiters it created or linked to a new company, and its jobs.
+     */
+    private record SavedChunk(List<Job> jobs, List<Company> newCompanies, List<Recruiter> changedRecruiters) {
+    }
+
+    /**
+     * One row of the company-recruiter association.
+     */
+    private record Link(Long companyId, Long recruiterId) {
+    }
+
+    /**
+     * Constructs a JobImportService.
+     *
+     * @param talentService      the service giving access to the repositories
+     * @param jdbcTemplate       used to insert the company-recruiter links in batches
+     * @param transactionManager used to run every chunk in its own transaction
+     * @param entityManager      used to flush and clear the persistence context after every chunk
+     * @param validator          validates every job before it is imported
+     * @param eventPublisher     publishes change events after every chunk, to keep the search indexes in sync
+     */
+    public JobImportService(TalentService talentService, JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager, EntityManager entityManager,
+                            Validator validator, ApplicationEventPublisher eventPublisher) {
+        this.talentService = talentService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Imports the given jobs, creating their companies and recruiters when they do not exist yet.
+     * Companies are matched by name and recruiters by email, as when a single job is created.
+     *
+     * @param jobs the jobs to import, each with a company name and a recruiter name and email
+     * @return the result of every job, in the order of the given list
+     */
+    public JobImportReport importJobs(List<Job> jobs) {
+        List<JobImportReport.Item> items = new ArrayList<>(jobs.size());
+        for (int from = 0; from < jobs.size(); from += CHUNK_SIZE) {
+            items.addAll(importChunk(jobs.subList(from, Math.min(from + CHUNK_SIZE, jobs.size())), from));
+        }
+        int created = (int) items.stream().filter(item -> item.status() == JobImportReport.Status.CREATED).count();
+        logger.info("Imported {} of {} jobs", created, jobs.size());
+        return new JobImportReport(created, items.size() - created, items);
+    }
+
+    private List<JobImportReport.Item> importChunk(List<Job> chunk, int offset) {
+        JobImportReport.Item[] items = new JobImportReport.Item[chunk.size()];
+        List<Integer> valid = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            String error = validate(chunk.get(i));
+            if (error == null) {
+                valid.add(i);
+            } else {
+                items[i] = JobImportReport.Item.rejected(offset + i, error);
+            }
+        }
+        if (valid.isEmpty()) {
+            return Arrays.asList(items);
+        }
+
+        SavedChunk saved;
+        try {
+            saved = transactionTemplate.execute(status -> save(valid.stream().map(chunk::get).toList()));
+        } catch (RuntimeException e) {
+            logger.warn("Could not import the jobs {} to {}", offset, offset + chunk.size() - 1, e);
+            String error = "the batch of this job could not be saved: "
+                    + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            for (int i : valid) {
+                items[i] = JobImportReport.Item.rejected(offset + i, error);
+            }
+            return Arrays.asList(items);
+        }
+        for (int k = 0; k < valid.size(); k++) {
+            int i = valid.get(k);
+            items[i] = JobImportReport.Item.created(offset + i, saved.jobs().get(k).getId());
+        }
+        eventPublisher.publishEvent(CompaniesChangedEvent.saved(saved.newCompanies()));
+        eventPublisher.publishEvent(RecruitersChangedEvent.saved(saved.changedRecruiters()));
+        eventPublisher.publishEvent(JobsChangedEvent.saved(saved.jobs()));
+        return Arrays.asList(items);
+    }
+
+    /**
+     * Saves a chunk of valid jobs. Must be called inside a transaction.
+     */
+    private SavedChunk save(List<Job> jobs) {
+        Map<String, Company> companies = new HashMap<>();
+        Map<String, Recruiter> recruiters = new HashMap<>();
+        Set<String> names = jobs.stream().map(job -> job.getCompany().getName()).collect(Collectors.toSet());
+        Set<String> emails = jobs.stream().map(job -> job.getRecruiter().getEmail()).collect(Collectors.toSet());
+        talentService.getCompanyRepo().findByNameIn(names).forEach(company -> companies.putIfAbsent(company.getName(), company));
+        talentService.getRecruiterRepo().findByEmailIn(emails).forEach(recruiter -> recruiters.putIfAbsent(recruiter.getEmail(), recruiter));
+
+        List<Company> newCompanies = new ArrayList<>();
+        List<Recruiter> newRecruiters = new ArrayList<>();
+        for (Job job : jobs) {
+            companies.computeIfAbsent(job.getCompany().getName(), name -> {
+                Company company = new Company(name);
+                newCompanies.add(company);
+                return company;
+            });
+            recruiters.computeIfAbsent(job.getRecruiter().getEmail(), email -> {
+                Recruiter recruiter = new Recruiter(job.getRecruiter().getName(), email);
+                newRecruiters.add(recruiter);
+                return recruiter;
+            });
+        }
+        talentService.getCompanyRepo().saveAll(newCompanies);
+        talentService.getRecruiterRepo().saveAll(newRecruiters);
+        entityManager.flush(); // the links below are inserted with JDBC and refer to these rows
+
+        Set<Link> links = new LinkedHashSet<>();
+        for (Job job : jobs) {
+            links.add(new Link(companies.get(job.getCompany().getName()).getId(),
+                    recruiters.get(job.getRecruiter().getEmail()).getId()));
+        }
+        Set<Long> linkedRecruiterIds = insertMissingLinks(links);
+        // every new recruiter got a link, and existing recruiters linked to another company changed too
+        List<Recruiter> changedRecruiters = recruiters.values().stream()
+                .filter(recruiter -> linkedRecruiterIds.contains(recruiter.getId()))
+                .toList();
+
+        List<Job> newJobs = jobs.stream()
+                .map(job -> new Job(job.getTitle(), job.getSalary(), job.getLocation(),
+                        companies.get(job.getCompany().getName()), recruiters.get(job.getRecruiter().getEmail())))
+                .toList();
+        talentService.getJobRepo().saveAll(newJobs);
+        entityManager.flush();
+        entityManager.clear();
+        return new SavedChunk(newJobs, newCompanies, changedRecruiters);
+    }
+
+    /**
+     * Inserts the company-recruiter links that do not exist yet, in one JDBC batch.
+     *
+     * @return the IDs of the recruiters that got a new link, whose versions are incremented
+     */
+    private Set<Long> insertMissingLinks(Set<Link> links) {
+        Set<Long> companyIds = links.stream().map(Link::companyId).collect(Collectors.toSet());
+        for (CompanyRecruiterView existing : talentService.getCompanyRepo().findRecruiterLinksByCompanyIdIn(companyIds)) {
+            links.remove(new Link(existing.getCompanyId(), existing.getRecruiterId()));
+        }
+        if (!links.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_LINK,
+                    links.stream().map(link -> new Object[]{link.companyId(), link.recruiterId()}).toList());
+        }
+        Set<Long> recruiterIds = links.stream().map(Link::recruiterId).collect(Collectors.toSet());
+        talentService.touchRecruiters(recruiterIds); // their ETags list their companies
+        return recruiterIds;
+    }
+
+    /**
+     * Checks a job with the same constraints as a single job creation.
+     * Also used by the JobIngestionQueue, to refuse an invalid job before it is queued.
+     *
+     * @return the reason the job is invalid, or null if it is valid
+     */
+    String validate(Job job) {
+        if (job == null) {
+            return "job is missing";
+        }
+        if (job.getCompany() == null || job.getCompany().getName() == null) {
+            return "company name is required";
+        }
+        if (job.getRecruiter() == null || job.getRecruiter().getEmail() == null) {
+            return "recruiter email is required";
+        }
+        List<String> violations = new ArrayList<>();
+        validator.validate(job).forEach(violation -> violations.add(violation.getMessage()));
+        validator.validate(job.getRecruiter()).forEach(violation -> violations.add(violation.getMessage()));
+        return violations.isEmpty() ? null : String.join(", ", violations);
+    }
+}
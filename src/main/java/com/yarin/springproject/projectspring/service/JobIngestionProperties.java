@@ -0,0 +1,24 @@
+package com.yarin.springproject.projectspring.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * The settings of the JobIngestionQueue, bound from the "ingestion.*" properties.
+ *
+ * @param queueCapacity   the number of accepted jobs that can wait to be written; further jobs are refused with a 503
+ * @param batchSize       the largest number of jobs written together, in one transaction
+ * @param statusRetention how long the status of an accepted job can be read after its last change
+ * @param maxStatuses     the largest number of statuses kept, the oldest being dropped first
+ * @param shutdownTimeout how long the application, when it stops, waits for the batch being written in the background
+ *                        before it writes the jobs still queued
+ */
+@ConfigurationProperties("ingestion")
+public record JobIngestionProperties(@DefaultValue("10000") int queueCapacity,
+                                     @DefaultValue("500") int batchSize,
+                                     @DefaultValue("1h") Duration statusRetention,
+                                     @DefaultValue("100000") int maxStatuses,
+                                     @DefaultValue("30s") Duration shutdownTimeout) {
+}
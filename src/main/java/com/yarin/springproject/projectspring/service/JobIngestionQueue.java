@@ -0,0 +1,246 @@
+package com.yarin.springproject.projectspring.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yarin.springproject.projectspring.job.Job;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded queue of jobs accepted by the asynchronous POST /jobs and written to the database in the background,
+ * so that a burst of job postings does not keep the request threads busy with the inserts.
+ *
+ * <p>
+ * The queue holds up to {@link JobIngestionProperties#queueCapacity()} jobs; a job that does not fit is refused, and
+ * the client is asked to retry later. When jobs are queued, a background task on the @Async executor drains the queue
+ * in batches of up to {@link JobIngestionProperties#batchSize()} jobs and writes every batch with the
+ * {@link JobImportService}: the companies and the recruiters of a batch are looked up and created together, and the
+ * batch is saved in one transaction. Only one drain runs at a time, so the jobs queued while a batch is written
+ * form the next batch. When the application stops, new jobs are refused, the batch being written in the background
+ * is waited for (up to {@link JobIngestionProperties#shutdownTimeout()}), and the jobs still queued are then written
+ * before it stops, so the executor shutting down does not interrupt a batch in the middle of its transaction.
+ * </p>
+ *
+ * <p>
+ * Every accepted job gets an ID of its own, under which its status (queued, created with the ID of the job, or
+ * rejected with the reason) can be read for {@link JobIngestionProperties#statusRetention()}. The depth of the queue
+ * is exposed as the "ingestion.queue.size" gauge, the jobs refused because the queue was full as the
+ * "ingestion.queue.refused" counter, and the time a batch takes to be written as the "ingestion.batch" timer.
+ * </p>
+ */
+@Service
+public class JobIngestionQueue {
+    private static final Logger logger = LoggerFactory.getLogger(JobIngestionQueue.class);
+
+    /**
+     * An accepted job, with the ID of its status.
+     */
+    private record Entry(String id, Job job) {
+    }
+
+    private final JobImportService jobImportService;
+    private final TaskExecutor taskExecutor;
+    private final int batchSize;
+    private final BlockingQueue<Entry> queue;
+    private final Cache<String, JobIngestionStatus> statuses;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closing = new AtomicBoolean();
+    /**
+     * Held while jobs are taken from the queue and written, by the background drain or by the flush at shutdown.
+     */
+    private final ReentrantLock writing = new ReentrantLock();
+    private final Duration shutdownTimeout;
+    private final Counter refused;
+    private final Timer batchTimer;
+
+    /**
+     * Constructs a JobIngestionQueue.
+     *
+     * @param jobImportService writes the batches of jobs
+     * @param taskExecutor     runs the drains in the background
+     * @param properties       the capacity of the queue, the size of the batches and the retention of the statuses
+     * @param meterRegistry    registers the metrics of the queue
+     */
+    public JobIngestionQueue(JobImportService jobImportService,
+                             @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                             JobIngestionProperties properties, MeterRegistry meterRegistry) {
+        this.jobImportService = jobImportService;
+        this.taskExecutor = taskExecutor;
+        this.batchSize = Math.max(1, properties.batchSize());
+        this.shutdownTimeout = properties.shutdownTimeout();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.queueCapacity()));
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(properties.maxStatuses())
+                .expireAfterWrite(properties.statusRetention())
+                .build();
+        Gauge.builder("ingestion.queue.size", queue, BlockingQueue::size)
+                .description("The number of accepted jobs waiting to be written")
+                .register(meterRegistry);
+        this.refused = Counter.builder("ingestion.queue.refused")
+                .description("The jobs refused because the ingestion queue was full")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("ingestion.batch")
+                .description("The time it takes to write a batch of queued jobs")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Validates a job and queues it to be written in the background. A valid job that cannot be saved, for example
+     * because its batch failed, is rejected when its batch is written.
+     *
+     * @param job the job to create, with a company name and a recruiter name and email
+     * @return the status of the queued job, or empty if the queue is full or the application is stopping
+     * @throws ResponseStatusException with a 400 status if the job is invalid
+     */
+    public Optional<JobIngestionStatus> submit(Job job) {
+        String error = jobImportService.validate(job);
+        if (error != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, error);
+        }
+        if (closing.get()) {
+            refused.increment();
+            return Optional.empty();
+        }
+        Entry entry = new Entry(UUID.randomUUID().toString(), job);
+        JobIngestionStatus status = JobIngestionStatus.queued(entry.id());
+        // stored before the job is queued, so that it never replaces the status written by the drain
+        statuses.put(entry.id(), status);
+        if (!queue.offer(entry)) {
+            statuses.invalidate(entry.id());
+            refused.increment();
+            return Optional.empty();
+        }
+        drainIfIdle();
+        return Optional.of(status);
+    }
+
+    /**
+     * Finds the status of an accepted job.
+     *
+     * @param id the ID returned when the job was accepted
+     * @return the status, or empty if the ID is unknown or its status has expired
+     */
+    public Optional<JobIngestionStatus> status(String id) {
+        return Optional.ofNullable(statuses.getIfPresent(id));
+    }
+
+    /**
+     * @return the number of jobs waiting to be written
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * Writes the jobs still queued on the calling thread, when the application stops. A batch being written by the
+     * background drain is waited for first, for up to the shutdown timeout, and no new drain is started.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void flush() {
+        closing.set(true);
+        boolean locked = false;
+        try {
+            locked = writing.tryLock(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (!locked) {
+                logger.warn("The queued jobs were still being written after {}, {} jobs are left to the background drain",
+                        shutdownTimeout, queue.size());
+                return;
+            }
+            int flushed = writeQueued();
+            if (flushed > 0) {
+                logger.info("Wrote the {} jobs still queued before stopping", flushed);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for the queued jobs to be written, {} jobs are not written",
+                    queue.size());
+        } finally {
+            if (locked) {
+                writing.unlock();
+            }
+        }
+    }
+
+    private void drainIfIdle() {
+        if (!queue.isEmpty() && !closing.get() && draining.compareAndSet(false, true)) {
+            try {
+                taskExecutor.execute(this::drain);
+            } catch (RuntimeException e) {
+                // the jobs stay queued, and are written by the drain of the next job or when the application stops
+                draining.set(false);
+                logger.warn("Could not start writing the queued jobs: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            writeQueued();
+        } finally {
+            draining.set(false);
+        }
+        // a job queued after the last batch was taken, but before the flag was cleared, would wait for the next one
+        drainIfIdle();
+    }
+
+    /**
+     * Writes the queued jobs batch by batch, until the queue is empty.
+     *
+     * @return the number of jobs written
+     */
+    private int writeQueued() {
+        writing.lock();
+        try {
+            int written = 0;
+            List<Entry> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                write(batch);
+                written += batch.size();
+                batch.clear();
+            }
+            return written;
+        } finally {
+            writing.unlock();
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        try {
+            JobImportReport report = batchTimer.record(
+                    () -> jobImportService.importJobs(batch.stream().map(Entry::job).toList()));
+            for (JobImportReport.Item item : report.items()) {
+                String id = batch.get(item.index()).id();
+                statuses.put(id, JobIngestionStatus.of(id, item));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Could not write a batch of {} queued jobs", batch.size(), e);
+            String error = "the batch of this job could not be saved: "
+                    + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            batch.forEach(entry -> statuses.put(entry.id(), JobIngestionStatus.rejected(entry.id(), error)));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.yarin.springproject.projectspring.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * The status of a job accepted by the asynchronous POST /jobs, as returned by GET /jobs/ingestion/{id}.
+ *
+ * @param id     the ID of the accepted job in the ingestion queue, not the ID of the job
+ * @param state  whether the job is waiting, created or rejected
+ * @param jobId  the ID of the created job, null until it is created
+ * @param error  why the job was rejected, null unless it was rejected
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record JobIngestionStatus(String id, State state, Long jobId, String error) {
+
+    /**
+     * The state of an accepted job.
+     */
+    public enum State {
+        /**
+         * The job waits in the queue, or is being written.
+         */
+        QUEUED,
+        /**
+         * The job was created.
+         */
+        CREATED,
+        /**
+         * The job could not be created.
+         */
+        REJECTED
+    }
+
+    static JobIngestionStatus queued(String id) {
+        return new JobIngestionStatus(id, State.QUEUED, null, null);
+    }
+
+    static JobIngestionStatus rejected(String id, String error) {
+        return new JobIngestionStatus(id, State.REJECTED, null, error);
+    }
+
+    static JobIngestionStatus of(String id, JobImportReport.Item item) {
+        return item.status() == JobImportReport.Status.CREATED
+                ? new JobIngestionStatus(id, State.CREATED, item.id(), null)
+                : rejected(id, item.error());
+    }
+}
@@ -0,0 +1,123 @@
+package com.yarin.springproject.projectspring.service;
+
+import com.yarin.springproject.projectspring.randomuser.Name;
+import com.yarin.springproject.projectspring.randomuser.RandomUser;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+/**
+ * The LocalRandomUserService class generates random users without calling the RandomUser API.
+ *
+ * <p>
+ * The names are picked from the dictionaries bundled in the "randomuser" resources folder, and the emails are made of
+ * the name and a sequence number, such as "olivia.smith42@example.com", so that no two users generated by the same
+ * application run have the same email. Millions of users can be generated per second, so it is also used to create
+ * load-test data.
+ * </p>
+ *
+ * <p>
+ * It is the RandomUserAPIService when randomuser.source is set to "local", and the fallback of the
+ * {@link RemoteRandomUserService} while the API is slow or failing.
+ * </p>
+ */
+@Service
+public class LocalRandomUserService implements RandomUserAPIService {
+    private static final String DOMAIN = "@example.com";
+
+    private final Dictionary female = Dictionary.load("randomuser/female-first-names.txt");
+    private final Dictionary male = Dictionary.load("randomuser/male-first-names.txt");
+    private final Dictionary last = Dictionary.load("randomuser/last-names.txt");
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Generates random users, on the calling thread.
+     *
+     * @param count the number of users, from 1 to {@value #MAX_RESULTS}
+     * @return the random users
+     * @throws IllegalArgumentException if the count is out of range
+     */
+    @Override
+    public List<RandomUser> fetchUsers(int count) {
+        RandomUserAPIService.checkCount(count);
+        return generate(count);
+    }
+
+    /**
+     * Generates any number of random users, on the calling thread.
+     *
+     * @param count the number of users
+     * @return the random users
+     */
+    public List<RandomUser> generate(int count) {
+        return generate(count, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Generates any number of users with the given random generator, on the calling thread.
+     * A new LocalRandomUserService given a generator with a fixed seed always generates the same users, which is how
+     * the synthetic datasets are made reproducible.
+     *
+     * @param count  the number of users
+     * @param random picks the names
+     * @return the users
+     */
+    public List<RandomUser> generate(int count, RandomGenerator random) {
+        long first = sequence.getAndAdd(count);
+        List<RandomUser> users = new ArrayList<>(count);
+        StringBuilder email = new StringBuilder(48);
+        for (int i = 0; i < count; i++) {
+            boolean isFemale = random.nextBoolean();
+            Dictionary firstNames = isFemale ? female : male;
+            int firstName = random.nextInt(firstNames.size());
+            int lastName = random.nextInt(last.size());
+
+            email.setLength(0);
+            email.append(firstNames.lowerCase[firstName]).append('.').append(last.lowerCase[lastName])
+                    .append(first + i).append(DOMAIN);
+            users.add(new RandomUser(email.toString(),
+                    new Name(isFemale ? "Ms" : "Mr", firstNames.names[firstName], last.names[lastName])));
+        }
+        return users;
+    }
+
+    /**
+     * The names of a dictionary, and their lower case form used in the emails.
+     */
+    private record Dictionary(String[] names, String[] lowerCase) {
+        static Dictionary load(String path) {
+            List<String> names = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new ClassPathResource(path).getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        names.add(line.strip());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read the name dictionary " + path, e);
+            }
+            if (names.isEmpty()) {
+                throw new IllegalStateException("The name dictionary " + path + " is empty");
+            }
+            return new Dictionary(names.toArray(String[]::new),
+                    names.stream().map(name -> name.toLowerCase(Locale.ROOT)).toArray(String[]::new));
+        }
+
+        int size() {
+            return names.length;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.yarin.springproject.projectspring.service;
+
+import com.yarin.springproject.projectspring.exception.JobNotFoundException;
+import com.yarin.springproject.projectspring.exception.RecruiterNotFoundException;
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.recruiter.Recruiter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * The MergePatchService applies JSON Merge Patches (RFC 7396) to jobs and recruiters, for the PATCH endpoints.
+ *
+ * <p>
+ * A patch is written with a single update statement that sets the patched columns only and increments the version,
+ * instead of loading the entity, changing it and saving all its columns back. When the request names the versions it
+ * expects (see {@link com.yarin.springproject.projectspring.ConditionalUpdate}), the update only matches the row in
+ * one of these versions, so two clients editing the same entity cannot overwrite each other: the second one gets a
+ * 412 Precondition Failed instead of a lost update, without the version being read first.
+ * </p>
+ *
+ * <p>
+ * The patch is a JSON object whose members are the fields to change; a null member removes the value of the field,
+ * except for the fields a job or a recruiter cannot be without. The values are validated with the constraints of the
+ * entity before the update. The updated entity is then loaded, in the same transaction, to build the response and the
+ * change events.
+ * </p>
+ */
+@Service
+public class MergePatchService {
+    /**
+     * The media type of a JSON Merge Patch.
+     */
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private static final Set<String> JOB_FIELDS = Set.of("title", "salary", "location");
+    private static final Set<String> RECRUITER_FIELDS = Set.of("name", "email");
+    private static final Set<String> REQUIRED_FIELDS = Set.of("title", "name", "email");
+
+    private final EntityManager entityManager;
+    private final Validator validator;
+
+    /**
+     * Constructs a MergePatchService.
+     *
+     * @param entityManager runs the update statements and loads the updated entities
+     * @param validator     checks the patched values against the constraints of the entities
+     */
+    public MergePatchService(EntityManager entityManager, Validator validator) {
+        this.entityManager = entityManager;
+        this.validator = validator;
+    }
+
+    /**
+     * Applies a merge patch to a job. The title, the salary and the location can be patched.
+     *
+     * @param id               the ID of the job
+     * @param patch            the fields to change and their new values
+     * @param expectedVersions the versions the job must be in, or null for any version
+     * @return the updated job, with its company and recruiter
+     * @throws JobNotFoundException    if the job does not exist
+     * @throws ResponseStatusException with a 400 status if the patch is invalid, or a 412 status if the job is not in
+     *                                 one of the expected versions
+     */
+    @Transactional
+    public Job patchJob(long id, Map<String, Object> patch, Set<Long> expectedVersions) {
+        Map<String, Object> values = jobValues(patch, JOB_FIELDS);
+        update(Job.class, id, values, expectedVersions, () -> new JobNotFoundException("id " + id));
+        return entityManager.find(Job.class, id);
+    }
+
+    /**
+     * Validates a merge patch of jobs and turns it into the values of an update statement.
+     * Also used by the {@link JobBulkService}, which patches fewer fields.
+     *
+     * @param patch  the fields to change and their new values
+     * @param fields the fields that can be patched
+     * @return the values to set, by attribute of the job
+     * @throws ResponseStatusException with a 400 status if the patch is invalid
+     */
+    Map<String, Object> jobValues(Map<String, Object> patch, Set<String> fields) {
+        Map<String, Object> values = validate(Job.class, fields, patch);
+        if (values.containsKey("salary")) {
+            // the update statement does not run the callbacks of the entity, which keep this column in sync
+            values.put("salaryThousands", Job.parseSalaryThousands((String) values.get("salary")));
+        }
+        return values;
+    }
+
+    /**
+     * Applies a merge patch to a recruiter. The name and the email can be patched.
+     *
+     * @param id               the ID of the recruiter
+     * @param patch            the fields to change and their new values
+     * @param expectedVersions the versions the recruiter must be in, or null for any version
+     * @return the updated recruiter
+     * @throws RecruiterNotFoundException if the recruiter does not exist
+     * @throws ResponseStatusException    with a 400 status if the patch is invalid, a 409 status if another recruiter
+     *                                    has the patched email, or a 412 status if the recruiter is not in one of the
+     *                                    expected versions
+     */
+    @Transactional
+    public Recruiter patchRecruiter(long id, Map<String, Object> patch, Set<Long> expectedVersions) {
+        Map<String, Object> values = validate(Recruiter.class, RECRUITER_FIELDS, patch);
+        Object email = values.get("email");
+        if (email != null && !entityManager.createQuery("select r.id from Recruiter r where r.email = :email and r.id <> :id")
+                .setParameter("email", email)
+                .setParameter("id", id)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Recruiter with email " + email + " already exists.");
+        }
+        update(Recruiter.class, id, values, expectedVersions, () -> new RecruiterNotFoundException("id " + id));
+        return entityManager.find(Recruiter.class, id);
+    }
+
+    /**
+     * Checks that the patch only has known fields with text values, and that the values meet the constraints of
+     * the entity.
+     *
+     * @return the values to set, by field
+     */
+    private Map<String, Object> validate(Class<?> type, Set<String> fields, Map<String, Object> patch) {
+        if (patch == null || patch.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The patch has no field to change");
+        }
+        List<String> errors = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : patch.entrySet()) {
+            String field = entry.getKey();
+            Object value = entry.getValue();
+            if (!fields.contains(field)) {
+                errors.add(field + " cannot be patched, only " + String.join(", ", fields.stream().sorted().toList())
+                        + " can");
+            } else if (value == null && REQUIRED_FIELDS.contains(field)) {
+                errors.add(field + " cannot be removed");
+            } else if (value != null && !(value instanceof String)) {
+                errors.add(field + " should be a string");
+            } else {
+                for (ConstraintViolation<?> violation : validator.validateValue(type, field, value)) {
+                    errors.add(violation.getMessage());
+                }
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.join(", ", errors));
+        }
+        return new HashMap<>(patch);
+    }
+
+    /**
+     * Sets the given columns of an entity and increments its version, in one statement.
+     * When no row is updated, tells a missing entity from an entity in another version.
+     */
+    private <T> void update(Class<T> type, long id, Map<String, Object> values, Collection<Long> expectedVersions,
+                            Supplier<RuntimeException> notFound) {
+        if (expectedVersions == null || !expectedVersions.isEmpty()) {
+            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+            CriteriaUpdate<T> update = builder.createCriteriaUpdate(type);
+            Root<T> root = update.from(type);
+            values.forEach(update::set); // a null value gets the type of its column
+            update.set(root.<Long>get("version"), builder.sum(root.<Long>get("version"), 1L));
+            Predicate matches = builder.equal(root.get("id"), id);
+            if (expectedVersions != null) {
+                matches = builder.and(matches, root.get("version").in(expectedVersions));
+            }
+            update.where(matches);
+            if (entityManager.createQuery(update).executeUpdate() == 1) {
+                return;
+            }
+        }
+        boolean exists = !entityManager.createQuery("select e.id from " + type.getSimpleName() + " e where e.id = :id")
+                .setParameter("id", id)
+                .getResultList()
+                .isEmpty();
+        if (!exists) {
+            throw notFound.get();
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                "The " + type.getSimpleName().toLowerCase() + " " + id + " was changed since the version in If-Match");
+    }
+}
@@ -1,60 +1,68 @@
 package com.yarin.springproject.projectspring.service;
 
 import com.yarin.springproject.projectspring.randomuser.RandomUser;
-import com.yarin.springproject.projectspring.randomuser.RandomUserResponse;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.scheduling.annotation.Async;
-import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
-/**
- * The RandomUserAPIService class is responsible for interacting with the RandomUser API
- * to retrieve random user data.
-
- * <p>
- * This service is used by the RecruiterController, which is a RESTful API controller.
- * When the RecruiterController receives a specific POST request to add a random user,
- * it calls the getRecruiters() method of RandomUserAPIService. This method sends a request
- * to the RandomUser API and retrieves a random user. The response is then converted to the
- * desired type, Recruiter, using the 'middle-class-converter'.
- * </p>
 
+/**
+ * The RandomUserAPIService interface provides the random users the random recruiters are made of.
+ *
  * <p>
- * This class is annotated with @Service to indicate that it is a service component in the application.
+ * There are two implementations, selected with the "randomuser.source" property (see {@link RandomUserProperties}):
+ * the {@link RemoteRandomUserService}, which calls the RandomUser API and is the default, and the
+ * {@link LocalRandomUserService}, which generates the users locally. The remote service falls back to the local one
+ * while the API is slow or failing.
  * </p>
  */
-@Service
-public class RandomUserAPIService {
-    private final RestTemplate restTemplate; // main class that help us to call Rest API
-    private static final Logger serviceLogger = LoggerFactory.getLogger(RandomUserAPIService.class);
+public interface RandomUserAPIService {
     /**
-     * Constructs a new RandomUserAPIService with the provided RestTemplateBuilder.
+     * The largest number of users fetched with a single call, which is the limit of the RandomUser API.
+     */
+    int MAX_RESULTS = 5000;
+
+    /**
+     * Retrieves random users, on the calling thread.
      *
-     * @param templateBuilder the RestTemplateBuilder used to build the RestTemplate instance
+     * @param count the number of users, from 1 to {@value #MAX_RESULTS}
+     * @return the random users
+     * @throws IllegalArgumentException if the count is out of range
      */
-    public RandomUserAPIService(RestTemplateBuilder templateBuilder){
-        this.restTemplate = templateBuilder.build();
-    }
+    List<RandomUser> fetchUsers(int count);
+
     /**
-     * Retrieves a random user from the RandomUser API.
+     * Retrieves a random user.
      * This method is asynchronous and returns a CompletableFuture.
      *
      * @return a CompletableFuture that will be completed with the random user
      */
     @Async
-    public CompletableFuture<RandomUser> getRecruiters() {
-        System.out.println("I am at method getRecruiters: ");
-        String apiUrl = "https://randomuser.me/api";
+    default CompletableFuture<RandomUser> getRecruiters() {
+        return CompletableFuture.completedFuture(fetchUsers(1).get(0));
+    }
 
-        RandomUserResponse response = this.restTemplate.getForObject(apiUrl, RandomUserResponse.class);
-        RandomUser randomUser = response.getResults().get(0); // Assuming you only want the first user
-        System.out.println("Retrieved data from the API.");
-        serviceLogger.info("Running in thread = " + Thread.currentThread().getName());
-        System.out.println("About to return this data.");
+    /**
+     * Retrieves random users.
+     * This method is asynchronous and returns a CompletableFuture.
+     *
+     * @param count the number of users, from 1 to {@value #MAX_RESULTS}
+     * @return a CompletableFuture that will be completed with the random users
+     */
+    @Async
+    default CompletableFuture<List<RandomUser>> getRecruiters(int count) {
+        return CompletableFuture.completedFuture(fetchUsers(count));
+    }
 
-        return CompletableFuture.completedFuture(randomUser);
+    /**
+     * Checks the number of users requested from a RandomUserAPIService.
+     *
+     * @param count the number of users
+     * @throws IllegalArgumentException if the count is not between 1 and {@value #MAX_RESULTS}
+     */
+    static void checkCount(int count) {
+        if (count < 1 || count > MAX_RESULTS) {
+            throw new IllegalArgumentException("count must be between 1 and " + MAX_RESULTS + ", got " + count);
+        }
     }
 }
@@ -0,0 +1,135 @@
+package com.yarin.springproject.projectspring.service;
+
+import com.yarin.springproject.projectspring.randomuser.RandomUser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A bounded buffer of random users fetched ahead of time, so that creating a random recruiter takes a user from memory
+ * instead of waiting for a call to the random user API.
+ *
+ * <p>
+ * The buffer holds up to {@link RandomUserProperties#bufferCapacity()} users. When it falls below
+ * {@link RandomUserProperties#bufferLowWatermark()}, a background task on the @Async executor fills it up again with a
+ * single call to the API. Only one refill runs at a time. When the buffer is empty, because the users are taken faster
+ * than they are fetched or because the API is failing, a user is fetched on the calling thread instead.
+ * </p>
+ *
+ * <p>
+ * The buffer is filled when the application is ready. Its depth is exposed as the "randomuser.buffer.size" gauge, the
+ * time a refill takes as the "randomuser.buffer.refill" timer, and the users fetched on the calling thread as the
+ * "randomuser.buffer.misses" counter.
+ * </p>
+ */
+@Service
+public class RandomUserBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(RandomUserBuffer.class);
+
+    private final RandomUserAPIService randomUserAPIService;
+    private final TaskExecutor taskExecutor;
+    private final int capacity;
+    private final int lowWatermark;
+    private final BlockingQueue<RandomUser> users;
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private final Timer refillTimer;
+    private final Counter misses;
+
+    /**
+     * Constructs a RandomUserBuffer.
+     *
+     * @param randomUserAPIService fetches the users
+     * @param taskExecutor         runs the refills in the background
+     * @param properties           the capacity and the low watermark of the buffer
+     * @param meterRegistry        registers the metrics of the buffer
+     */
+    public RandomUserBuffer(RandomUserAPIService randomUserAPIService,
+                            @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                            RandomUserProperties properties, MeterRegistry meterRegistry) {
+        this.randomUserAPIService = randomUserAPIService;
+        this.taskExecutor = taskExecutor;
+        this.capacity = properties.bufferCapacity();
+        this.lowWatermark = properties.bufferLowWatermark();
+        this.users = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        Gauge.builder("randomuser.buffer.size", users, BlockingQueue::size)
+                .description("The number of random users fetched ahead of time")
+                .register(meterRegistry);
+        this.refillTimer = Timer.builder("randomuser.buffer.refill")
+                .description("The time it takes to refill the buffer of random users")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.misses = Counter.builder("randomuser.buffer.misses")
+                .description("The random users fetched on the calling thread because the buffer was empty")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Fills the buffer when the application starts.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void fill() {
+        refillIfLow();
+    }
+
+    /**
+     * Takes a random user from the buffer, or fetches one if the buffer is empty.
+     *
+     * @return the random user
+     * @throws org.springframework.web.client.RestClientException if the buffer is empty and the fetch fails
+     */
+    public RandomUser take() {
+        RandomUser user = users.poll();
+        refillIfLow();
+        if (user == null) {
+            misses.increment();
+            user = randomUserAPIService.fetchUsers(1).get(0);
+        }
+        return user;
+    }
+
+    /**
+     * @return the number of users in the buffer
+     */
+    public int size() {
+        return users.size();
+    }
+
+    private void refillIfLow() {
+        if (capacity > 0 && users.size() < lowWatermark && refilling.compareAndSet(false, true)) {
+            try {
+                taskExecutor.execute(this::refill);
+            } catch (RuntimeException e) {
+                refilling.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void refill() {
+        try {
+            int count = Math.min(RandomUserAPIService.MAX_RESULTS, capacity - users.size());
+            if (count > 0) {
+                List<RandomUser> fetched = refillTimer.record(() -> randomUserAPIService.fetchUsers(count));
+                fetched.forEach(users::offer); // the users that do not fit any more are dropped
+                logger.debug("Refilled the random user buffer with {} users", fetched.size());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not refill the random user buffer: {}", e.getMessage());
+        } finally {
+            refilling.set(false);
+        }
+    }
+}
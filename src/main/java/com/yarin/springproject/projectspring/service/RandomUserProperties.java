@@ -0,0 +1,45 @@
+package com.yarin.springproject.projectspring.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * The settings of the RandomUserAPIService, bound from the "randomuser.*" properties.
+ *
+ * @param source         where the random users come from, the RandomUser API by default
+ * @param baseUrl        the URL of the random user API, without the "/api" path; tests point it to a local stub server
+ * @param connectTimeout how long to wait for a connection to the API
+ * @param readTimeout    how long to wait for the data of a response
+ * @param maxConnections the number of connections kept open to the API
+ * @param bufferCapacity the number of users fetched ahead of time by the RandomUserBuffer, 0 to disable it
+ * @param bufferLowWatermark the number of buffered users below which the buffer is refilled
+ * @param slowCallThreshold a call to the API taking longer than this makes the remote service fall back
+ * @param fallbackDuration how long the users are generated locally after the API was slow or failing
+ */
+@ConfigurationProperties("randomuser")
+public record RandomUserProperties(@DefaultValue("remote") Source source,
+                                   @DefaultValue("https://randomuser.me") URI baseUrl,
+                                   @DefaultValue("2s") Duration connectTimeout,
+                                   @DefaultValue("10s") Duration readTimeout,
+                                   @DefaultValue("20") int maxConnections,
+                                   @DefaultValue("200") int bufferCapacity,
+                                   @DefaultValue("50") int bufferLowWatermark,
+                                   @DefaultValue("3s") Duration slowCallThreshold,
+                                   @DefaultValue("1m") Duration fallbackDuration) {
+    /**
+     * Where the random users come from.
+     */
+    public enum Source {
+        /**
+         * The RandomUser API, see {@link RemoteRandomUserService}.
+         */
+        REMOTE,
+        /**
+         * Generated locally, see {@link LocalRandomUserService}.
+         */
+        LOCAL
+    }
+}
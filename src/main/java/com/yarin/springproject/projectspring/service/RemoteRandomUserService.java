@@ -0,0 +1,147 @@
+package com.yarin.springproject.projectspring.service;
+
+import com.yarin.springproject.projectspring.randomuser.RandomUser;
+import com.yarin.springproject.projectspring.randomuser.RandomUserResponse;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+/**
+ * The RemoteRandomUserService class is responsible for interacting with the RandomUser API
+ * to retrieve random user data.
+
+ * <p>
+ * This service is used by the RecruiterController, which is a RESTful API controller.
+ * When the RecruiterController receives a specific POST request to add a random user,
+ * it calls the getRecruiters() method of RandomUserAPIService. This method sends a request
+ * to the RandomUser API and retrieves a random user. The response is then converted to the
+ * desired type, Recruiter, using the 'middle-class-converter'.
+ * </p>
+
+ * <p>
+ * The requests go through a pool of keep-alive connections, so that successive calls do not pay for a new TCP and TLS
+ * handshake, with the timeouts and the URL of the API taken from the "randomuser.*" properties (see
+ * {@link RandomUserProperties}). Many users are fetched with a single call, using the "results" parameter of the API,
+ * and only the name and email of the users are requested.
+ * </p>
+
+ * <p>
+ * When a call fails, or takes longer than randomuser.slow-call-threshold, the users are generated by the
+ * {@link LocalRandomUserService} instead, and the API is not called again for randomuser.fallback-duration, so that
+ * the requests do not wait for a timeout on every call while the API is unreachable.
+ * </p>
+
+ * <p>
+ * This class is annotated with @Service to indicate that it is a service component in the application. It is the
+ * primary RandomUserAPIService, unless randomuser.source is set to "local".
+ * </p>
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "randomuser.source", havingValue = "remote", matchIfMissing = true)
+public class RemoteRandomUserService implements RandomUserAPIService {
+    private final CloseableHttpClient httpClient;
+    private final RestTemplate restTemplate; // main class that help us to call Rest API
+    private final LocalRandomUserService fallback;
+    private final Duration slowCallThreshold;
+    private final Duration fallbackDuration;
+    private volatile long fallbackUntil = System.nanoTime(); // the API is called again from this System.nanoTime()
+    private static final Logger serviceLogger = LoggerFactory.getLogger(RemoteRandomUserService.class);
+    /**
+     * Constructs a new RemoteRandomUserService with the provided RestTemplateBuilder.
+     *
+     * @param templateBuilder the RestTemplateBuilder used to build the RestTemplate instance
+     * @param properties      the URL of the API, the timeouts, the size of the connection pool and when to fall back
+     * @param fallback        generates the users while the API is slow or failing
+     */
+    public RemoteRandomUserService(RestTemplateBuilder templateBuilder, RandomUserProperties properties,
+                                   LocalRandomUserService fallback){
+        this.fallback = fallback;
+        this.slowCallThreshold = properties.slowCallThreshold();
+        this.fallbackDuration = properties.fallbackDuration();
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(properties.maxConnections())
+                        .setMaxConnPerRoute(properties.maxConnections())
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(Timeout.of(properties.connectTimeout()))
+                                .setSocketTimeout(Timeout.of(properties.readTimeout()))
+                                .build())
+                        .build())
+                .evictIdleConnections(TimeValue.ofMinutes(1))
+                .build();
+        this.restTemplate = templateBuilder
+                .rootUri(properties.baseUrl().toString())
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build();
+    }
+    /**
+     * Retrieves random users from the RandomUser API, with a single call, on the calling thread.
+     * The users are generated locally instead while the API is slow or failing.
+     *
+     * @param count the number of users, from 1 to {@value #MAX_RESULTS}
+     * @return the random users
+     * @throws IllegalArgumentException if the count is out of range
+     */
+    @Override
+    public List<RandomUser> fetchUsers(int count) {
+        RandomUserAPIService.checkCount(count);
+        if (System.nanoTime() - fallbackUntil < 0) {
+            return fallback.fetchUsers(count);
+        }
+        long start = System.nanoTime();
+        try {
+            List<RandomUser> users = callApi(count);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            if (elapsed.compareTo(slowCallThreshold) > 0) {
+                fallBack("the call took " + elapsed.toMillis() + " ms");
+            }
+            return users;
+        } catch (RestClientException | IllegalStateException e) {
+            fallBack(e.getMessage());
+            return fallback.fetchUsers(count);
+        }
+    }
+
+    private void fallBack(String reason) {
+        fallbackUntil = System.nanoTime() + fallbackDuration.toNanos();
+        serviceLogger.warn("The random user API is slow or failing ({}), generating the users locally for {}",
+                reason, fallbackDuration);
+    }
+
+    private List<RandomUser> callApi(int count) {
+        RandomUserResponse response = this.restTemplate.getForObject("/api/?results={count}&inc=name,email",
+                RandomUserResponse.class, count);
+        if (response == null || response.getResults() == null || response.getResults().isEmpty()) {
+            throw new IllegalStateException("The random user API returned no users");
+        }
+        serviceLogger.info("Retrieved {} random users in thread = {}", response.getResults().size(),
+                Thread.currentThread().getName());
+        return response.getResults();
+    }
+    /**
+     * Closes the pooled connections to the API.
+     *
+     * @throws IOException if a connection cannot be closed
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        httpClient.close();
+    }
+}
@@ -1,11 +1,26 @@
 package com.yarin.springproject.projectspring.service;
 
+import com.yarin.springproject.projectspring.company.CompaniesChangedEvent;
 import com.yarin.springproject.projectspring.company.Company;
 import com.yarin.springproject.projectspring.company.CompanyRepo;
+import com.yarin.springproject.projectspring.exception.RecruiterNotFoundException;
 import com.yarin.springproject.projectspring.job.JobRepo;
 import com.yarin.springproject.projectspring.recruiter.Recruiter;
 import com.yarin.springproject.projectspring.recruiter.RecruiterRepo;
+import com.yarin.springproject.projectspring.recruiter.RecruitersChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
 /**
  * The TalentService is a service class that provides functionality related to talent management.
  * It is used by the JobController and RecruiterController, both of which are RESTful API controllers.
@@ -24,26 +39,65 @@ import org.springframework.stereotype.Service;
  * </p>
  *
  * <p>
+ * Companies by name and recruiters by email are looked up on every job creation, so their IDs are cached
+ * (see the {@value #COMPANY_IDS_BY_NAME} and {@value #RECRUITER_IDS_BY_EMAIL} caches, configured in
+ * application.properties). Missing keys are not cached, so only an entity that is renamed or deleted leaves a stale
+ * entry: a RecruitersChangedEvent carries the previous emails of the updated and deleted recruiters, whose entries are
+ * dropped by key. An ID is loaded atomically for its key, so an entry dropped while it is being loaded is dropped once
+ * the load is done, and not overwritten by it.
+ * </p>
+ *
+ * <p>
  * The TalentService class is annotated with @Service to indicate that it is a service component in the application.
  * </p>
  */
 @Service
 public class TalentService {
+    /**
+     * The name of the cache of company IDs by company name.
+     */
+    public static final String COMPANY_IDS_BY_NAME = "companyIdsByName";
+
+    /**
+     * The name of the cache of recruiter IDs by recruiter email.
+     */
+    public static final String RECRUITER_IDS_BY_EMAIL = "recruiterIdsByEmail";
+
+    private static final String INSERT_MISSING_LINK = "insert into company_recruiter (company_id, recruiter_id) "
+            + "select ?, ? where not exists "
+            + "(select 1 from company_recruiter where company_id = ? and recruiter_id = ?)";
+
+    private static final String TOUCH_RECRUITER = "update recruiter set version = version + 1 where id = ?";
+
+    private static final String TOUCH_COMPANIES_OF_RECRUITER = "update company set version = version + 1 "
+            + "where id in (select company_id from company_recruiter where recruiter_id = ?)";
+
+    private static final String DELETE_LINKS_OF_RECRUITER = "delete from company_recruiter where recruiter_id = ?";
+
     private final JobRepo jobRepo;
     private final CompanyRepo companyRepo;
     private final RecruiterRepo recruiterRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<Object, Object> companyIdsByName;
+    private final Cache<Object, Object> recruiterIdsByEmail;
     /**
      * Constructs a new TalentService with the provided repositories.
      *
      * @param jobRepo the repository for managing job entities
      * @param companyRepo the repository for managing company entities
      * @param recruiterRepo the repository for managing recruiter entities
+     * @param jdbcTemplate used to link recruiters to companies, and unlink them, without loading their collections
+     * @param cacheManager provides the caches of the natural key lookups, which must be Caffeine caches
      */
 
-    public TalentService(JobRepo jobRepo, CompanyRepo companyRepo, RecruiterRepo recruiterRepo) {
+    public TalentService(JobRepo jobRepo, CompanyRepo companyRepo, RecruiterRepo recruiterRepo,
+                         JdbcTemplate jdbcTemplate, CacheManager cacheManager) {
         this.jobRepo = jobRepo;
         this.companyRepo = companyRepo;
         this.recruiterRepo = recruiterRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.companyIdsByName = caffeine(cacheManager, COMPANY_IDS_BY_NAME);
+        this.recruiterIdsByEmail = caffeine(cacheManager, RECRUITER_IDS_BY_EMAIL);
     }
     /**
      * Checks if the given company already exists in the repository.
@@ -89,6 +143,136 @@ public class TalentService {
         return recruiterRepo.save(recruiter);
     }
 
+    /**
+     * Saves the given recruiters whose email is not used yet, in one transaction.
+     * The existing emails are looked up with a single query and the new recruiters are inserted in JDBC batches.
+     * When several of the given recruiters have the same email, only the first one is saved.
+     *
+     * @param recruiters the recruiters to save
+     * @return the saved recruiters, in the given order
+     */
+    @Transactional
+    public List<Recruiter> saveRecruitersWithNewEmails(Collection<Recruiter> recruiters) {
+        Map<String, Recruiter> byEmail = new LinkedHashMap<>();
+        recruiters.forEach(recruiter -> byEmail.putIfAbsent(recruiter.getEmail(), recruiter));
+        recruiterRepo.findByEmailIn(byEmail.keySet()).forEach(existing -> byEmail.remove(existing.getEmail()));
+        return recruiterRepo.saveAll(byEmail.values());
+    }
+
+    /**
+     * Finds the ID of the company with the given name, from the cache when possible.
+     *
+     * @param name the name of the company
+     * @return the ID of the company, or empty if there is no company with that name
+     */
+    public Optional<Long> findCompanyIdByName(String name) {
+        return lookup(companyIdsByName, name, () -> companyRepo.findByName(name).map(Company::getId));
+    }
+
+    /**
+     * Finds the ID of the recruiter with the given email, from the cache when possible.
+     *
+     * @param email the email of the recruiter
+     * @return the ID of the recruiter, or empty if there is no recruiter with that email
+     */
+    public Optional<Long> findRecruiterIdByEmail(String email) {
+        return lookup(recruiterIdsByEmail, email, () -> recruiterRepo.findByEmail(email).map(Recruiter::getId));
+    }
+
+    /**
+     * Associates a recruiter with a company, unless they are already associated.
+     * Unlike Recruiter.addCompany, this does not load the recruiters of the company nor the companies of the recruiter,
+     * it runs a single insert. A new link increments the version of the recruiter, whose ETag lists its companies.
+     *
+     * @param companyId   the ID of the company
+     * @param recruiterId the ID of the recruiter
+     * @return true if the association was inserted, false if it already existed
+     */
+    @Transactional
+    public boolean linkRecruiterToCompany(Long companyId, Long recruiterId) {
+        if (jdbcTemplate.update(INSERT_MISSING_LINK, companyId, recruiterId, companyId, recruiterId) != 1) {
+            return false;
+        }
+        touchRecruiters(List.of(recruiterId));
+        return true;
+    }
+
+    /**
+     * Increments the versions of the given recruiters, whose links to companies were changed with JDBC.
+     *
+     * @param recruiterIds the IDs of the recruiters
+     */
+    public void touchRecruiters(Collection<Long> recruiterIds) {
+        if (!recruiterIds.isEmpty()) {
+            jdbcTemplate.batchUpdate(TOUCH_RECRUITER, recruiterIds.stream().map(id -> new Object[]{id}).toList());
+        }
+    }
+
+    /**
+     * Deletes a recruiter together with its jobs and its links to companies, in one transaction.
+     * Nothing is loaded: the jobs, the company links and the recruiter are deleted by one statement each, so deleting
+     * a recruiter with thousands of jobs costs a few statements instead of one per job. The companies of the recruiter
+     * get a new version, as when the recruiter is removed from their collections.
+     *
+     * @param id the ID of the recruiter
+     * @return the IDs of the deleted jobs
+     * @throws RecruiterNotFoundException if the recruiter does not exist, in which case nothing is deleted
+     */
+    @Transactional
+    public List<Long> deleteRecruiter(Long id) {
+        List<Long> jobIds = jobRepo.findIdsByRecruiterId(id);
+        jobRepo.deleteInBulkByRecruiterId(id);
+        jdbcTemplate.update(TOUCH_COMPANIES_OF_RECRUITER, id);
+        jdbcTemplate.update(DELETE_LINKS_OF_RECRUITER, id);
+        if (recruiterRepo.deleteInBulkById(id) == 0) {
+            throw new RecruiterNotFoundException("Recruiter not found with ID: " + id);
+        }
+        return jobIds;
+    }
+
+    /**
+     * Drops the cached IDs of the deleted companies. Companies are only created, never renamed, and the event does not
+     * carry the names of deleted companies, so the whole cache is dropped then (no endpoint deletes companies yet).
+     *
+     * @param event the event describing the changed companies
+     */
+    @EventListener
+    public void onCompaniesChanged(CompaniesChangedEvent event) {
+        if (!event.deletedIds().isEmpty()) {
+            companyIdsByName.invalidateAll();
+        }
+    }
+
+    /**
+     * Drops the cached IDs of the previous emails of the updated and deleted recruiters.
+     *
+     * @param event the event describing the changed recruiters
+     */
+    @EventListener
+    public void onRecruitersChanged(RecruitersChangedEvent event) {
+        recruiterIdsByEmail.invalidateAll(event.previousEmails());
+    }
+
+    /**
+     * Returns the cached ID of the key, or loads it. The load runs while the key is locked, so that dropping the key
+     * meanwhile waits for it, and a null (missing) ID is not cached, since the entity is about to be created.
+     */
+    private static Optional<Long> lookup(Cache<Object, Object> cache, String key, Supplier<Optional<Long>> query) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable((Long) cache.get(key, k -> query.get().orElse(null)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cache<Object, Object> caffeine(CacheManager cacheManager, String name) {
+        org.springframework.cache.Cache cache = cacheManager.getCache(name);
+        if (cache == null || !(cache.getNativeCache() instanceof Cache<?, ?> caffeine)) {
+            throw new IllegalStateException("The " + name + " cache is not a Caffeine cache");
+        }
+        return (Cache<Object, Object>) caffeine;
+    }
+
     /**
      * Returns the JobRepo instance associated with this TalentService.
      *
@@ -0,0 +1,535 @@
+package com.yarin.springproject.projectspring;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yarin.springproject.projectspring.randomuser.RandomUser;
+import com.yarin.springproject.projectspring.service.LocalRandomUserService;
+import com.yarin.springproject.projectspring.service.MergePatchService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives a mix of reads and writes across all the endpoints of the JobController and the RecruiterController, with
+ * many clients sending requests at the same time, and reports the throughput and the p50/p99/p999 latency of every
+ * endpoint. The results are written to target/load-report.properties and compared with the baseline stored in
+ * src/test/resources/load-baseline.properties: the test fails when an endpoint got slower or less reliable than the
+ * baseline, beyond the tolerance.
+ *
+ * <p>
+ * The application is started in this JVM with the local random user generator and seeded with a
+ * {@link SyntheticDataset} of the given number of jobs, unless -DloadTarget gives the URL of a running instance, to which
+ * the same dataset is added through the bulk import API. Every client sends a request as soon as it got the answer to the previous one, picking the endpoint at random
+ * with the weights of {@link #scenarios()}; the latencies are recorded after the warm-up only.
+ * </p>
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=EndpointLoadBenchmarkTest, optionally with
+ * -DargLine="-DloadClients=16 -DloadJobs=5000 -DloadWarmUpSeconds=20 -DloadMeasureSeconds=60 -DloadTolerance=1.5
+ * -DloadTarget=http://localhost:8080 -DupdateLoadBaseline=true"; the last one stores the results as the new baseline.
+ */
+@Tag("benchmark")
+class EndpointLoadBenchmarkTest {
+	private static final int CLIENTS = Integer.getInteger("loadClients", 16);
+	private static final int JOBS = Integer.getInteger("loadJobs", 5_000);
+	private static final Duration WARM_UP = Duration.ofSeconds(Integer.getInteger("loadWarmUpSeconds", 20));
+	private static final Duration MEASURE = Duration.ofSeconds(Integer.getInteger("loadMeasureSeconds", 60));
+	private static final double TOLERANCE = Double.parseDouble(System.getProperty("loadTolerance", "1.5"));
+	private static final double SLACK_MILLIS = 10; // latencies this close to the baseline are never regressions
+	private static final Path BASELINE = Path.of("src/test/resources/load-baseline.properties");
+	private static final Path REPORT = Path.of("target/load-report.properties");
+
+	private static final int JOBS_PER_RECRUITER = 5;
+	private static final int COMPANIES = 50;
+	private static final SeedProperties DATASET = new SeedProperties(SeedProperties.Mode.SYNTHETIC, 42, COMPANIES,
+			Math.max(1, JOBS / JOBS_PER_RECRUITER), JOBS, 1.0, 1.2);
+	private static final String[] TITLES = {"Java", "Backend", "Frontend", "Fullstack", "DevOps", "Data", "Android",
+			"QA Automation", "Embedded", "Security"};
+	private static final String[] LEVELS = {"Junior", "Senior", "Lead", "Principal", "Student"};
+	private static final String[] LOCATIONS = {"Tel-Aviv", "Haifa", "Jerusalem", "Herzliya", "Yokneam", "Holon",
+			"Petah Tikva", "Beer Sheva"};
+	/**
+	 * The location of the jobs created by createJobs, which deleteJobs removes, so that the bulk delete never removes
+	 * the jobs the other scenarios read and update.
+	 */
+	private static final String REMOVABLE_LOCATION = "Remote";
+	private static final Pattern RECRUITER_LINK = Pattern.compile("/recruiters/(\\d+)/info");
+	private static final Pattern CREATED_ID = Pattern.compile("/(\\d+)$");
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(30))
+			.build();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final LocalRandomUserService randomUsers = new LocalRandomUserService();
+	private final SyntheticDataset dataset = new SyntheticDataset(DATASET);
+
+	private String baseUrl;
+	private final List<Long> jobIds = new ArrayList<>();
+	private final List<Long> recruiterIds = new ArrayList<>();
+	private final Queue<Long> createdJobIds = new ConcurrentLinkedQueue<>();
+	private final Queue<Long> createdRecruiterIds = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * An endpoint and how to call it.
+	 *
+	 * @param name     the name of the controller method, used in the report and the baseline
+	 * @param weight   how often the endpoint is called, relative to the others
+	 * @param request  builds the next request, or returns null when the endpoint cannot be called now
+	 * @param expected the status codes of a successful call
+	 */
+	private record Scenario(String name, int weight, Supplier<HttpRequest> request, IntPredicate expected) {
+	}
+
+	private static final class Stats {
+		final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+		final AtomicLong errors = new AtomicLong();
+	}
+
+	private record Result(long requests, double requestsPerSecond, double p50Millis, double p99Millis,
+						  double p999Millis, double errorRate) {
+	}
+
+	@Test
+	void mixedReadsAndWrites() throws Exception {
+		String target = System.getProperty("loadTarget");
+		if (target != null) {
+			baseUrl = target.replaceAll("/$", "");
+			seedThroughTheApi();
+			run();
+			return;
+		}
+		long start = System.nanoTime();
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ProjectSpringApplication.class)
+				.run("--server.port=0", "--spring.jmx.enabled=false", "--randomuser.source=local",
+						"--spring.datasource.url=jdbc:h2:mem:load", "--seed.mode=synthetic",
+						"--seed.random-seed=" + DATASET.randomSeed(), "--seed.companies=" + DATASET.companies(),
+						"--seed.recruiters=" + DATASET.recruiters(), "--seed.jobs=" + DATASET.jobs(),
+						"--seed.company-skew=" + DATASET.companySkew(), "--seed.location-skew=" + DATASET.locationSkew())) {
+			baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+			for (long id = 1; id <= DATASET.jobs(); id++) {
+				jobIds.add(id);
+			}
+			dataset.recruiters().forEach(recruiter -> recruiterIds.add(recruiter.id()));
+			System.out.printf("Started and seeded %d jobs and %d recruiters in %d ms%n", jobIds.size(),
+					recruiterIds.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			run();
+		}
+	}
+
+	private void run() throws Exception {
+		List<Scenario> scenarios = scenarios();
+		Map<String, Result> results = load(scenarios);
+		print(results);
+		Properties report = toProperties(results);
+		Files.createDirectories(REPORT.getParent());
+		store(report, REPORT);
+		if (Boolean.getBoolean("updateLoadBaseline")) {
+			store(report, BASELINE);
+			System.out.println("Stored the results as the new baseline in " + BASELINE);
+		} else {
+			compareWithBaseline(report);
+		}
+	}
+
+	/**
+	 * Creates the jobs of the dataset with POST /jobs/bulk, 500 at a time, and collects the IDs of the jobs and of the
+	 * recruiters.
+	 */
+	private void seedThroughTheApi() throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		List<SyntheticDataset.JobRow> jobs = new ArrayList<>(JOBS);
+		dataset.forEachJob(jobs::add);
+		for (int from = 0; from < jobs.size(); from += 500) {
+			List<Map<String, Object>> chunk = jobs.subList(from, Math.min(from + 500, jobs.size())).stream()
+					.map(this::job)
+					.toList();
+			HttpResponse<String> response = client.send(post("/jobs/bulk", chunk), HttpResponse.BodyHandlers.ofString());
+			assertEquals(200, response.statusCode(), response.body());
+			objectMapper.readTree(response.body()).path("items")
+					.forEach(item -> {
+						if (item.has("id")) {
+							jobIds.add(item.get("id").asLong());
+						}
+					});
+		}
+		HttpResponse<String> response = client.send(get("/recruiters/info"), HttpResponse.BodyHandlers.ofString());
+		for (JsonNode href : objectMapper.readTree(response.body()).findValues("href")) {
+			Matcher matcher = RECRUITER_LINK.matcher(href.asText());
+			if (matcher.find()) {
+				recruiterIds.add(Long.parseLong(matcher.group(1)));
+			}
+		}
+		assertTrue(jobIds.size() >= JOBS * 0.99, "only " + jobIds.size() + " of " + JOBS + " jobs were created");
+		System.out.printf("Seeded %d jobs and %d recruiters in %d ms%n", jobIds.size(), recruiterIds.size(),
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
+
+	/**
+	 * The endpoints and their weights: about 80% reads and 20% writes.
+	 */
+	private List<Scenario> scenarios() {
+		IntPredicate ok = status -> status >= 200 && status < 300 || status == 304;
+		IntPredicate createdOrConflict = status -> ok.test(status) || status == 409;
+		IntPredicate okOrGone = status -> ok.test(status) || status == 404; // deleted by another client meanwhile
+		return List.of(
+				// JobController
+				new Scenario("allJobs", 8, () -> get("/jobs?after=" + randomJobId()), ok),
+				new Scenario("allJobsInfo", 8, () -> get("/jobs/info?after=" + randomJobId()), ok),
+				new Scenario("exportJobs", 1, () -> get("/jobs/export"), ok),
+				new Scenario("singleJobInfo", 15, () -> get("/jobs/" + randomJobId() + "/info"), ok),
+				new Scenario("jobByPartialTitle", 6, () -> get("/jobs/" + encode(random(TITLES).split(" ")[0])), ok),
+				new Scenario("searchJobs", 6, () -> get("/jobs/search?title=" + encode(random(TITLES))
+						+ "&location=" + encode(random(LOCATIONS))), ok),
+				new Scenario("jobsByRecruiter", 4, () -> get("/jobs/byrecruiter/"
+						+ encode(randomRecruiter().name().replaceAll(".* ", ""))), ok),
+				new Scenario("jobsByCompany", 4, () -> get("/jobs/bycompany/" + encode(randomCompany())), ok),
+				new Scenario("createJob", 4, () -> post("/jobs", job(randomRecruiter())), ok),
+				new Scenario("acceptJob", 4, () -> request("/jobs").header("Prefer", "respond-async")
+						.POST(json(job(randomRecruiter()))).build(), ok),
+				new Scenario("createJobs", 1, () -> post("/jobs/bulk", List.of(job(randomRecruiter(), REMOVABLE_LOCATION),
+						job(randomRecruiter(), REMOVABLE_LOCATION), job(randomRecruiter(), REMOVABLE_LOCATION))), ok),
+				new Scenario("updateJob", 3, () -> put("/jobs/" + randomJobId(),
+						Map.of("salary", ThreadLocalRandom.current().nextInt(10, 50) + "K")), ok),
+				new Scenario("patchJob", 3, () -> patch("/jobs/" + randomJobId(),
+						Map.of("salary", ThreadLocalRandom.current().nextInt(10, 50) + "K")), ok),
+				new Scenario("deleteJob", 2, () -> delete("/jobs/", createdJobIds.poll()), ok),
+				new Scenario("patchJobs", 1, () -> {
+					int salary = ThreadLocalRandom.current().nextInt(10, 50);
+					return patch("/jobs?location=" + encode(random(LOCATIONS)) + "&minSalary=" + salary
+							+ "&maxSalary=" + salary, Map.of("salary", salary + "K"));
+				}, ok),
+				new Scenario("deleteJobs", 1, () -> request("/jobs?location=" + encode(REMOVABLE_LOCATION))
+						.DELETE().build(), ok),
+				// RecruiterController
+				new Scenario("allRecruiters", 1, () -> get("/recruiters"), ok),
+				new Scenario("allRecruitersInfo", 1, () -> get("/recruiters/info"), ok),
+				new Scenario("singleRecruiterInfo", 10, () -> get("/recruiters/" + random(recruiterIds) + "/info"), ok),
+				new Scenario("recruitersByCompany", 4, () -> get("/recruiters/bycompany/" + encode(randomCompany())), ok),
+				new Scenario("createRecruiter", 2, () -> {
+					RandomUser user = randomUsers.generate(1).get(0);
+					return post("/recruiters", Map.of("name", user.getName().getFirst() + " " + user.getName().getLast(),
+							"email", "load." + user.getEmail()));
+				}, ok),
+				new Scenario("createRandomRecruiter", 2, () -> post("/recruiters/randomUser", null), createdOrConflict),
+				new Scenario("createRandomRecruiters", 1, () -> post("/recruiters/randomUser?count=10", null), ok),
+				new Scenario("updateRecruiter", 2, () -> {
+					Long id = createdRecruiterIds.peek();
+					return id == null ? null : put("/recruiters/" + id, Map.of("name", "Updated " + id));
+				}, okOrGone),
+				new Scenario("deleteRecruiter", 1, () -> delete("/recruiters/", createdRecruiterIds.poll()), ok));
+	}
+
+	private Map<String, Result> load(List<Scenario> scenarios) throws InterruptedException {
+		int[] cumulativeWeights = new int[scenarios.size()];
+		Map<String, Stats> stats = new LinkedHashMap<>();
+		int total = 0;
+		for (int i = 0; i < scenarios.size(); i++) {
+			total += scenarios.get(i).weight();
+			cumulativeWeights[i] = total;
+			stats.put(scenarios.get(i).name(), new Stats());
+		}
+		int totalWeight = total;
+
+		long measureFrom = System.nanoTime() + WARM_UP.toNanos();
+		long end = measureFrom + MEASURE.toNanos();
+		ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+		for (int c = 0; c < CLIENTS; c++) {
+			clients.execute(() -> {
+				while (System.nanoTime() < end) {
+					int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+					int index = 0;
+					while (cumulativeWeights[index] <= pick) {
+						index++;
+					}
+					call(scenarios.get(index), stats.get(scenarios.get(index).name()), measureFrom, end);
+				}
+			});
+		}
+		clients.shutdown();
+		assertTrue(clients.awaitTermination(WARM_UP.plus(MEASURE).toSeconds() + 120, TimeUnit.SECONDS),
+				"the clients did not finish");
+
+		Map<String, Result> results = new LinkedHashMap<>();
+		stats.forEach((name, endpoint) -> results.put(name, result(endpoint)));
+		return results;
+	}
+
+	private void call(Scenario scenario, Stats stats, long measureFrom, long end) {
+		HttpRequest request = scenario.request().get();
+		if (request == null) {
+			return;
+		}
+		long sent = System.nanoTime();
+		boolean success;
+		try {
+			HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+			success = scenario.expected().test(response.statusCode());
+			if (response.statusCode() == 201) {
+				remember(scenario, response);
+			}
+		} catch (IOException e) {
+			success = false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		long received = System.nanoTime();
+		if (sent >= measureFrom && received <= end) {
+			stats.latencies.add(received - sent);
+			if (!success) {
+				stats.errors.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Keeps the IDs of the created jobs and recruiters, which are updated and deleted by the other scenarios.
+	 */
+	private void remember(Scenario scenario, HttpResponse<?> response) {
+		response.headers().firstValue("Location").map(CREATED_ID::matcher).filter(Matcher::find)
+				.map(matcher -> Long.parseLong(matcher.group(1)))
+				.ifPresent(id -> {
+					switch (scenario.name()) {
+						case "createJob" -> createdJobIds.add(id);
+						case "createRecruiter" -> createdRecruiterIds.add(id);
+						default -> {
+						}
+					}
+				});
+	}
+
+	private static Result result(Stats stats) {
+		long[] sorted = stats.latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+		return new Result(sorted.length, sorted.length / (double) MEASURE.toSeconds(),
+				percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+				sorted.length == 0 ? 0 : stats.errors.get() / (double) sorted.length);
+	}
+
+	private static double percentile(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))] / 1_000_000.0;
+	}
+
+	private static void print(Map<String, Result> results) {
+		System.out.printf("%d clients, %d jobs, %d s measured:%n", CLIENTS, JOBS, MEASURE.toSeconds());
+		System.out.printf("%-24s %8s %9s %9s %9s %9s %7s%n", "endpoint", "requests", "req/s", "p50 ms", "p99 ms",
+				"p999 ms", "errors");
+		results.forEach((name, result) -> System.out.printf("%-24s %8d %9.1f %9.1f %9.1f %9.1f %6.1f%%%n", name,
+				result.requests(), result.requestsPerSecond(), result.p50Millis(), result.p99Millis(),
+				result.p999Millis(), result.errorRate() * 100));
+	}
+
+	private static Properties toProperties(Map<String, Result> results) {
+		Properties properties = new Properties();
+		properties.setProperty("settings.clients", String.valueOf(CLIENTS));
+		properties.setProperty("settings.jobs", String.valueOf(JOBS));
+		properties.setProperty("settings.measureSeconds", String.valueOf(MEASURE.toSeconds()));
+		results.forEach((name, result) -> {
+			properties.setProperty(name + ".requestsPerSecond", format(result.requestsPerSecond()));
+			properties.setProperty(name + ".p50Millis", format(result.p50Millis()));
+			properties.setProperty(name + ".p99Millis", format(result.p99Millis()));
+			properties.setProperty(name + ".p999Millis", format(result.p999Millis()));
+			properties.setProperty(name + ".errorRate", format(result.errorRate()));
+		});
+		return properties;
+	}
+
+	/**
+	 * Fails when an endpoint of the report has a p99 latency above the baseline times the tolerance, a throughput
+	 * below the baseline divided by the tolerance, or 1% more errors than the baseline, and when an endpoint has no
+	 * baseline at all, so that a new scenario cannot go unguarded.
+	 */
+	private static void compareWithBaseline(Properties report) throws IOException {
+		if (!Files.exists(BASELINE)) {
+			System.out.println("No baseline in " + BASELINE + ", run with -DupdateLoadBaseline=true to store one");
+			return;
+		}
+		Properties baseline = new Properties();
+		try (Reader reader = Files.newBufferedReader(BASELINE)) {
+			baseline.load(reader);
+		}
+		for (String setting : List.of("settings.clients", "settings.jobs", "settings.measureSeconds")) {
+			if (!report.getProperty(setting).equals(baseline.getProperty(setting))) {
+				System.out.println("The baseline was recorded with " + setting + "=" + baseline.getProperty(setting)
+						+ ", it is not compared with this run");
+				return;
+			}
+		}
+		List<String> regressions = new ArrayList<>();
+		for (String key : report.stringPropertyNames()) {
+			String expected = baseline.getProperty(key);
+			if (key.startsWith("settings.")) {
+				continue;
+			}
+			if (expected == null) {
+				if (key.endsWith(".p99Millis")) {
+					regressions.add(key.substring(0, key.length() - ".p99Millis".length())
+							+ " has no baseline, run with -DupdateLoadBaseline=true to store one");
+				}
+				continue;
+			}
+			double actual = Double.parseDouble(report.getProperty(key));
+			double base = Double.parseDouble(expected);
+			boolean regression;
+			if (key.endsWith(".p99Millis")) {
+				regression = actual > Math.max(base * TOLERANCE, base + SLACK_MILLIS);
+			} else if (key.endsWith(".requestsPerSecond")) {
+				regression = actual < base / TOLERANCE;
+			} else if (key.endsWith(".errorRate")) {
+				regression = actual > base + 0.01;
+			} else {
+				regression = false; // p50 and p999 are reported, but too noisy to fail a build
+			}
+			if (regression) {
+				regressions.add(key + ": " + report.getProperty(key) + " against " + expected + " in the baseline");
+			}
+		}
+		assertTrue(regressions.isEmpty(), "Regressions against " + BASELINE + ":\n" + String.join("\n", regressions));
+	}
+
+	private static void store(Properties properties, Path path) throws IOException {
+		Files.createDirectories(path.toAbsolutePath().getParent());
+		try (Writer writer = Files.newBufferedWriter(path)) {
+			writer.write("# written by EndpointLoadBenchmarkTest on " + Runtime.getRuntime().availableProcessors()
+					+ " CPUs, Java " + Runtime.version().feature() + "\n");
+			for (Map.Entry<Object, Object> entry : new TreeMap<>(properties).entrySet()) {
+				writer.write(entry.getKey() + "=" + entry.getValue() + "\n");
+			}
+		}
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+
+	/**
+	 * A new job of the given recruiter, at the company of the recruiter.
+	 */
+	private Map<String, Object> job(SyntheticDataset.RecruiterRow recruiter) {
+		return job(recruiter, random(LOCATIONS));
+	}
+
+	/**
+	 * A new job of the given recruiter, at the company of the recruiter and in the given location.
+	 */
+	private Map<String, Object> job(SyntheticDataset.RecruiterRow recruiter, String location) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		return job(random(LEVELS) + " " + random(TITLES) + " Developer", random.nextInt(10, 50) + "K",
+				location, recruiter);
+	}
+
+	/**
+	 * A job of the dataset.
+	 */
+	private Map<String, Object> job(SyntheticDataset.JobRow row) {
+		return job(row.title(), row.salary(), row.location(), dataset.recruiters().get((int) row.recruiterId() - 1));
+	}
+
+	private Map<String, Object> job(String title, String salary, String location,
+									SyntheticDataset.RecruiterRow recruiter) {
+		Map<String, Object> job = new LinkedHashMap<>();
+		job.put("title", title);
+		job.put("salary", salary);
+		job.put("location", location);
+		job.put("company", Map.of("name", dataset.companies().get((int) recruiter.companyId() - 1).name()));
+		job.put("recruiter", Map.of("name", recruiter.name(), "email", recruiter.email()));
+		return job;
+	}
+
+	private long randomJobId() {
+		return random(jobIds);
+	}
+
+	private SyntheticDataset.RecruiterRow randomRecruiter() {
+		return random(dataset.recruiters());
+	}
+
+	private String randomCompany() {
+		return random(dataset.companies()).name();
+	}
+
+	private static <T> T random(List<T> values) {
+		return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+	}
+
+	private static String random(String[] values) {
+		return values[ThreadLocalRandom.current().nextInt(values.length)];
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+	}
+
+	private HttpRequest get(String path) {
+		return request(path).GET().build();
+	}
+
+	private HttpRequest post(String path, Object body) {
+		return request(path).POST(body == null ? HttpRequest.BodyPublishers.noBody() : json(body)).build();
+	}
+
+	private HttpRequest put(String path, Object body) {
+		return request(path).PUT(json(body)).build();
+	}
+
+	private HttpRequest patch(String path, Object body) {
+		return request(path).setHeader("Content-Type", MergePatchService.MEDIA_TYPE).method("PATCH", json(body)).build();
+	}
+
+	private HttpRequest delete(String path, Long id) {
+		return id == null ? null : request(path + id).DELETE().build();
+	}
+
+	private HttpRequest.Builder request(String path) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.timeout(Duration.ofSeconds(60))
+				.header("Content-Type", "application/json");
+	}
+
+	private HttpRequest.BodyPublisher json(Object body) {
+		try {
+			return HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body));
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+}
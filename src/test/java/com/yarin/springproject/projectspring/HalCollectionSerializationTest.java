@@ -0,0 +1,95 @@
+package com.yarin.springproject.projectspring;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yarin.springproject.projectspring.job.JobDTO;
+import com.yarin.springproject.projectspring.job.JobSearchModel;
+import com.yarin.springproject.projectspring.recruiter.Recruiter;
+import com.yarin.springproject.projectspring.recruiter.RecruiterDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.AnnotationLinkRelationProvider;
+import org.springframework.hateoas.server.core.DelegatingLinkRelationProvider;
+import org.springframework.hateoas.server.core.EvoInflectorLinkRelationProvider;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Writes HAL collections with the ObjectMapper of Spring HATEOAS as it is, and customized by the
+ * HalCollectionConfiguration, and checks that both write the same JSON: empty collections, a single element, many
+ * elements, elements of several types, and the job search with its total and facets.
+ */
+class HalCollectionSerializationTest {
+	private static final Link COLLECTION_LINK = Link.of("http://localhost:8080/jobs/info", IanaLinkRelations.SELF);
+
+	private final ObjectMapper halObjectMapper = halObjectMapper(mapper -> {
+	});
+	private final ObjectMapper customizedObjectMapper = halObjectMapper(HalCollectionConfiguration::customize);
+
+	@Test
+	void writesTheCollectionsOfASingleTypeAsSpringHateoasDoes() throws JsonProcessingException {
+		for (int size : List.of(0, 1, 2, 3, 100)) {
+			assertSameJson(CollectionModel.of(jobs(size), COLLECTION_LINK));
+			assertSameJson(CollectionModel.of(jobs(size).stream().map(EntityModel::getContent).toList()));
+		}
+	}
+
+	@Test
+	void writesTheCollectionsOfSeveralTypesAsSpringHateoasDoes() throws JsonProcessingException {
+		List<Object> resources = new ArrayList<>(jobs(2));
+		Recruiter recruiter = new Recruiter("Barak Itzhaki", "barakItzhaki@gmail.com");
+		recruiter.setId(1L);
+		resources.add(EntityModel.of(new RecruiterDTO(recruiter)));
+		resources.addAll(jobs(1));
+
+		assertSameJson(CollectionModel.of(resources, COLLECTION_LINK));
+	}
+
+	@Test
+	void writesTheJobSearchAsSpringHateoasDoes() throws JsonProcessingException {
+		JobSearchModel search = new JobSearchModel(CollectionModel.of(jobs(3), COLLECTION_LINK)
+				.add(Link.of("http://localhost:8080/jobs/search?after=3", IanaLinkRelations.NEXT)),
+				3, Map.of("location", Map.of("Haifa", 3)));
+
+		assertSameJson(search);
+	}
+
+	private void assertSameJson(Object model) throws JsonProcessingException {
+		assertEquals(halObjectMapper.writeValueAsString(model), customizedObjectMapper.writeValueAsString(model));
+	}
+
+	private static List<EntityModel<JobDTO>> jobs(int size) {
+		List<EntityModel<JobDTO>> jobs = new ArrayList<>(size);
+		for (long id = 1; id <= size; id++) {
+			JobDTO job = new JobDTO(id, "Java Developer " + id, "20K", "Haifa", 1L, "Facebook",
+					2L, "Barak Itzhaki", "barakItzhaki@gmail.com");
+			jobs.add(EntityModel.of(job, Link.of("http://localhost:8080/jobs/" + id + "/info")));
+		}
+		return jobs;
+	}
+
+	/**
+	 * An ObjectMapper set up like the HAL one of the application, with the same link relation providers.
+	 */
+	private static ObjectMapper halObjectMapper(Consumer<ObjectMapper> customizer) {
+		return Jackson2ObjectMapperBuilder.json()
+				.modules(new Jackson2HalModule())
+				.handlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(new DelegatingLinkRelationProvider(
+						new AnnotationLinkRelationProvider(), new EvoInflectorLinkRelationProvider()),
+						CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY))
+				.postConfigurer(customizer)
+				.build();
+	}
+}
@@ -0,0 +1,230 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.job.JobRepo;
+import com.yarin.springproject.projectspring.job.JobsChangedEvent;
+import com.yarin.springproject.projectspring.search.JobFacetIndex;
+import com.yarin.springproject.projectspring.search.JobTitleIndex;
+import com.yarin.springproject.projectspring.service.JobBulkReport;
+import com.yarin.springproject.projectspring.service.JobBulkService;
+import com.yarin.springproject.projectspring.service.MergePatchService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Updates and deletes the jobs of a small synthetic dataset by filter, and checks the counts, the rows and the search
+ * indexes. Every test works on jobs of its own: the jobs of company 1, of company 2, of recruiter 3, and of companies
+ * 4 and 5 for the bulk operations that another transaction interleaves an insert with.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"spring.datasource.url=jdbc:h2:mem:jobbulk", "randomuser.source=local",
+				"seed.mode=synthetic", "seed.random-seed=11", "seed.companies=10", "seed.recruiters=100",
+				"seed.jobs=3000"})
+class JobBulkTest {
+	@Autowired
+	private TestRestTemplate restTemplate;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private JobRepo jobRepo;
+	@Autowired
+	private JobTitleIndex jobTitleIndex;
+	@Autowired
+	private JobFacetIndex jobFacetIndex;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private MergePatchService mergePatchService;
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Test
+	void repricesTheJobsOfACompanyWithinASalaryRange() {
+		int expected = count("company_id = 1 and salary_thousands <= 20");
+		int others = count("company_id = 1 and salary_thousands > 20");
+		assertTrue(expected > 0 && others > 0, expected + " / " + others);
+
+		ResponseEntity<JobBulkReport> response = patch("/jobs?companyId=1&maxSalary=20", Map.of("salary", "21K"));
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(expected, response.getBody().affected());
+		assertEquals(0, count("company_id = 1 and salary_thousands <= 20"));
+		assertEquals(expected, count("company_id = 1 and salary = '21K' and salary_thousands = 21 and version = 1"));
+		assertEquals(expected + others, count("company_id = 1 and salary_thousands > 20"));
+		JobFacetIndex.Result facets = jobFacetIndex.search(
+				new JobFacetIndex.Filters(null, null, List.of(companyName(1)), null, null, 20));
+		assertEquals(0, facets.matches().cardinality(), "the facet index has the new salaries");
+	}
+
+	@Test
+	void movesTheJobsOfACompanyInALocation() {
+		int expected = count("company_id = 2 and location = 'Tel-Aviv'");
+		assertTrue(expected > 0);
+
+		ResponseEntity<JobBulkReport> response = patch("/jobs?companyId=2&location=Tel-Aviv",
+				Map.of("location", "Remote"));
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(expected, response.getBody().affected());
+		assertEquals(expected, count("company_id = 2 and location = 'Remote'"));
+		JobFacetIndex.Result facets = jobFacetIndex.search(
+				new JobFacetIndex.Filters(null, List.of("Remote"), List.of(companyName(2)), null, null, null));
+		assertEquals(expected, facets.matches().cardinality());
+	}
+
+	@Test
+	void deletesTheJobsOfARecruiter() {
+		List<Job> jobs = jobRepo.findAll().stream()
+				.filter(job -> job.getRecruiter().getId() == 3)
+				.toList();
+		assertFalse(jobs.isEmpty());
+		long total = jobRepo.count();
+		int indexed = jobFacetIndex.size();
+
+		ResponseEntity<JobBulkReport> response = restTemplate.exchange("/jobs?recruiterId=3", HttpMethod.DELETE,
+				null, JobBulkReport.class);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(jobs.size(), response.getBody().affected());
+		assertEquals(0, count("recruiter_id = 3"));
+		assertEquals(total - jobs.size(), jobRepo.count());
+		assertEquals(indexed - jobs.size(), jobFacetIndex.size());
+		assertFalse(jobTitleIndex.matches(jobs.get(0).getTitle()).contains(jobs.get(0).getId()));
+		assertEquals(1, jdbcTemplate.queryForObject("select count(*) from recruiter where id = 3", Integer.class),
+				"the recruiter itself is kept");
+	}
+
+	@Test
+	void refusesABulkOperationWithoutCriteriaOrWithAnInvalidPatch() {
+		long total = jobRepo.count();
+
+		assertEquals(HttpStatus.BAD_REQUEST, restTemplate.exchange("/jobs", HttpMethod.DELETE, null, String.class)
+				.getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, patchForString("/jobs", Map.of("salary", "1K")).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, patchForString("/jobs?companyId=3", Map.of("title", "Developer"))
+				.getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, patchForString("/jobs?companyId=3", Map.of("salary", "lots"))
+				.getStatusCode());
+		assertEquals(total, jobRepo.count());
+		assertEquals(0, count("company_id = 3 and version > 0"));
+	}
+
+	@Test
+	void updatesOnlyTheJobsItSelectedWhenAMatchingJobIsInsertedMeanwhile() {
+		int expected = count("company_id = 4");
+		List<JobsChangedEvent> events = new ArrayList<>();
+		AtomicReference<Job> inserted = new AtomicReference<>();
+		JobBulkService service = interleavingInsert(4, inserted, events);
+
+		JobBulkReport report = service.updateJobs(new JobBulkService.Filter(null, 4L, null, null, null),
+				Map.of("salary", "33K"));
+
+		assertEquals(expected, report.affected());
+		assertEquals(1, events.size());
+		assertEquals(expected, events.get(0).updatedIds().size());
+		assertFalse(events.get(0).updatedIds().contains(inserted.get().getId()));
+		assertEquals(expected, count("company_id = 4 and salary = '33K'"));
+		Job after = jobRepo.findById(inserted.get().getId()).orElseThrow();
+		assertEquals("1K", after.getSalary(), "the job inserted after the select is not updated");
+		assertEquals(0L, after.getVersion());
+	}
+
+	@Test
+	void deletesOnlyTheJobsItSelectedWhenAMatchingJobIsInsertedMeanwhile() {
+		int expected = count("company_id = 5");
+		List<JobsChangedEvent> events = new ArrayList<>();
+		AtomicReference<Job> inserted = new AtomicReference<>();
+		JobBulkService service = interleavingInsert(5, inserted, events);
+
+		JobBulkReport report = service.deleteJobs(new JobBulkService.Filter(null, 5L, null, null, null));
+
+		assertEquals(expected, report.affected());
+		assertEquals(1, events.size());
+		assertEquals(expected, events.get(0).deletedIds().size());
+		assertFalse(events.get(0).deletedIds().contains(inserted.get().getId()));
+		assertEquals(1, count("company_id = 5"), "the job inserted after the select is kept");
+		assertTrue(jobRepo.existsById(inserted.get().getId()));
+	}
+
+	/**
+	 * Builds a JobBulkService that records its events, before publishing them to the application, and whose first bulk statement is preceded by the insert of a
+	 * job of the given company, committed by another transaction between the select and the statement.
+	 */
+	private JobBulkService interleavingInsert(long companyId, AtomicReference<Job> inserted,
+											  List<JobsChangedEvent> events) {
+		Job sibling = jobRepo.findAll().stream()
+				.filter(job -> job.getCompany().getId() == companyId)
+				.findFirst()
+				.orElseThrow();
+		EntityManager interleaving = (EntityManager) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{EntityManager.class}, (proxy, method, args) -> {
+					if (method.getName().equals("createQuery") && inserted.get() == null
+							&& (args[0] instanceof CriteriaUpdate || args[0] instanceof CriteriaDelete)) {
+						inserted.set(CompletableFuture.supplyAsync(() -> jobRepo.save(new Job("Interleaved Developer",
+								"1K", "Eilat", sibling.getCompany(), sibling.getRecruiter()))).join());
+					}
+					try {
+						return method.invoke(entityManager, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+		return new JobBulkService(interleaving, transactionManager, mergePatchService, event -> {
+			if (event instanceof JobsChangedEvent changed) {
+				events.add(changed);
+			}
+			eventPublisher.publishEvent(event);
+		});
+	}
+
+	private int count(String where) {
+		Integer count = jdbcTemplate.queryForObject("select count(*) from job where " + where, Integer.class);
+		return count == null ? 0 : count;
+	}
+
+	private String companyName(long id) {
+		return jdbcTemplate.queryForObject("select name from company where id = ?", String.class, id);
+	}
+
+	private ResponseEntity<JobBulkReport> patch(String path, Map<String, Object> patch) {
+		return restTemplate.exchange(path, HttpMethod.PATCH, mergePatch(patch), JobBulkReport.class);
+	}
+
+	private ResponseEntity<String> patchForString(String path, Map<String, Object> patch) {
+		return restTemplate.exchange(path, HttpMethod.PATCH, mergePatch(patch), String.class);
+	}
+
+	private static HttpEntity<Map<String, Object>> mergePatch(Map<String, Object> patch) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.parseMediaType(MergePatchService.MEDIA_TYPE));
+		return new HttpEntity<>(patch, headers);
+	}
+}
@@ -0,0 +1,88 @@
+package com.yarin.springproject.projectspring;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.job.JobRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Pins the JSON of the JobDTO read model to the shape the job endpoints had when JobDTO wrapped a Job entity:
+ * title, salary, company, recruiter and location, with the company and the recruiter serialized as their entities
+ * are, IDs included.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"spring.datasource.url=jdbc:h2:mem:jobdtoshape", "randomuser.source=local"})
+class JobDtoShapeTest {
+	private static final List<String> JOB_FIELDS = List.of("title", "salary", "company", "recruiter", "location", "_links");
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+	@Autowired
+	private JobRepo jobRepo;
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void singleJobInfoHasTheShapeOfTheEntities() throws IOException {
+		Job job = jobRepo.findAll().get(0);
+
+		assertShape(job, read("/jobs/" + job.getId() + "/info"));
+	}
+
+	@Test
+	void jobCollectionsHaveTheShapeOfTheEntities() throws IOException {
+		Map<String, Job> jobsBySelf = jobRepo.findAll().stream()
+				.collect(Collectors.toMap(job -> "/jobs/" + job.getId() + "/info", Function.identity()));
+
+		for (String path : List.of("/jobs/info", "/jobs/search", "/jobs/bycompany/Twitter", "/jobs/byrecruiter/Paul")) {
+			List<JsonNode> elements = new ArrayList<>();
+			read(path).path("_embedded").elements().forEachRemaining(list -> list.elements().forEachRemaining(elements::add));
+			assertFalse(elements.isEmpty(), path);
+			for (JsonNode element : elements) {
+				String self = element.path("_links").path("self").path("href").asText();
+				Job job = jobsBySelf.get(self.substring(self.indexOf("/jobs/")));
+				assertShape(job, element);
+			}
+		}
+	}
+
+	private void assertShape(Job job, JsonNode node) {
+		assertEquals(JOB_FIELDS, fieldNames(node));
+		assertEquals(job.getTitle(), node.get("title").asText());
+		assertEquals(objectMapper.valueToTree(job.getCompany()), node.get("company"));
+		assertEquals(objectMapper.valueToTree(job.getRecruiter()), node.get("recruiter"));
+		assertEquals(List.of("id", "name"), fieldNames(node.get("company")));
+		assertEquals(List.of("id", "name", "email"), fieldNames(node.get("recruiter")));
+	}
+
+	private JsonNode read(String path) throws IOException {
+		ResponseEntity<String> response = restTemplate.getForEntity(path, String.class);
+		assertEquals(HttpStatus.OK, response.getStatusCode(), path);
+		return objectMapper.readTree(response.getBody());
+	}
+
+	private static List<String> fieldNames(JsonNode node) {
+		List<String> names = new ArrayList<>();
+		for (Iterator<String> it = node.fieldNames(); it.hasNext(); ) {
+			names.add(it.next());
+		}
+		return names;
+	}
+}
@@ -0,0 +1,113 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.company.Company;
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.job.JobRepo;
+import com.yarin.springproject.projectspring.job.JobsChangedEvent;
+import com.yarin.springproject.projectspring.search.JobFacetIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Indexes five jobs through a JobsChangedEvent, without a database, and checks the disjunctive facet counts, the
+ * salary range filter and the keyset paging over the matching IDs.
+ */
+class JobFacetIndexTest {
+	private final JobFacetIndex index = new JobFacetIndex(mock(JobRepo.class));
+
+	@BeforeEach
+	void indexJobs() {
+		index.onJobsChanged(JobsChangedEvent.saved(List.of(
+				job(1, "Haifa", "Facebook", "15K"),
+				job(2, "Haifa", "Twitter", "25K"),
+				job(3, "Holon", "Facebook", "12K"),
+				job(4, "Tel-Aviv", "Google", "31K"),
+				job(5, "Holon", "Twitter", null))));
+	}
+
+	@Test
+	void countsEveryFacetWithoutItsOwnFilter() {
+		JobFacetIndex.Result haifa = search(null, List.of("Haifa"), null, null, null);
+
+		assertEquals(bits(1, 2), haifa.matches());
+		assertEquals(Map.of("Haifa", 2, "Holon", 2, "Tel-Aviv", 1), haifa.facets().get(JobFacetIndex.LOCATION));
+		assertEquals(Map.of("Facebook", 1, "Twitter", 1), haifa.facets().get(JobFacetIndex.COMPANY));
+		assertEquals(Map.of("10K-19K", 1, "20K-29K", 1), haifa.facets().get(JobFacetIndex.SALARY_BAND));
+
+		JobFacetIndex.Result twitterInHaifaOrHolon = search(null, List.of("Haifa", "Holon"), List.of("Twitter"), null, null);
+
+		assertEquals(bits(2, 5), twitterInHaifaOrHolon.matches());
+		assertEquals(Map.of("Haifa", 1, "Holon", 1), twitterInHaifaOrHolon.facets().get(JobFacetIndex.LOCATION));
+		assertEquals(Map.of("Facebook", 2, "Twitter", 2), twitterInHaifaOrHolon.facets().get(JobFacetIndex.COMPANY));
+		assertEquals(List.of("Haifa", "Holon", "Tel-Aviv"),
+				List.copyOf(search(null, null, null, null, null).facets().get(JobFacetIndex.LOCATION).keySet()),
+				"the most frequent values come first, ties by name");
+	}
+
+	@Test
+	void filtersByAnInclusiveSalaryRange() {
+		assertEquals(bits(1, 2, 3), search(null, null, null, 12, 25).matches());
+		assertEquals(bits(4), search(null, null, null, 26, null).matches());
+		assertEquals(bits(3), search(null, null, null, null, 12).matches());
+		assertEquals(bits(), search(null, null, null, 30, 20).matches());
+		assertEquals(Map.of("Haifa", 1, "Holon", 1), search(null, null, null, null, 20).facets().get(JobFacetIndex.LOCATION),
+				"the jobs without a salary are left out of a salary range");
+		assertEquals(bits(1), search(bits(1, 4), null, null, null, 20).matches(), "the range applies to the given IDs");
+	}
+
+	@Test
+	void followsRepricedAndDeletedJobs() {
+		index.onJobsChanged(JobsChangedEvent.saved(List.of(job(3, "Holon", "Facebook", "40K"))));
+		index.onJobsChanged(JobsChangedEvent.deleted(List.of(4L)));
+
+		assertEquals(bits(3), search(null, null, null, 31, null).matches());
+		assertEquals(bits(1), search(null, null, null, null, 15).matches());
+		assertEquals(4, index.size());
+	}
+
+	@Test
+	void pagesThroughTheMatchesByKeyset() {
+		JobFacetIndex.Result all = search(null, null, null, null, null);
+
+		assertEquals(List.of(1L, 2L), all.idsAfter(Long.MIN_VALUE, 2));
+		assertEquals(List.of(3L, 4L), all.idsAfter(2, 2));
+		assertEquals(List.of(5L), all.idsAfter(4, 2));
+		assertEquals(List.of(), all.idsAfter(5, 2));
+		assertEquals(List.of(), all.idsAfter(Long.MAX_VALUE, 2));
+
+		assertEquals(List.of(5L, 4L), all.idsBefore(Long.MAX_VALUE, 2));
+		assertEquals(List.of(3L, 2L), all.idsBefore(4, 2));
+		assertEquals(List.of(), all.idsBefore(1, 2));
+		assertEquals(List.of(), all.idsBefore(Long.MIN_VALUE, 2));
+
+		JobFacetIndex.Result holon = search(null, List.of("Holon"), null, null, null);
+		assertEquals(List.of(3L, 5L), holon.idsAfter(0, 20));
+		assertEquals(List.of(5L, 3L), holon.idsBefore(6, 20));
+	}
+
+	private JobFacetIndex.Result search(BitSet ids, List<String> locations, List<String> companies,
+										Integer minSalary, Integer maxSalary) {
+		return index.search(new JobFacetIndex.Filters(ids, locations, companies, null, minSalary, maxSalary));
+	}
+
+	private static BitSet bits(int... ids) {
+		BitSet bits = new BitSet();
+		for (int id : ids) {
+			bits.set(id);
+		}
+		return bits;
+	}
+
+	private static Job job(long id, String location, String company, String salary) {
+		Job job = new Job("Developer " + id, salary, location, new Company(company), null);
+		job.setId(id);
+		return job;
+	}
+}
@@ -0,0 +1,126 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.company.Company;
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.recruiter.Recruiter;
+import com.yarin.springproject.projectspring.service.JobImportReport;
+import com.yarin.springproject.projectspring.service.JobImportService;
+import com.yarin.springproject.projectspring.service.JobIngestionProperties;
+import com.yarin.springproject.projectspring.service.JobIngestionQueue;
+import com.yarin.springproject.projectspring.service.JobIngestionStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Queues jobs in a JobIngestionQueue with a capacity of 3 and batches of 2. The drains are held back until the test
+ * runs them, except in the shutdown test which drains on a thread of its own, and the jobs are "written" by a stub that
+ * rejects the jobs titled "Rejected".
+ */
+class JobIngestionQueueTest {
+	private final JobImportService jobImportService = mock(JobImportService.class);
+	private final List<Runnable> drains = new ArrayList<>();
+	private final List<Integer> batches = new ArrayList<>();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final JobIngestionQueue queue = new JobIngestionQueue(jobImportService, drains::add,
+			new JobIngestionProperties(3, 2, Duration.ofMinutes(1), 100, Duration.ofSeconds(10)), meterRegistry);
+
+	@Test
+	void writesTheQueuedJobsInBatchesAndRefusesJobsWhenFull() {
+		when(jobImportService.importJobs(anyList())).thenAnswer(invocation -> write(invocation.getArgument(0)));
+
+		JobIngestionStatus first = queue.submit(job("Java Developer")).orElseThrow();
+		JobIngestionStatus second = queue.submit(job("Rejected")).orElseThrow();
+		JobIngestionStatus third = queue.submit(job("QA Engineer")).orElseThrow();
+
+		assertTrue(queue.submit(job("Too Many")).isEmpty(), "the queue is full");
+		assertEquals(1, meterRegistry.get("ingestion.queue.refused").counter().count());
+		assertEquals(3, meterRegistry.get("ingestion.queue.size").gauge().value());
+		assertEquals(JobIngestionStatus.State.QUEUED, queue.status(first.id()).orElseThrow().state());
+		assertEquals(1, drains.size(), "a single drain is started for the queued jobs");
+
+		drains.remove(0).run();
+
+		assertEquals(List.of(2, 1), batches);
+		assertEquals(0, queue.size());
+		assertEquals(new JobIngestionStatus(first.id(), JobIngestionStatus.State.CREATED, 100L, null),
+				queue.status(first.id()).orElseThrow());
+		assertEquals(JobIngestionStatus.State.REJECTED, queue.status(second.id()).orElseThrow().state());
+		assertEquals(new JobIngestionStatus(third.id(), JobIngestionStatus.State.CREATED, 102L, null),
+				queue.status(third.id()).orElseThrow());
+		assertEquals(2, meterRegistry.get("ingestion.batch").timer().count());
+		assertTrue(drains.isEmpty());
+		assertTrue(queue.submit(job("Next")).isPresent(), "the queue has room again");
+	}
+
+	@Test
+	void writesTheQueuedJobsWhenTheApplicationStops() {
+		when(jobImportService.importJobs(anyList())).thenAnswer(invocation -> write(invocation.getArgument(0)));
+		JobIngestionStatus status = queue.submit(job("Java Developer")).orElseThrow();
+
+		queue.flush();
+
+		assertEquals(JobIngestionStatus.State.CREATED, queue.status(status.id()).orElseThrow().state());
+		assertEquals(List.of(1), batches);
+	}
+
+	@Test
+	void waitsForTheBatchBeingWrittenBeforeWritingTheQueuedJobsWhenTheApplicationStops() throws Exception {
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(jobImportService.importJobs(anyList())).thenAnswer(invocation -> {
+			if (batches.isEmpty()) {
+				writing.countDown();
+				release.await();
+			}
+			return write(invocation.getArgument(0));
+		});
+		JobIngestionQueue background = new JobIngestionQueue(jobImportService, task -> new Thread(task).start(),
+				new JobIngestionProperties(3, 2, Duration.ofMinutes(1), 100, Duration.ofSeconds(10)),
+				new SimpleMeterRegistry());
+		JobIngestionStatus inFlight = background.submit(job("Java Developer")).orElseThrow();
+		assertTrue(writing.await(5, TimeUnit.SECONDS));
+		JobIngestionStatus queued = background.submit(job("QA Engineer")).orElseThrow();
+
+		CompletableFuture<Void> flush = CompletableFuture.runAsync(background::flush);
+
+		Thread.sleep(200);
+		assertFalse(flush.isDone(), "the flush waits for the batch being written");
+		assertTrue(background.submit(job("Too Late")).isEmpty(), "no job is accepted once the application stops");
+		release.countDown();
+		flush.get(5, TimeUnit.SECONDS);
+		assertEquals(JobIngestionStatus.State.CREATED, background.status(inFlight.id()).orElseThrow().state());
+		assertEquals(JobIngestionStatus.State.CREATED, background.status(queued.id()).orElseThrow().state());
+		assertEquals(List.of(1, 1), batches);
+	}
+
+	private JobImportReport write(List<Job> jobs) {
+		int offset = batches.stream().mapToInt(Integer::intValue).sum();
+		batches.add(jobs.size());
+		List<JobImportReport.Item> items = IntStream.range(0, jobs.size())
+				.mapToObj(i -> jobs.get(i).getTitle().equals("Rejected")
+						? new JobImportReport.Item(i, JobImportReport.Status.REJECTED, null, "rejected")
+						: new JobImportReport.Item(i, JobImportReport.Status.CREATED, 100L + offset + i, null))
+				.toList();
+		int created = (int) items.stream().filter(item -> item.id() != null).count();
+		return new JobImportReport(created, items.size() - created, items);
+	}
+
+	private static Job job(String title) {
+		return new Job(title, "20K", "Haifa", new Company("Queue Labs"), new Recruiter("Que Ue", "queue@labs.com"));
+	}
+}
@@ -0,0 +1,107 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.service.JobIngestionStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Creates jobs through POST /jobs with Prefer: respond-async, and follows their status until they are written.
+ * The respond-async preference is also found among other preferences; without it the job is created synchronously.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"spring.datasource.url=jdbc:h2:mem:ingestion", "randomuser.source=local"})
+class JobIngestionTest {
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Test
+	void acceptsAJobAndWritesItInTheBackground() throws InterruptedException {
+		Map<String, Object> job = Map.of("title", "Queue Engineer", "salary", "22K", "location", "Haifa",
+				"company", Map.of("name", "Queue Labs"),
+				"recruiter", Map.of("name", "Que Ue", "email", "queue@labs.com"));
+
+		ResponseEntity<JobIngestionStatus> response = restTemplate.postForEntity("/jobs", respondAsync(job),
+				JobIngestionStatus.class);
+
+		assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+		assertEquals("respond-async", response.getHeaders().getFirst("Preference-Applied"));
+		URI location = response.getHeaders().getLocation();
+		assertNotNull(location);
+		assertEquals("/jobs/ingestion/" + response.getBody().id(), location.getPath());
+
+		JobIngestionStatus status = response.getBody();
+		for (int attempt = 0; attempt < 100 && status.state() == JobIngestionStatus.State.QUEUED; attempt++) {
+			Thread.sleep(50);
+			status = restTemplate.getForObject(location, JobIngestionStatus.class);
+		}
+		assertEquals(JobIngestionStatus.State.CREATED, status.state(), String.valueOf(status));
+		ResponseEntity<String> created = restTemplate.getForEntity("/jobs/" + status.jobId() + "/info", String.class);
+		assertEquals(HttpStatus.OK, created.getStatusCode());
+		assertTrue(created.getBody().contains("Queue Labs"), created.getBody());
+	}
+
+	@Test
+	void refusesAnInvalidJobBeforeQueueingIt() {
+		Map<String, Object> job = Map.of("title", "Queue Engineer", "salary", "22K", "location", "Haifa",
+				"recruiter", Map.of("name", "Que Ue", "email", "queue@labs.com"));
+
+		ResponseEntity<String> response = restTemplate.postForEntity("/jobs", respondAsync(job), String.class);
+
+		assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode(), response.getBody());
+		assertEquals(HttpStatus.NOT_FOUND,
+				restTemplate.getForEntity("/jobs/ingestion/unknown", String.class).getStatusCode());
+	}
+
+	@Test
+	void findsRespondAsyncAmongOtherPreferences() {
+		for (String prefer : List.of("respond-async, wait=5", "return=minimal, Respond-Async", "wait=10; foo=bar,respond-async")) {
+			ResponseEntity<JobIngestionStatus> response = restTemplate.postForEntity("/jobs",
+					withPrefer(job("prefer" + prefer.length() + "@labs.com"), prefer), JobIngestionStatus.class);
+
+			assertEquals(HttpStatus.ACCEPTED, response.getStatusCode(), prefer);
+			assertEquals("respond-async", response.getHeaders().getFirst("Preference-Applied"), prefer);
+		}
+	}
+
+	@Test
+	void createsTheJobSynchronouslyWithoutRespondAsync() {
+		ResponseEntity<String> response = restTemplate.postForEntity("/jobs",
+				withPrefer(job("sync@labs.com"), "return=minimal"), String.class);
+
+		assertEquals(HttpStatus.CREATED, response.getStatusCode(), response.getBody());
+		assertNull(response.getHeaders().getFirst("Preference-Applied"));
+		assertTrue(response.getHeaders().getLocation().getPath().matches("/jobs/\\d+"),
+				String.valueOf(response.getHeaders().getLocation()));
+	}
+
+	private static Map<String, Object> job(String recruiterEmail) {
+		return Map.of("title", "Queue Engineer", "salary", "22K", "location", "Haifa",
+				"company", Map.of("name", "Queue Labs"),
+				"recruiter", Map.of("name", "Que Ue", "email", recruiterEmail));
+	}
+
+	private static HttpEntity<Map<String, Object>> withPrefer(Map<String, Object> job, String prefer) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Prefer", prefer);
+		return new HttpEntity<>(job, headers);
+	}
+
+	private static HttpEntity<Map<String, Object>> respondAsync(Map<String, Object> job) {
+		return withPrefer(job, "respond-async");
+	}
+}
@@ -0,0 +1,92 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.company.Company;
+import com.yarin.springproject.projectspring.company.CompanyRepo;
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.job.JobRepo;
+import com.yarin.springproject.projectspring.recruiter.Recruiter;
+import com.yarin.springproject.projectspring.recruiter.RecruiterRepo;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures the job insert throughput, in rows per second, of saving one job per transaction (as the seeder and
+ * POST /jobs used to) against saving jobs in chunks, which lets Hibernate take the IDs from the pooled sequences
+ * and send the inserts in JDBC batches.
+ * Run with: mvn test -Pbenchmark
+ */
+@SpringBootTest
+@Tag("benchmark")
+class JobInsertBenchmarkTest {
+	private static final int ROWS = 20_000;
+	private static final int WARM_UP_ROWS = 2_000;
+	private static final int CHUNK_SIZE = 500;
+
+	@Autowired
+	private JobRepo jobRepo;
+	@Autowired
+	private CompanyRepo companyRepo;
+	@Autowired
+	private RecruiterRepo recruiterRepo;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void insertThroughput() {
+		Company company = companyRepo.save(new Company("Benchmark"));
+		Recruiter recruiter = recruiterRepo.save(new Recruiter("Bench Mark", "bench@mark.com"));
+		insertOneByOne(company, recruiter, WARM_UP_ROWS);
+		insertInChunks(company, recruiter, WARM_UP_ROWS);
+
+		long count = jobRepo.count();
+		double oneByOne = rowsPerSecond(() -> insertOneByOne(company, recruiter, ROWS));
+		double chunked = rowsPerSecond(() -> insertInChunks(company, recruiter, ROWS));
+		assertEquals(count + 2L * ROWS, jobRepo.count());
+
+		System.out.printf("Inserted %d jobs: one per transaction %.0f rows/s, batched in chunks of %d %.0f rows/s (x%.1f)%n",
+				ROWS, oneByOne, CHUNK_SIZE, chunked, chunked / oneByOne);
+	}
+
+	private void insertOneByOne(Company company, Recruiter recruiter, int rows) {
+		for (int i = 0; i < rows; i++) {
+			jobRepo.save(job(i, company, recruiter));
+		}
+	}
+
+	private void insertInChunks(Company company, Recruiter recruiter, int rows) {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		for (int from = 0; from < rows; from += CHUNK_SIZE) {
+			List<Job> jobs = new ArrayList<>(CHUNK_SIZE);
+			for (int i = from; i < Math.min(from + CHUNK_SIZE, rows); i++) {
+				jobs.add(job(i, company, recruiter));
+			}
+			transactionTemplate.executeWithoutResult(status -> {
+				jobRepo.saveAll(jobs);
+				entityManager.flush();
+				entityManager.clear();
+			});
+		}
+	}
+
+	private static Job job(int i, Company company, Recruiter recruiter) {
+		return new Job("Benchmark Engineer " + i, (10 + i % 40) + "K", "Haifa", company, recruiter);
+	}
+
+	private static double rowsPerSecond(Runnable insert) {
+		long start = System.nanoTime();
+		insert.run();
+		return ROWS / ((System.nanoTime() - start) / 1e9);
+	}
+}
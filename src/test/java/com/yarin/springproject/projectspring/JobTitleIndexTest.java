@@ -0,0 +1,99 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.job.JobRepo;
+import com.yarin.springproject.projectspring.job.JobsChangedEvent;
+import com.yarin.springproject.projectspring.search.JobTitleIndex;
+import com.yarin.springproject.projectspring.search.RankedPage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Indexes a few job titles through JobsChangedEvents, without a database, and checks the BM25 ranking, the prefix
+ * matching, that every query word has to match, the paging of the ranked results and the removal and update of jobs.
+ */
+class JobTitleIndexTest {
+	private final JobTitleIndex index = new JobTitleIndex(mock(JobRepo.class));
+
+	@Test
+	void ranksRepeatedWordsAndShortTitlesFirstAndPrefixesLast() {
+		index(job(1, "Java Developer"), job(2, "Senior Java Developer Java"), job(3, "Javascript Developer"),
+				job(4, "Devops"));
+
+		assertEquals(List.of(2L, 1L, 3L), search("java", 0, 10).getContent());
+		assertEquals(List.of(2L, 1L, 3L), search("JAVA!", 0, 10).getContent(), "the query is tokenized as titles are");
+		assertEquals(List.of(4L), search("devops", 0, 10).getContent());
+	}
+
+	@Test
+	void matchesOnlyTheJobsHavingEveryWord() {
+		index(job(1, "Java Developer"), job(2, "Senior Java Developer"), job(3, "Javascript Developer"),
+				job(4, "Devops"));
+
+		assertEquals(Set.of(1L, 2L, 3L), index.matches("java dev"));
+		assertEquals(Set.of(2L), index.matches("senior java"));
+		assertEquals(Set.of(), index.matches("java devops"));
+		assertEquals(Set.of(), index.matches("python"));
+		assertEquals(Set.of(), index.matches(" - "));
+		assertTrue(search("java devops", 0, 10).getContent().isEmpty());
+	}
+
+	@Test
+	void pagesThroughTheRankingWithoutRankingEveryMatch() {
+		List<Job> jobs = new ArrayList<>();
+		for (long id = 1; id <= 50; id++) {
+			jobs.add(job(id, "Developer " + "Java ".repeat((int) (id % 4)) + (id % 3 == 0 ? "Senior" : "")));
+		}
+		index(jobs.toArray(Job[]::new));
+
+		List<Long> ranking = search("developer", 0, 100).getContent();
+		assertEquals(50, ranking.size());
+		List<Long> paged = new ArrayList<>();
+		for (int page = 0; page < 8; page++) {
+			RankedPage<Long> ranked = search("developer", page, 7);
+			assertEquals(page < 7, ranked.isHasNext(), "page " + page);
+			paged.addAll(ranked.getContent());
+		}
+		assertEquals(ranking, paged);
+
+		RankedPage<Long> past = search("developer", 9, 7);
+		assertTrue(past.getContent().isEmpty());
+		assertFalse(past.isHasNext());
+	}
+
+	@Test
+	void followsTheDeletedAndUpdatedJobs() {
+		index(job(1, "Java Developer"), job(2, "Java Architect"), job(3, "QA Engineer"));
+
+		index.onJobsChanged(JobsChangedEvent.deleted(List.of(1L)));
+		index.onJobsChanged(JobsChangedEvent.saved(List.of(job(3, "Java Tester"))));
+
+		assertEquals(2, index.size());
+		assertEquals(Set.of(2L, 3L), index.matches("java"));
+		assertEquals(Set.of(), index.matches("developer"));
+		assertEquals(Set.of(), index.matches("qa"));
+		assertEquals(Set.of(3L), index.matches("tes"));
+	}
+
+	private RankedPage<Long> search(String query, int page, int size) {
+		return index.search(query, page, size);
+	}
+
+	private void index(Job... jobs) {
+		index.onJobsChanged(JobsChangedEvent.saved(List.of(jobs)));
+	}
+
+	private static Job job(long id, String title) {
+		Job job = new Job(title, "20K", "Haifa", null, null);
+		job.setId(id);
+		return job;
+	}
+}
@@ -0,0 +1,190 @@
+package com.yarin.springproject.projectspring;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pages through IDs held in memory, without a database, and checks the cursors of the pages, the next and prev links
+ * they write into the current request and that following these links walks the whole collection both ways, and the
+ * empty, first and last pages.
+ */
+class KeysetPageTest {
+
+	@AfterEach
+	void unbindRequest() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void walksTheCollectionForwardsAndBackwardsByTheLinks() {
+		List<Long> ids = ids(1, 23);
+		bindRequest("/jobs/info", "size=5");
+
+		List<List<Long>> forwards = new ArrayList<>();
+		KeysetPage<Long> page = fetch(ids, null, null, 5);
+		assertNull(page.getPrevCursor());
+		assertEquals(List.of("next"), relations(page));
+		while (true) {
+			forwards.add(page.getContent());
+			Link next = link(page, IanaLinkRelations.NEXT);
+			if (next == null) {
+				break;
+			}
+			MultiValueMap<String, String> query = query(next);
+			assertEquals(List.of("5"), query.get("size"), "the other parameters are kept");
+			bindRequest("/jobs/info", next.toUri().getRawQuery());
+			page = fetch(ids, Long.valueOf(query.getFirst("after")), null, 5);
+		}
+		assertEquals(List.of(ids(1, 5), ids(6, 10), ids(11, 15), ids(16, 20), ids(21, 23)), forwards);
+		assertNull(page.getNextCursor());
+		assertEquals(21L, page.getPrevCursor());
+
+		List<List<Long>> backwards = new ArrayList<>();
+		while (true) {
+			backwards.add(page.getContent());
+			Link prev = link(page, IanaLinkRelations.PREV);
+			if (prev == null) {
+				break;
+			}
+			MultiValueMap<String, String> query = query(prev);
+			assertFalse(query.containsKey("after"), "the after cursor is replaced by the before one");
+			bindRequest("/jobs/info", prev.toUri().getRawQuery());
+			page = fetch(ids, null, Long.valueOf(query.getFirst("before")), 5);
+		}
+		Collections.reverse(backwards);
+		assertEquals(forwards, backwards);
+		assertNull(page.getPrevCursor(), "paging back ends on the first page");
+		assertEquals(5L, page.getNextCursor());
+	}
+
+	@Test
+	void setsTheCursorsToTheIdsAtTheEdgesOfThePage() {
+		List<Long> ids = List.of(3L, 8L, 9L, 14L, 20L, 31L);
+
+		KeysetPage<Long> middle = fetch(ids, 3L, null, 2);
+		assertEquals(List.of(8L, 9L), middle.getContent());
+		assertEquals(9L, middle.getNextCursor());
+		assertEquals(8L, middle.getPrevCursor());
+
+		KeysetPage<Long> before = fetch(ids, 3L, 20L, 2);
+		assertEquals(List.of(9L, 14L), before.getContent(), "before takes precedence over after");
+		assertEquals(14L, before.getNextCursor());
+		assertEquals(9L, before.getPrevCursor());
+
+		KeysetPage<Long> gap = fetch(ids, 10L, null, 2);
+		assertEquals(List.of(14L, 20L), gap.getContent(), "a cursor does not have to be an existing id");
+	}
+
+	@Test
+	void hasNoNextPageAfterAFullLastPage() {
+		List<Long> ids = ids(1, 10);
+
+		KeysetPage<Long> last = fetch(ids, 5L, null, 5);
+		assertEquals(ids(6, 10), last.getContent());
+		assertNull(last.getNextCursor(), "the extra row tells that there is no page after a full last page");
+		assertEquals(6L, last.getPrevCursor());
+
+		KeysetPage<Long> first = fetch(ids, null, 6L, 5);
+		assertEquals(ids(1, 5), first.getContent());
+		assertNull(first.getPrevCursor());
+		assertEquals(5L, first.getNextCursor());
+	}
+
+	@Test
+	void hasNoCursorsNorLinksForAnEmptyPage() {
+		bindRequest("/jobs/info", "after=50");
+
+		for (KeysetPage<Long> empty : List.of(fetch(List.of(), null, null, 5), fetch(ids(1, 10), 50L, null, 5),
+				fetch(ids(1, 10), null, 1L, 5))) {
+			assertTrue(empty.getContent().isEmpty());
+			assertNull(empty.getNextCursor());
+			assertNull(empty.getPrevCursor());
+			assertTrue(empty.getLinks().isEmpty());
+		}
+	}
+
+	@Test
+	void keepsTheCursorsWhenConvertingTheContent() {
+		KeysetPage<Long> page = fetch(ids(1, 10), 2L, null, 3);
+
+		KeysetPage<String> mapped = page.map(id -> "job " + id);
+		assertEquals(List.of("job 3", "job 4", "job 5"), mapped.getContent());
+		assertEquals(5L, mapped.getNextCursor());
+		assertEquals(3L, mapped.getPrevCursor());
+
+		KeysetPage<Integer> sized = page.mapContent(content -> content.stream().map(Long::intValue).toList());
+		assertEquals(List.of(3, 4, 5), sized.getContent());
+		assertEquals(5L, sized.getNextCursor());
+		assertEquals(3L, sized.getPrevCursor());
+	}
+
+	@Test
+	void clampsThePageSize() {
+		assertEquals(KeysetPage.DEFAULT_SIZE, KeysetPage.clampSize(null));
+		assertEquals(1, KeysetPage.clampSize(0));
+		assertEquals(1, KeysetPage.clampSize(-5));
+		assertEquals(KeysetPage.MAX_SIZE, KeysetPage.clampSize(1000));
+		assertEquals(KeysetPage.MAX_SIZE, fetch(ids(1, 200), null, null, 1000).getContent().size());
+	}
+
+	/**
+	 * Fetches a page of the given ascending IDs the way the repositories do: with the rows beyond the cursor, in
+	 * ascending order forwards and descending order backwards, limited to the requested rows.
+	 */
+	private static KeysetPage<Long> fetch(List<Long> ids, Long after, Long before, Integer size) {
+		KeysetPage.Query<Long> forward = (cursor, limit) -> limit(ids.stream().filter(id -> id > cursor).toList(), limit);
+		KeysetPage.Query<Long> backward = (cursor, limit) -> {
+			List<Long> rows = new ArrayList<>(ids.stream().filter(id -> id < cursor).toList());
+			Collections.reverse(rows);
+			return limit(rows, limit);
+		};
+		return KeysetPage.fetch(after, before, size, forward, backward, Function.identity());
+	}
+
+	private static List<Long> limit(List<Long> rows, Pageable limit) {
+		return rows.subList(0, Math.min(rows.size(), limit.getPageSize()));
+	}
+
+	private static List<Long> ids(long from, long to) {
+		return LongStream.rangeClosed(from, to).boxed().toList();
+	}
+
+	private static void bindRequest(String path, String query) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+		request.setServerPort(8080);
+		request.setQueryString(query);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+	}
+
+	private static List<String> relations(KeysetPage<?> page) {
+		return page.getLinks().stream().map(link -> link.getRel().value()).toList();
+	}
+
+	private static Link link(KeysetPage<?> page, LinkRelation relation) {
+		return page.getLinks().stream().filter(link -> link.hasRel(relation)).findFirst().orElse(null);
+	}
+
+	private static MultiValueMap<String, String> query(Link link) {
+		return UriComponentsBuilder.fromUriString(link.getHref()).build().getQueryParams();
+	}
+}
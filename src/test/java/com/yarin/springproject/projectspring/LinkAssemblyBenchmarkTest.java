@@ -0,0 +1,133 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.job.JobController;
+import com.yarin.springproject.projectspring.job.JobDTO;
+import com.yarin.springproject.projectspring.job.JobDtoAssembler;
+import com.yarin.springproject.projectspring.job.JobEntityAssembler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Measures the time it takes to assemble one element of a 10k-element collection, in nanoseconds, with the links
+ * built by {@code linkTo} for every element (as the assemblers used to) against the link templates the assemblers
+ * resolve once. No database is involved: only the HATEOAS models are built, for a mock request.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class LinkAssemblyBenchmarkTest {
+	private static final int ELEMENTS = 10_000;
+	private static final int ROUNDS = 20;
+
+	private final JobDtoAssembler jobDtoAssembler = new JobDtoAssembler();
+	private final JobEntityAssembler jobEntityAssembler = new JobEntityAssembler();
+
+	@BeforeEach
+	void bindRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/jobs/info");
+		request.setServerPort(8080);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+	}
+
+	@AfterEach
+	void unbindRequest() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void jobDtoAssembly() {
+		List<JobDTO> jobs = new ArrayList<>(ELEMENTS);
+		for (long id = 1; id <= ELEMENTS; id++) {
+			jobs.add(new JobDTO(id, "Java Developer " + id, "20K", "Haifa", 1L, "Google", 2L, "Bench Mark", "bench@mark.com"));
+		}
+		compare("JobDTO", jobs, LinkAssemblyBenchmarkTest::linkToJobDtos, jobDtoAssembler::toCollectionModel);
+	}
+
+	@Test
+	void jobEntityAssembly() {
+		List<Job> jobs = new ArrayList<>(ELEMENTS);
+		for (long id = 1; id <= ELEMENTS; id++) {
+			Job job = new Job();
+			job.setId(id);
+			job.setTitle("Java Developer " + id);
+			jobs.add(job);
+		}
+		compare("Job", jobs, LinkAssemblyBenchmarkTest::linkToJobs, jobEntityAssembler::toCollectionModel);
+	}
+
+	private static <T> void compare(String name, List<T> elements,
+									Function<List<T>, CollectionModel<EntityModel<T>>> perElement,
+									Function<List<T>, CollectionModel<EntityModel<T>>> templates) {
+		assertEquals(links(perElement.apply(elements)), links(templates.apply(elements)));
+
+		double perElementNanos = nanosPerElement(elements, perElement);
+		double templatesNanos = nanosPerElement(elements, templates);
+		System.out.printf("Assembled %d %s resources: linkTo per element %.0f ns/element, link templates %.0f ns/element (x%.1f)%n",
+				ELEMENTS, name, perElementNanos, templatesNanos, perElementNanos / templatesNanos);
+	}
+
+	private static <T> double nanosPerElement(List<T> elements, Function<List<T>, CollectionModel<EntityModel<T>>> assembly) {
+		for (int i = 0; i < ROUNDS; i++) {
+			assembly.apply(elements); // warm up
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			assembly.apply(elements);
+		}
+		return (System.nanoTime() - start) / (double) ROUNDS / ELEMENTS;
+	}
+
+	/**
+	 * The links of a collection and of its elements, as rendered (href and rel).
+	 */
+	private static List<String> links(CollectionModel<? extends EntityModel<?>> model) {
+		List<String> links = new ArrayList<>();
+		model.getLinks().forEach(link -> links.add(link.toString()));
+		model.getContent().forEach(resource -> resource.getLinks().forEach(link -> links.add(link.toString())));
+		return links;
+	}
+
+	/**
+	 * The JobDtoAssembler as it was: a proxy invocation and a mapping lookup for every link.
+	 */
+	private static CollectionModel<EntityModel<JobDTO>> linkToJobDtos(List<JobDTO> jobs) {
+		List<EntityModel<JobDTO>> resources = new ArrayList<>(jobs.size());
+		for (JobDTO job : jobs) {
+			resources.add(EntityModel.of(job, linkTo(methodOn(JobController.class).singleJobInfo(job.getId(), null)).withSelfRel()));
+		}
+		return CollectionModel.of(resources,
+				linkTo(methodOn(JobController.class).allJobsInfo(null, null, null, null, null, null, null)).withSelfRel().expand());
+	}
+
+	/**
+	 * The JobEntityAssembler as it was: the id field looked up and the collection link built twice for every element.
+	 */
+	private static CollectionModel<EntityModel<Job>> linkToJobs(List<Job> jobs) {
+		List<EntityModel<Job>> resources = new ArrayList<>(jobs.size());
+		for (Job job : jobs) {
+			Field id = ReflectionUtils.findField(Job.class, "id");
+			ReflectionUtils.makeAccessible(id);
+			resources.add(EntityModel.of(job,
+					linkTo(JobController.class).slash("jobs").slash(ReflectionUtils.getField(id, job)).withSelfRel(),
+					linkTo(JobController.class).slash("jobs").withRel("jobs")));
+		}
+		return CollectionModel.of(resources, linkTo(JobController.class).slash("jobs").withSelfRel());
+	}
+}
@@ -0,0 +1,65 @@
+package com.yarin.springproject.projectspring;
+
+import com.sun.net.httpserver.HttpServer;
+import com.yarin.springproject.projectspring.randomuser.RandomUser;
+import com.yarin.springproject.projectspring.service.LocalRandomUserService;
+import com.yarin.springproject.projectspring.service.RandomUserProperties;
+import com.yarin.springproject.projectspring.service.RemoteRandomUserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Generates users with the LocalRandomUserService, directly and as the fallback of a failing random user API.
+ */
+class LocalRandomUserServiceTest {
+	private final LocalRandomUserService localService = new LocalRandomUserService();
+
+	@Test
+	void generatesNamedUsersWithUniqueEmails() {
+		List<RandomUser> users = localService.generate(200_000);
+		users.addAll(localService.fetchUsers(5000));
+
+		assertEquals(users.size(), users.stream().map(RandomUser::getEmail).distinct().count());
+		RandomUser user = users.get(0);
+		assertTrue(user.getEmail().startsWith(user.getName().getFirst().toLowerCase() + "."), user.getEmail());
+		assertTrue(user.getEmail().endsWith("@example.com"), user.getEmail());
+		assertThrows(IllegalArgumentException.class, () -> localService.fetchUsers(5001));
+	}
+
+	@Test
+	void generatesTheUsersWhileTheApiIsFailing() throws IOException {
+		AtomicInteger calls = new AtomicInteger();
+		HttpServer failingApi = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		failingApi.createContext("/api/", exchange -> {
+			calls.incrementAndGet();
+			exchange.sendResponseHeaders(500, -1);
+			exchange.close();
+		});
+		failingApi.start();
+		RemoteRandomUserService remoteService = new RemoteRandomUserService(new RestTemplateBuilder(),
+				new RandomUserProperties(RandomUserProperties.Source.REMOTE,
+						URI.create("http://localhost:" + failingApi.getAddress().getPort()),
+						Duration.ofSeconds(1), Duration.ofSeconds(1), 1, 0, 0, Duration.ofSeconds(1), Duration.ofMinutes(1)),
+				localService);
+
+		try {
+			assertTrue(remoteService.fetchUsers(3).stream().allMatch(user -> user.getEmail().endsWith("@example.com")));
+			assertEquals(1, remoteService.fetchUsers(1).size());
+			assertEquals(1, calls.get(), "the API is not called again during the fallback duration");
+		} finally {
+			remoteService.close();
+			failingApi.stop(0);
+		}
+	}
+}
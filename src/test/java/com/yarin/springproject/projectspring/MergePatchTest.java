@@ -0,0 +1,183 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.job.JobRepo;
+import com.yarin.springproject.projectspring.recruiter.Recruiter;
+import com.yarin.springproject.projectspring.recruiter.RecruiterRepo;
+import com.yarin.springproject.projectspring.service.MergePatchService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Patches the jobs and the recruiters of SeedDB2 through the PATCH endpoints, with and without If-Match, and checks
+ * that only the patched columns change and that a stale ETag is refused. Every test patches a job of its own.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"spring.datasource.url=jdbc:h2:mem:mergepatch", "randomuser.source=local"})
+class MergePatchTest {
+	@Autowired
+	private TestRestTemplate restTemplate;
+	@Autowired
+	private JobRepo jobRepo;
+	@Autowired
+	private RecruiterRepo recruiterRepo;
+
+	@Test
+	void patchesTheGivenFieldsOfTheVersionInIfMatch() {
+		Job before = job("CPP Developer");
+		String eTag = eTag("/jobs/" + before.getId() + "/info");
+
+		ResponseEntity<String> response = patch("/jobs/" + before.getId(), Map.of("salary", "14K"), eTag);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode(), response.getBody());
+		assertNotNull(response.getHeaders().getETag());
+		assertNotEquals(eTag, response.getHeaders().getETag());
+		assertEquals(response.getHeaders().getETag(), eTag("/jobs/" + before.getId() + "/info"));
+		Job after = jobRepo.findById(before.getId()).orElseThrow();
+		assertEquals("14K", after.getSalary());
+		assertEquals(14, after.getSalaryThousands());
+		assertEquals(before.getTitle(), after.getTitle());
+		assertEquals(before.getLocation(), after.getLocation());
+		assertEquals(before.getVersion() + 1, after.getVersion());
+
+		ResponseEntity<String> stale = patch("/jobs/" + before.getId(), Map.of("salary", "13K"), eTag);
+
+		assertEquals(HttpStatus.PRECONDITION_FAILED, stale.getStatusCode(), stale.getBody());
+		assertEquals("14K", jobRepo.findById(before.getId()).orElseThrow().getSalary());
+	}
+
+	@Test
+	void patchesAnyVersionWithoutIfMatch() {
+		Job job = job("Devops");
+
+		assertEquals(HttpStatus.OK, patch("/jobs/" + job.getId(), Map.of("title", "DevOps Engineer"), null).getStatusCode());
+		assertEquals(HttpStatus.OK, patch("/jobs/" + job.getId(), Map.of("location", "Haifa"), "*").getStatusCode());
+
+		Job after = jobRepo.findById(job.getId()).orElseThrow();
+		assertEquals("DevOps Engineer", after.getTitle());
+		assertEquals("Haifa", after.getLocation());
+		assertEquals(job.getVersion() + 2, after.getVersion());
+	}
+
+	@Test
+	void removesTheFieldsPatchedWithNull() {
+		Job job = job("Front-end Developer");
+		Map<String, Object> patch = new HashMap<>();
+		patch.put("location", null);
+		patch.put("salary", null);
+
+		ResponseEntity<String> response = patch("/jobs/" + job.getId(), patch, null);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode(), response.getBody());
+		Job after = jobRepo.findById(job.getId()).orElseThrow();
+		assertNull(after.getLocation());
+		assertNull(after.getSalary());
+		assertNull(after.getSalaryThousands());
+		assertEquals(job.getTitle(), after.getTitle());
+	}
+
+	@Test
+	void refusesInvalidPatches() {
+		Job job = job("Java Developer");
+		Map<String, Object> noTitle = new HashMap<>();
+		noTitle.put("title", null);
+
+		assertEquals(HttpStatus.BAD_REQUEST, patch("/jobs/" + job.getId(), Map.of("company", "Google"), null).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, patch("/jobs/" + job.getId(), Map.of("salary", "high"), null).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, patch("/jobs/" + job.getId(), Map.of("salary", 20), null).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, patch("/jobs/" + job.getId(), noTitle, null).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, patch("/jobs/" + job.getId(), Map.of(), null).getStatusCode());
+		assertEquals(job.getVersion(), jobRepo.findById(job.getId()).orElseThrow().getVersion());
+
+		assertEquals(HttpStatus.NOT_FOUND, patch("/jobs/999999", Map.of("title", "Missing"), null).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, patch("/recruiters/999999", Map.of("name", "Missing"), null).getStatusCode());
+	}
+
+	@Test
+	void patchesARecruiter() {
+		Recruiter recruiter = recruiterRepo.findAll().stream()
+				.filter(r -> r.getName().equals("Paul Pogba")).findFirst().orElseThrow();
+		String eTag = eTag("/recruiters/" + recruiter.getId() + "/info");
+
+		ResponseEntity<String> response = patch("/recruiters/" + recruiter.getId(),
+				Map.of("email", "pogba@example.com"), eTag);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode(), response.getBody());
+		assertEquals(response.getHeaders().getETag(), eTag("/recruiters/" + recruiter.getId() + "/info"));
+		Recruiter after = recruiterRepo.findById(recruiter.getId()).orElseThrow();
+		assertEquals("pogba@example.com", after.getEmail());
+		assertEquals("Paul Pogba", after.getName());
+		assertEquals(HttpStatus.PRECONDITION_FAILED,
+				patch("/recruiters/" + recruiter.getId(), Map.of("name", "Paul"), eTag).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST,
+				patch("/recruiters/" + recruiter.getId(), Map.of("email", "not an email"), null).getStatusCode());
+	}
+
+	@Test
+	void refusesTheEmailOfAnotherRecruiter() {
+		Recruiter first = recruiterRepo.save(new Recruiter("Kylian Mbappe", "mbappe@example.com"));
+		Recruiter second = recruiterRepo.save(new Recruiter("Karim Benzema", "benzema@example.com"));
+
+		ResponseEntity<String> response = patch("/recruiters/" + second.getId(), Map.of("email", first.getEmail()), null);
+
+		assertEquals(HttpStatus.CONFLICT, response.getStatusCode(), response.getBody());
+		Recruiter after = recruiterRepo.findById(second.getId()).orElseThrow();
+		assertEquals("benzema@example.com", after.getEmail());
+		assertEquals(second.getVersion(), after.getVersion());
+		assertEquals(HttpStatus.OK, patch("/recruiters/" + first.getId(), Map.of("email", first.getEmail(), "name", "Mbappe"),
+				null).getStatusCode(), "a recruiter keeps its own email");
+	}
+
+	@Test
+	void refusesAPutWithAStaleIfMatch() {
+		Recruiter recruiter = recruiterRepo.findAll().stream()
+				.filter(r -> r.getName().equals("Barak Itzhaki")).findFirst().orElseThrow();
+		String stale = "\"recruiter-" + recruiter.getId() + "-" + (recruiter.getVersion() + 1) + "-1-1\"";
+		HttpHeaders headers = new HttpHeaders();
+		headers.setIfMatch(stale);
+
+		ResponseEntity<String> response = restTemplate.exchange("/recruiters/" + recruiter.getId(), HttpMethod.PUT,
+				new HttpEntity<>(Map.of("name", "Barak"), headers), String.class);
+
+		assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode(), response.getBody());
+		assertEquals("Barak Itzhaki", recruiterRepo.findById(recruiter.getId()).orElseThrow().getName());
+	}
+
+	private Job job(String title) {
+		return jobRepo.findAll().stream()
+				.filter(job -> job.getTitle().equals(title))
+				.findFirst()
+				.orElseThrow();
+	}
+
+	private String eTag(String path) {
+		ResponseEntity<String> response = restTemplate.getForEntity(path, String.class);
+		assertEquals(HttpStatus.OK, response.getStatusCode(), response.getBody());
+		return response.getHeaders().getETag();
+	}
+
+	private ResponseEntity<String> patch(String path, Map<String, Object> patch, String ifMatch) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.parseMediaType(MergePatchService.MEDIA_TYPE));
+		if (ifMatch != null) {
+			headers.setIfMatch(ifMatch);
+		}
+		return restTemplate.exchange(path, HttpMethod.PATCH, new HttpEntity<>(patch, headers), String.class);
+	}
+}
@@ -0,0 +1,63 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.job.JobController;
+import com.yarin.springproject.projectspring.job.JobDtoAssembler;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Requests the job collections of SeedDB2 and checks the timers of the controller and the assembler, and the entities
+ * counted per request by the EntityHydrationMetrics.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"spring.datasource.url=jdbc:h2:mem:metrics", "randomuser.source=local"})
+class MetricsTest {
+	@Autowired
+	private TestRestTemplate restTemplate;
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void recordsTheControllerTheAssemblerAndTheEntitiesOfARequest() throws InterruptedException {
+		assertEquals(HttpStatus.OK, restTemplate.getForEntity("/jobs/info", String.class).getStatusCode());
+		assertEquals(HttpStatus.OK, restTemplate.getForEntity("/jobs", String.class).getStatusCode());
+
+		assertTrue(meterRegistry.get("controller.invocations")
+				.tags("class", JobController.class.getName(), "method", "allJobsInfo")
+				.timer().count() >= 1);
+		assertTrue(meterRegistry.get("assembler.invocations")
+				.tags("class", JobDtoAssembler.class.getName(), "method", "toCollectionModel")
+				.timer().count() >= 1);
+
+		DistributionSummary info = entities("/jobs/info");
+		assertEquals(1, info.count());
+		assertEquals(0, info.totalAmount(), "the DTOs of /jobs/info are read without loading entities");
+		DistributionSummary jobs = entities("/jobs");
+		assertEquals(1, jobs.count());
+		assertTrue(jobs.totalAmount() >= 5, "the 5 jobs of /jobs are loaded: " + jobs.totalAmount());
+	}
+
+	/**
+	 * Waits for the summary of an endpoint, which is recorded once the response is written.
+	 */
+	private DistributionSummary entities(String uri) throws InterruptedException {
+		DistributionSummary summary = null;
+		for (int attempt = 0; attempt < 100 && (summary == null || summary.count() == 0); attempt++) {
+			summary = meterRegistry.find("http.server.requests.entities").tags("method", "GET", "uri", uri).summary();
+			if (summary == null || summary.count() == 0) {
+				Thread.sleep(20);
+			}
+		}
+		assertNotNull(summary, uri);
+		return summary;
+	}
+}
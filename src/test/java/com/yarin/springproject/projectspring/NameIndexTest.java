@@ -0,0 +1,120 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.company.CompaniesChangedEvent;
+import com.yarin.springproject.projectspring.company.Company;
+import com.yarin.springproject.projectspring.company.CompanyRepo;
+import com.yarin.springproject.projectspring.recruiter.Recruiter;
+import com.yarin.springproject.projectspring.recruiter.RecruiterRepo;
+import com.yarin.springproject.projectspring.recruiter.RecruitersChangedEvent;
+import com.yarin.springproject.projectspring.search.NameIndex;
+import com.yarin.springproject.projectspring.search.NameView;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Builds the NameIndex from stubbed repositories, read in batches of 1000 names, and checks the recruiter and company
+ * lookups, the change events, and that the lookups keep their results while the index is rebuilt.
+ */
+class NameIndexTest {
+	private final RecruiterRepo recruiterRepo = mock(RecruiterRepo.class);
+	private final CompanyRepo companyRepo = mock(CompanyRepo.class);
+	private final NameIndex nameIndex = new NameIndex(recruiterRepo, companyRepo);
+
+	@Test
+	void resolvesPartialNamesReadInBatches() {
+		List<NameView> recruiters = new ArrayList<>();
+		for (long id = 1; id <= 1500; id++) {
+			recruiters.add(new Name(id, "Recruiter " + id));
+		}
+		recruiters.add(new Name(1501L, "Barak Itzhaki"));
+		when(recruiterRepo.findNamesByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class))).thenAnswer(
+				invocation -> after(recruiters, invocation.getArgument(0), invocation.getArgument(1)));
+		when(companyRepo.findNamesByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class))).thenAnswer(
+				invocation -> after(List.of(new Name(1L, "Facebook"), new Name(2L, "Twitter")),
+						invocation.getArgument(0), invocation.getArgument(1)));
+
+		nameIndex.rebuild();
+
+		assertEquals(Set.of(1501L), nameIndex.recruitersNamed("itzh"));
+		assertEquals(Set.of(1499L), nameIndex.recruitersNamed("er 1499"), "the second batch is indexed");
+		assertEquals(Set.of(1L), nameIndex.companiesNamed("BOOK"));
+		assertEquals(Set.of(), nameIndex.companiesNamed("Google"));
+	}
+
+	@Test
+	void followsTheChangeEvents() {
+		stubNames(List.of(new Name(1L, "Barak Itzhaki")), List.of(new Name(1L, "Facebook")));
+		nameIndex.rebuild();
+
+		Recruiter recruiter = new Recruiter("Paul Pogba", "paulPogba@hotmail.co.il");
+		recruiter.setId(2L);
+		nameIndex.onRecruitersChanged(RecruitersChangedEvent.saved(List.of(recruiter)));
+		nameIndex.onRecruitersChanged(RecruitersChangedEvent.deleted(List.of(1L), List.of()));
+		Company company = new Company("Twitter");
+		company.setId(2L);
+		nameIndex.onCompaniesChanged(CompaniesChangedEvent.saved(List.of(company)));
+
+		assertEquals(Set.of(2L), nameIndex.recruitersNamed("pogba"));
+		assertEquals(Set.of(), nameIndex.recruitersNamed("barak"));
+		assertEquals(Set.of(2L), nameIndex.companiesNamed("twit"));
+		assertEquals(Set.of(1L), nameIndex.companiesNamed("face"));
+	}
+
+	@Test
+	void keepsAnsweringWithTheCurrentNamesDuringARebuild() {
+		stubNames(List.of(new Name(1L, "Barak Itzhaki")), List.of(new Name(1L, "Facebook")));
+		nameIndex.rebuild();
+
+		List<Set<Long>> seenDuringRebuild = new ArrayList<>();
+		when(recruiterRepo.findNamesByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+			seenDuringRebuild.add(nameIndex.recruitersNamed("barak"));
+			return after(List.of(new Name(1L, "Barak Itzhaki"), new Name(2L, "Barak Levi")),
+					invocation.getArgument(0), invocation.getArgument(1));
+		});
+		when(companyRepo.findNamesByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Pageable.class))).thenAnswer(invocation -> {
+			seenDuringRebuild.add(nameIndex.companiesNamed("facebook"));
+			return List.of(new Name(1L, "Facebook"));
+		});
+		nameIndex.rebuild();
+
+		assertEquals(List.of(Set.of(1L), Set.of(1L), Set.of(1L)), seenDuringRebuild);
+		assertEquals(Set.of(1L, 2L), nameIndex.recruitersNamed("barak"));
+	}
+
+	private void stubNames(List<NameView> recruiters, List<NameView> companies) {
+		when(recruiterRepo.findNamesByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class))).thenAnswer(
+				invocation -> after(recruiters, invocation.getArgument(0), invocation.getArgument(1)));
+		when(companyRepo.findNamesByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class))).thenAnswer(
+				invocation -> after(companies, invocation.getArgument(0), invocation.getArgument(1)));
+	}
+
+	/**
+	 * The batch a findNamesByIdGreaterThanOrderByIdAsc query returns from names sorted by ID.
+	 */
+	private static List<NameView> after(List<NameView> names, Long id, Pageable pageable) {
+		return names.stream().filter(name -> name.getId() > id).limit(pageable.getPageSize()).toList();
+	}
+
+	private record Name(Long id, String name) implements NameView {
+		@Override
+		public Long getId() {
+			return id;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package com.yarin.springproject.projectspring;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.yarin.springproject.projectspring.recruiter.RecruiterRepo;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Creates random recruiters against a local stub of the random user API, set with the randomuser.base-url property.
+ * The stub answers with the requested number of users, the first of which has the email of a seeded recruiter and
+ * the next two the same email. The RandomUserBuffer is disabled, so that every user is fetched when it is needed.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"spring.datasource.url=jdbc:h2:mem:randomrecruiters", "randomuser.buffer-capacity=0"})
+class RandomRecruiterBatchTest {
+	private static final String SEEDED_EMAIL = "barakItzhaki@gmail.com";
+
+	private static final List<String> queries = new CopyOnWriteArrayList<>();
+	private static final AtomicInteger users = new AtomicInteger();
+	private static final HttpServer stub = startStub();
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+	@Autowired
+	private RecruiterRepo recruiterRepo;
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@DynamicPropertySource
+	static void randomUserApi(DynamicPropertyRegistry registry) {
+		registry.add("randomuser.base-url", () -> "http://localhost:" + stub.getAddress().getPort());
+	}
+
+	@AfterAll
+	static void stopStub() {
+		stub.stop(0);
+	}
+
+	@BeforeEach
+	void clearQueries() {
+		queries.clear();
+	}
+
+	@Test
+	void createsTheNewRecruitersOfOneBatch() throws IOException {
+		long recruiters = recruiterRepo.count();
+
+		ResponseEntity<String> response = restTemplate.postForEntity("/recruiters/randomUser?count=5", null, String.class);
+
+		assertEquals(HttpStatus.CREATED, response.getStatusCode());
+		JsonNode body = objectMapper.readTree(response.getBody());
+		List<String> emails = body.findValuesAsText("email");
+		assertEquals(3, emails.size(), "the seeded email and the repeated email are skipped");
+		assertTrue(emails.stream().noneMatch(SEEDED_EMAIL::equals));
+		assertEquals(recruiters + 3, recruiterRepo.count());
+		assertEquals(List.of("results=5&inc=name,email"), queries, "the users are fetched with a single call");
+	}
+
+	@Test
+	void createsOneRecruiter() {
+		ResponseEntity<String> response = restTemplate.postForEntity("/recruiters/randomUser", null, String.class);
+
+		assertEquals(HttpStatus.CONFLICT, response.getStatusCode(), "the first user has the email of a seeded recruiter");
+		assertEquals(List.of("results=1&inc=name,email"), queries);
+	}
+
+	@Test
+	void rejectsACountOutOfRange() {
+		ResponseEntity<String> response = restTemplate.postForEntity("/recruiters/randomUser?count=0", null, String.class);
+
+		assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+		assertNotNull(response.getBody());
+		assertTrue(queries.isEmpty());
+	}
+
+	private static HttpServer startStub() {
+		try {
+			HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+			server.createContext("/api/", exchange -> {
+				String query = exchange.getRequestURI().getQuery();
+				queries.add(query);
+				int count = Integer.parseInt(query.replaceAll(".*results=(\\d+).*", "$1"));
+				StringBuilder json = new StringBuilder("{\"results\":[");
+				for (int i = 0; i < count; i++) {
+					String email = i == 0 ? SEEDED_EMAIL : i <= 2 ? "twice@stub.test" : "user" + users.incrementAndGet() + "@stub.test";
+					json.append(i == 0 ? "" : ",")
+							.append("{\"name\":{\"title\":\"Mx\",\"first\":\"Stub\",\"last\":\"User").append(i).append("\"},")
+							.append("\"email\":\"").append(email).append("\"}");
+				}
+				byte[] bytes = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().set("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, bytes.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(bytes);
+				}
+			});
+			server.start();
+			return server;
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.randomuser.RandomUser;
+import com.yarin.springproject.projectspring.service.RandomUserAPIService;
+import com.yarin.springproject.projectspring.service.RandomUserBuffer;
+import com.yarin.springproject.projectspring.service.RandomUserProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.web.client.RestClientException;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Takes users from a RandomUserBuffer with a capacity of 10 and a low watermark of 3, refilled on the calling thread.
+ */
+class RandomUserBufferTest {
+	private final RandomUserAPIService randomUserAPIService = mock(RandomUserAPIService.class);
+	private final List<Integer> fetches = new ArrayList<>();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final RandomUserBuffer buffer = new RandomUserBuffer(randomUserAPIService, new SyncTaskExecutor(),
+			new RandomUserProperties(RandomUserProperties.Source.REMOTE, URI.create("http://localhost"),
+					Duration.ofSeconds(1), Duration.ofSeconds(1), 1, 10, 3, Duration.ofSeconds(1), Duration.ofMinutes(1)),
+			meterRegistry);
+
+	@Test
+	void refillsInBatchesBelowTheLowWatermark() {
+		when(randomUserAPIService.fetchUsers(anyInt())).thenAnswer(invocation -> users(invocation.getArgument(0)));
+
+		buffer.fill();
+		assertEquals(List.of(10), fetches);
+		for (int i = 0; i < 7; i++) {
+			buffer.take();
+		}
+		assertEquals(3, buffer.size());
+		assertEquals(List.of(10), fetches, "the buffer is not refilled until it falls below the low watermark");
+
+		buffer.take();
+		assertEquals(List.of(10, 8), fetches);
+		assertEquals(10, buffer.size());
+		assertEquals(10, meterRegistry.get("randomuser.buffer.size").gauge().value());
+		assertEquals(2, meterRegistry.get("randomuser.buffer.refill").timer().count());
+		assertEquals(0, meterRegistry.get("randomuser.buffer.misses").counter().count());
+	}
+
+	@Test
+	void fetchesOnTheCallingThreadWhenEmpty() {
+		when(randomUserAPIService.fetchUsers(anyInt())).thenAnswer(invocation -> {
+			int count = invocation.getArgument(0);
+			if (count > 1) {
+				fetches.add(count);
+				throw new RestClientException("unavailable");
+			}
+			return users(count);
+		});
+
+		RandomUser user = buffer.take();
+
+		assertEquals("user0@test", user.getEmail());
+		assertEquals(List.of(10, 1), fetches, "the failed refill leaves the buffer empty");
+		assertEquals(0, buffer.size());
+		assertEquals(1, meterRegistry.get("randomuser.buffer.misses").counter().count());
+	}
+
+	private List<RandomUser> users(int count) {
+		fetches.add(count);
+		return IntStream.range(0, count).mapToObj(i -> {
+			RandomUser user = new RandomUser();
+			user.setEmail("user" + i + "@test");
+			return user;
+		}).toList();
+	}
+}
@@ -0,0 +1,126 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.search.RankedPage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cuts pages out of ranked IDs, from the whole ranking and from the top of it, and checks the next and prev links they
+ * write into the current request, the last and empty pages, and the page numbers and sizes out of range.
+ */
+class RankedPageTest {
+	private static final List<Long> RANKED = LongStream.rangeClosed(1, 12).map(id -> 100 - id).boxed().toList();
+
+	@BeforeEach
+	void bindRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/jobs/Java");
+		request.setServerPort(8080);
+		request.setQueryString("size=5&page=1");
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+	}
+
+	@AfterEach
+	void unbindRequest() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void linksTheNeighbouringPages() {
+		RankedPage<Long> first = RankedPage.of(RANKED, 0, 5);
+		assertEquals(RANKED.subList(0, 5), first.getContent());
+		assertEquals(List.of("next"), relations(first));
+		assertEquals("1", query(first.getLinks().get(0), "page"));
+
+		RankedPage<Long> middle = RankedPage.of(RANKED, 1, 5);
+		assertEquals(RANKED.subList(5, 10), middle.getContent());
+		assertEquals(List.of("next", "prev"), relations(middle));
+		assertEquals("2", query(middle.getLinks().get(0), "page"));
+		assertEquals("0", query(middle.getLinks().get(1), "page"));
+		assertEquals("5", query(middle.getLinks().get(0), "size"), "the other parameters are kept");
+
+		RankedPage<Long> last = RankedPage.of(RANKED, 2, 5);
+		assertEquals(RANKED.subList(10, 12), last.getContent());
+		assertFalse(last.isHasNext());
+		assertEquals(List.of("prev"), relations(last));
+	}
+
+	@Test
+	void hasNoNextPageAfterAFullLastPage() {
+		RankedPage<Long> last = RankedPage.of(RANKED, 2, 4);
+
+		assertEquals(RANKED.subList(8, 12), last.getContent());
+		assertFalse(last.isHasNext());
+		assertEquals(List.of("prev"), relations(last));
+	}
+
+	@Test
+	void cutsEmptyPagesPastTheEndAndWithoutResults() {
+		RankedPage<Long> past = RankedPage.of(RANKED, 7, 5);
+		assertTrue(past.getContent().isEmpty());
+		assertFalse(past.isHasNext());
+		assertEquals("6", query(past.getLinks().get(0), "page"), "a page past the end links back");
+
+		RankedPage<Long> none = RankedPage.of(List.<Long>of(), 0, 5);
+		assertTrue(none.getContent().isEmpty());
+		assertTrue(none.getLinks().isEmpty());
+
+		RankedPage<Long> huge = RankedPage.of(RANKED, Integer.MAX_VALUE, 100);
+		assertTrue(huge.getContent().isEmpty(), "the offset of a huge page number does not overflow");
+	}
+
+	@Test
+	void defaultsAndClampsThePageNumberAndSize() {
+		RankedPage<Long> defaults = RankedPage.of(RANKED, null, null);
+		assertEquals(0, defaults.getPage());
+		assertEquals(RANKED, defaults.getContent());
+
+		RankedPage<Long> negative = RankedPage.of(RANKED, -3, 0);
+		assertEquals(0, negative.getPage());
+		assertEquals(RANKED.subList(0, 1), negative.getContent(), "a page holds one result at least");
+		assertTrue(negative.getLinks().stream().noneMatch(link -> link.hasRel("prev")));
+	}
+
+	@Test
+	void cutsTheSamePagesFromTheTopOfTheRanking() {
+		for (int page = 0; page <= 3; page++) {
+			RankedPage<Long> whole = RankedPage.of(RANKED, page, 5);
+			int top = Math.min((page + 1) * 5, RANKED.size());
+			RankedPage<Long> fromTop = RankedPage.of(RANKED.subList(0, top), page, 5, RANKED.size());
+
+			assertEquals(whole.getContent(), fromTop.getContent(), "page " + page);
+			assertEquals(whole.isHasNext(), fromTop.isHasNext(), "page " + page);
+			assertEquals(whole.getPage(), fromTop.getPage(), "page " + page);
+		}
+	}
+
+	@Test
+	void keepsThePageWhenConvertingTheContent() {
+		RankedPage<String> mapped = RankedPage.of(RANKED, 1, 5)
+				.mapContent(ids -> ids.stream().map(id -> "job " + id).toList());
+
+		assertEquals(List.of("job 94", "job 93", "job 92", "job 91", "job 90"), mapped.getContent());
+		assertEquals(1, mapped.getPage());
+		assertTrue(mapped.isHasNext());
+	}
+
+	private static List<String> relations(RankedPage<?> page) {
+		return page.getLinks().stream().map(link -> link.getRel().value()).toList();
+	}
+
+	private static String query(Link link, String parameter) {
+		return UriComponentsBuilder.fromUriString(link.getHref()).build().getQueryParams().getFirst(parameter);
+	}
+}
@@ -0,0 +1,121 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.company.Company;
+import com.yarin.springproject.projectspring.company.CompanyRepo;
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.job.JobRepo;
+import com.yarin.springproject.projectspring.recruiter.Recruiter;
+import com.yarin.springproject.projectspring.recruiter.RecruiterRepo;
+import com.yarin.springproject.projectspring.service.TalentService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures how long deleting a recruiter that owns {@value #JOBS} jobs takes, and so how long its rows stay locked,
+ * when the recruiter, its jobs and its companies are loaded and removed one entity at a time (as DELETE
+ * /recruiters/{id} used to, through the cascades) against the set-based delete of TalentService#deleteRecruiter.
+ * Run with: mvn test -Pbenchmark
+ */
+@SpringBootTest
+@Tag("benchmark")
+class RecruiterDeletionBenchmarkTest {
+	private static final int JOBS = 10_000;
+	private static final int WARM_UP_JOBS = 1_000;
+	private static final int ROUNDS = 3;
+	private static final int CHUNK_SIZE = 500;
+
+	@Autowired
+	private TalentService talentService;
+	@Autowired
+	private JobRepo jobRepo;
+	@Autowired
+	private CompanyRepo companyRepo;
+	@Autowired
+	private RecruiterRepo recruiterRepo;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void deletionTime() {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		Company company = companyRepo.save(new Company("Benchmark"));
+		LongConsumer entityByEntity = id -> transactionTemplate.executeWithoutResult(status -> deleteEntityByEntity(id));
+		LongConsumer setBased = talentService::deleteRecruiter;
+		delete(company, WARM_UP_JOBS, entityByEntity);
+		delete(company, WARM_UP_JOBS, setBased);
+
+		long count = jobRepo.count();
+		double[] entityByEntityMillis = new double[ROUNDS];
+		double[] setBasedMillis = new double[ROUNDS];
+		for (int round = 0; round < ROUNDS; round++) {
+			entityByEntityMillis[round] = delete(company, JOBS, entityByEntity);
+			setBasedMillis[round] = delete(company, JOBS, setBased);
+		}
+		assertEquals(count, jobRepo.count());
+
+		double before = median(entityByEntityMillis);
+		double after = median(setBasedMillis);
+		System.out.printf("Deleted a recruiter with %d jobs: entity by entity %.0f ms, set-based %.0f ms (x%.1f), "
+				+ "median of %d%n", JOBS, before, after, before / after, ROUNDS);
+	}
+
+	/**
+	 * The deletion of the recruiter before the set-based statements: the recruiter is loaded, removed from its
+	 * companies, and deleted with its jobs, each job being loaded and deleted by its own statement.
+	 */
+	private void deleteEntityByEntity(long id) {
+		Recruiter recruiter = recruiterRepo.findById(id).orElseThrow();
+		for (Company company : recruiter.getCompanies()) {
+			company.getRecruiters().remove(recruiter);
+		}
+		jobRepo.deleteAll(recruiter.getJobs());
+		recruiterRepo.delete(recruiter);
+	}
+
+	/**
+	 * Creates a recruiter of the company with the given number of jobs, and times its deletion.
+	 *
+	 * @return the time taken by the deletion, in milliseconds
+	 */
+	private double delete(Company company, int jobs, LongConsumer deletion) {
+		Recruiter recruiter = recruiterRepo.save(new Recruiter("Bench Mark", "bench" + System.nanoTime() + "@mark.com"));
+		talentService.linkRecruiterToCompany(company.getId(), recruiter.getId());
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		for (int from = 0; from < jobs; from += CHUNK_SIZE) {
+			List<Job> chunk = new ArrayList<>(CHUNK_SIZE);
+			for (int i = from; i < Math.min(from + CHUNK_SIZE, jobs); i++) {
+				chunk.add(new Job("Benchmark Engineer " + i, (10 + i % 40) + "K", "Haifa", company, recruiter));
+			}
+			transactionTemplate.executeWithoutResult(status -> {
+				jobRepo.saveAll(chunk);
+				entityManager.flush();
+				entityManager.clear();
+			});
+		}
+		long start = System.nanoTime();
+		deletion.accept(recruiter.getId());
+		double millis = (System.nanoTime() - start) / 1e6;
+		assertEquals(0, jobRepo.findIdsByRecruiterId(recruiter.getId()).size());
+		return millis;
+	}
+
+	private static double median(double[] values) {
+		double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+}
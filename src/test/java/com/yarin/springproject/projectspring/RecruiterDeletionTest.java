@@ -0,0 +1,83 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.search.JobFacetIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Deletes recruiters and jobs of a small synthetic dataset, and checks what is deleted with them and what is kept.
+ * Every test works on a recruiter of its own.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"spring.datasource.url=jdbc:h2:mem:recruiterdeletion", "randomuser.source=local",
+				"seed.mode=synthetic", "seed.random-seed=13", "seed.companies=10", "seed.recruiters=100",
+				"seed.jobs=3000"})
+class RecruiterDeletionTest {
+	@Autowired
+	private TestRestTemplate restTemplate;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private JobFacetIndex jobFacetIndex;
+
+	@Test
+	void deletesTheRecruiterWithItsJobsAndCompanyLinks() {
+		long companyId = count("select company_id from company_recruiter where recruiter_id = 5");
+		long companyVersion = count("select version from company where id = " + companyId);
+		long jobs = count("select count(*) from job where recruiter_id = 5");
+		long otherJobs = count("select count(*) from job where recruiter_id <> 5");
+		assertTrue(jobs > 0);
+		int indexed = jobFacetIndex.size();
+
+		ResponseEntity<String> response = restTemplate.exchange("/recruiters/5", HttpMethod.DELETE, null, String.class);
+
+		assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode(), response.getBody());
+		assertEquals(0, count("select count(*) from recruiter where id = 5"));
+		assertEquals(0, count("select count(*) from job where recruiter_id = 5"));
+		assertEquals(0, count("select count(*) from company_recruiter where recruiter_id = 5"));
+		assertEquals(otherJobs, count("select count(*) from job"));
+		assertEquals(companyVersion + 1, count("select version from company where id = " + companyId),
+				"the company is kept, with a new version");
+		assertEquals(indexed - jobs, jobFacetIndex.size());
+		assertEquals(HttpStatus.NOT_FOUND,
+				restTemplate.getForEntity("/recruiters/5/info", String.class).getStatusCode());
+	}
+
+	@Test
+	void refusesToDeleteAMissingRecruiter() {
+		long jobs = count("select count(*) from job");
+
+		ResponseEntity<String> response = restTemplate.exchange("/recruiters/999999", HttpMethod.DELETE, null,
+				String.class);
+
+		assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode(), response.getBody());
+		assertEquals(jobs, count("select count(*) from job"));
+	}
+
+	@Test
+	void deletesAJobWithoutItsRecruiter() {
+		long jobId = count("select min(id) from job where recruiter_id = 6");
+		long jobs = count("select count(*) from job where recruiter_id = 6");
+
+		ResponseEntity<String> response = restTemplate.exchange("/jobs/" + jobId, HttpMethod.DELETE, null,
+				String.class);
+
+		assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode(), response.getBody());
+		assertEquals(1, count("select count(*) from recruiter where id = 6"));
+		assertEquals(jobs - 1, count("select count(*) from job where recruiter_id = 6"));
+	}
+
+	private long count(String sql) {
+		Long count = jdbcTemplate.queryForObject(sql, Long.class);
+		return count == null ? 0 : count;
+	}
+}
@@ -0,0 +1,82 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.job.JobRepo;
+import com.yarin.springproject.projectspring.recruiter.Recruiter;
+import com.yarin.springproject.projectspring.recruiter.RecruiterRepo;
+import com.yarin.springproject.projectspring.service.MergePatchService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Links a recruiter of SeedDB2 to a new company, by posting a job, and checks that a client holding the previous ETag
+ * of the recruiter gets the new representation instead of a 304. Also patches a job, and checks the same for the
+ * recruiter collection, which shows the jobs of every recruiter.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"spring.datasource.url=jdbc:h2:mem:recruiteretag", "randomuser.source=local"})
+class RecruiterETagTest {
+	@Autowired
+	private TestRestTemplate restTemplate;
+	@Autowired
+	private RecruiterRepo recruiterRepo;
+	@Autowired
+	private JobRepo jobRepo;
+
+	@Test
+	void changesWhenTheRecruiterIsLinkedToACompany() {
+		Recruiter recruiter = recruiterRepo.findByEmail("barakItzhaki@gmail.com").orElseThrow();
+		String path = "/recruiters/" + recruiter.getId() + "/info";
+		String eTag = restTemplate.getForEntity(path, String.class).getHeaders().getETag();
+		assertEquals(HttpStatus.NOT_MODIFIED, getIfNoneMatch(path, eTag).getStatusCode());
+
+		ResponseEntity<String> created = restTemplate.postForEntity("/jobs", Map.of("title", "Scala Developer",
+				"salary", "30K", "location", "Haifa", "company", Map.of("name", "Etag Labs"),
+				"recruiter", Map.of("name", recruiter.getName(), "email", recruiter.getEmail())), String.class);
+		assertEquals(HttpStatus.CREATED, created.getStatusCode(), created.getBody());
+
+		ResponseEntity<String> response = getIfNoneMatch(path, eTag);
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertNotEquals(eTag, response.getHeaders().getETag());
+		assertEquals(recruiter.getVersion() + 1, recruiterRepo.findById(recruiter.getId()).orElseThrow().getVersion(),
+				"the new link increments the version of the recruiter");
+	}
+
+	@Test
+	void recruiterCollectionChangesWhenAJobIsPatched() {
+		String eTag = restTemplate.getForEntity("/recruiters/info", String.class).getHeaders().getETag();
+		assertEquals(HttpStatus.NOT_MODIFIED, getIfNoneMatch("/recruiters/info", eTag).getStatusCode());
+
+		Job job = jobRepo.findAll().get(0);
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.parseMediaType(MergePatchService.MEDIA_TYPE));
+		ResponseEntity<String> patched = restTemplate.exchange("/jobs/" + job.getId(), HttpMethod.PATCH,
+				new HttpEntity<>(Map.of("title", "Staff " + job.getTitle()), headers), String.class);
+		assertEquals(HttpStatus.OK, patched.getStatusCode(), patched.getBody());
+
+		ResponseEntity<String> response = getIfNoneMatch("/recruiters/info", eTag);
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertNotEquals(eTag, response.getHeaders().getETag());
+		assertTrue(response.getBody().contains("Staff " + job.getTitle()), response.getBody());
+	}
+
+	private ResponseEntity<String> getIfNoneMatch(String path, String eTag) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setIfNoneMatch(eTag);
+		return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+	}
+}
@@ -0,0 +1,132 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.job.JobRepo;
+import com.yarin.springproject.projectspring.recruiter.Recruiter;
+import com.yarin.springproject.projectspring.recruiter.RecruiterRepo;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares the throughput and the latency of the application handling requests on the Tomcat thread pool and on
+ * virtual threads (spring.threads.virtual.enabled), with 2k clients sending requests at the same time.
+ * Every client sends a request as soon as it got the answer to the previous one, for /jobs/{id}/info or
+ * /recruiters/{id}/info, which block on JDBC. The application is started twice, once per mode; the virtual
+ * thread mode is skipped on a Java runtime older than 21.
+ * Run with: mvn test -Pbenchmark, optionally with -DargLine="-Dclients=2000 -DwarmUpSeconds=30 -DmeasureSeconds=30"
+ */
+@Tag("benchmark")
+class RequestConcurrencyBenchmarkTest {
+	private static final int CLIENTS = Integer.getInteger("clients", 2_000);
+	private static final Duration WARM_UP = Duration.ofSeconds(Integer.getInteger("warmUpSeconds", 30));
+	private static final Duration MEASURE = Duration.ofSeconds(Integer.getInteger("measureSeconds", 30));
+
+	private record Result(double requestsPerSecond, long p50Millis, long p99Millis, long errors) {
+	}
+
+	@Test
+	void platformAndVirtualThreads() throws InterruptedException {
+		Result platform = load(false);
+		print("platform threads", platform);
+		assumeTrue(Runtime.version().feature() >= 21, "virtual threads need Java 21 or later");
+		Result virtual = load(true);
+		print("virtual threads", virtual);
+		System.out.printf("Virtual/platform: throughput x%.2f, p99 x%.2f%n",
+				virtual.requestsPerSecond() / platform.requestsPerSecond(),
+				(double) virtual.p99Millis() / Math.max(1, platform.p99Millis()));
+	}
+
+	private static Result load(boolean virtualThreads) throws InterruptedException {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ProjectSpringApplication.class)
+				.run("--server.port=0", "--spring.jmx.enabled=false",
+						"--spring.threads.virtual.enabled=" + virtualThreads)) {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			List<URI> uris = new ArrayList<>();
+			for (Job job : context.getBean(JobRepo.class).findAll()) {
+				uris.add(URI.create("http://localhost:" + port + "/jobs/" + job.getId() + "/info"));
+			}
+			StreamSupport.stream(context.getBean(RecruiterRepo.class).findAll().spliterator(), false)
+					.map(Recruiter::getId)
+					.forEach(id -> uris.add(URI.create("http://localhost:" + port + "/recruiters/" + id + "/info")));
+			return run(uris);
+		}
+	}
+
+	private static Result run(List<URI> uris) throws InterruptedException {
+		HttpClient client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(30))
+				.build();
+		long start = System.nanoTime();
+		long measureFrom = start + WARM_UP.toNanos();
+		long end = measureFrom + MEASURE.toNanos();
+		ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+		AtomicLong errors = new AtomicLong();
+		CountDownLatch done = new CountDownLatch(CLIENTS);
+
+		for (int i = 0; i < CLIENTS; i++) {
+			send(client, uris, measureFrom, end, latencies, errors, done);
+		}
+		assertTrue(done.await(MEASURE.plus(WARM_UP).toSeconds() + 60, TimeUnit.SECONDS), "the clients did not finish");
+
+		long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+		return new Result(sorted.length / (double) MEASURE.toSeconds(),
+				percentile(sorted, 0.50), percentile(sorted, 0.99), errors.get());
+	}
+
+	/**
+	 * Sends one request of a client, and the next one when the answer comes, until the end of the run.
+	 */
+	private static void send(HttpClient client, List<URI> uris, long measureFrom, long end,
+							 ConcurrentLinkedQueue<Long> latencies, AtomicLong errors, CountDownLatch done) {
+		URI uri = uris.get(ThreadLocalRandom.current().nextInt(uris.size()));
+		long sent = System.nanoTime();
+		client.sendAsync(HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).build(),
+						HttpResponse.BodyHandlers.discarding())
+				.whenComplete((response, failure) -> {
+					long received = System.nanoTime();
+					if (failure != null || response.statusCode() != 200) {
+						errors.incrementAndGet();
+					} else if (sent >= measureFrom && received <= end) {
+						latencies.add(received - sent);
+					}
+					if (received < end) {
+						send(client, uris, measureFrom, end, latencies, errors, done);
+					} else {
+						done.countDown();
+					}
+				});
+	}
+
+	private static long percentile(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		return TimeUnit.NANOSECONDS.toMillis(sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))]);
+	}
+
+	private static void print(String mode, Result result) {
+		System.out.printf("%d clients on %s: %.0f requests/s, p50 %d ms, p99 %d ms, %d errors%n",
+				CLIENTS, mode, result.requestsPerSecond(), result.p50Millis(), result.p99Millis(), result.errors());
+	}
+}
@@ -0,0 +1,152 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.job.JobRepo;
+import com.yarin.springproject.projectspring.service.JobIngestionStatus;
+import com.yarin.springproject.projectspring.service.MergePatchService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reads the cached job collections of SeedDB2, changes the jobs through every write endpoint, and checks that the
+ * next response of /jobs/info and /jobs/search has the change instead of the cached body. Does the same for
+ * /recruiters/info, which shows the jobs of every recruiter, after a job is patched.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"spring.datasource.url=jdbc:h2:mem:responsecache", "randomuser.source=local"})
+class ResponseCacheTest {
+	private static final List<String> CACHED_PATHS = List.of("/jobs/info", "/jobs/search");
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+	@Autowired
+	private JobRepo jobRepo;
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void servesEveryWriteInTheNextResponse() throws InterruptedException {
+		assertAfterWrite(() -> exchange("/jobs/" + job("Devops").getId(), HttpMethod.PUT,
+						new HttpEntity<>(Map.of("title", "Site Reliability Engineer"))),
+				body -> body.contains("Site Reliability Engineer"));
+
+		assertAfterWrite(() -> exchange("/jobs/" + job("CPP Developer").getId(), HttpMethod.PATCH,
+						mergePatch(Map.of("location", "Eilat"))),
+				body -> body.contains("Eilat"));
+
+		assertAfterWrite(() -> exchange("/jobs?location=Haifa", HttpMethod.PATCH, mergePatch(Map.of("salary", "31K"))),
+				body -> body.contains("31K"));
+
+		assertAfterWrite(() -> exchange("/jobs?location=Holon", HttpMethod.DELETE, null),
+				body -> !body.contains("Holon"));
+
+		assertAfterWrite(this::createJobAsync, body -> body.contains("Cache Engineer"));
+	}
+
+	@Test
+	void servesAJobWriteInTheNextRecruiterCollection() {
+		double hits = hits("recruiters");
+		String before = get("/recruiters/info");
+		assertEquals(before, get("/recruiters/info"));
+		assertTrue(hits("recruiters") > hits, "/recruiters/info is served from the cache");
+		assertFalse(before.contains("Recruiting Lead"));
+
+		exchange("/jobs/" + job("Front-end Developer").getId(), HttpMethod.PATCH,
+				mergePatch(Map.of("title", "Recruiting Lead")));
+
+		assertEquals(0, meterRegistry.get("cache.size").tags("cache", "responses", "collection", "recruiters")
+				.gauge().value(), "the job write empties the recruiter cache");
+		String after = get("/recruiters/info");
+		assertTrue(after.contains("Recruiting Lead"), after);
+	}
+
+	/**
+	 * Reads the collections until they are served from the cache, runs the write, and checks the next responses.
+	 */
+	private void assertAfterWrite(Write write, Predicate<String> changed) throws InterruptedException {
+		for (String path : CACHED_PATHS) {
+			double hits = hits("jobs");
+			String before = get(path);
+			assertEquals(before, get(path));
+			assertTrue(hits("jobs") > hits, path + " is served from the cache");
+			assertFalse(changed.test(before), path + " has the change before the write");
+		}
+
+		write.run();
+
+		for (String path : CACHED_PATHS) {
+			String after = get(path);
+			assertTrue(changed.test(after), path + " has the change: " + after);
+		}
+	}
+
+	private void createJobAsync() throws InterruptedException {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Prefer", "respond-async");
+		Map<String, Object> job = Map.of("title", "Cache Engineer", "salary", "22K", "location", "Haifa",
+				"company", Map.of("name", "Facebook"),
+				"recruiter", Map.of("name", "Barak Itzhaki", "email", "barakItzhaki@gmail.com"));
+		ResponseEntity<JobIngestionStatus> response = restTemplate.postForEntity("/jobs",
+				new HttpEntity<>(job, headers), JobIngestionStatus.class);
+		assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+		URI location = response.getHeaders().getLocation();
+		JobIngestionStatus status = response.getBody();
+		for (int attempt = 0; attempt < 100 && status.state() == JobIngestionStatus.State.QUEUED; attempt++) {
+			Thread.sleep(50);
+			status = restTemplate.getForObject(location, JobIngestionStatus.class);
+		}
+		assertEquals(JobIngestionStatus.State.CREATED, status.state(), String.valueOf(status));
+	}
+
+	private void exchange(String path, HttpMethod method, HttpEntity<?> request) {
+		ResponseEntity<String> response = restTemplate.exchange(path, method, request, String.class);
+		assertEquals(HttpStatus.OK, response.getStatusCode(), response.getBody());
+	}
+
+	private String get(String path) {
+		ResponseEntity<String> response = restTemplate.getForEntity(path, String.class);
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		return response.getBody();
+	}
+
+	private double hits(String collection) {
+		return meterRegistry.get("cache.gets").tags("cache", "responses", "collection", collection, "result", "hit")
+				.functionCounter().count();
+	}
+
+	private Job job(String title) {
+		return jobRepo.findAll().stream()
+				.filter(job -> job.getTitle().equals(title))
+				.findFirst()
+				.orElseThrow();
+	}
+
+	private static HttpEntity<Map<String, Object>> mergePatch(Map<String, Object> patch) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.parseMediaType(MergePatchService.MEDIA_TYPE));
+		return new HttpEntity<>(patch, headers);
+	}
+
+	@FunctionalInterface
+	private interface Write {
+		void run() throws InterruptedException;
+	}
+}
@@ -0,0 +1,105 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.company.CompanyRepo;
+import com.yarin.springproject.projectspring.job.Job;
+import com.yarin.springproject.projectspring.job.JobRepo;
+import com.yarin.springproject.projectspring.recruiter.RecruiterRepo;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Seeds the database with a small synthetic dataset instead of the rows of SeedDB2, and checks the loaded rows, their
+ * distribution, and that the entities created afterwards do not reuse their IDs. The entities are created last, so
+ * that the other tests see the seeded rows only.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"spring.datasource.url=jdbc:h2:mem:synthetic", "randomuser.source=local",
+				"seed.mode=synthetic", "seed.random-seed=7", "seed.companies=20", "seed.recruiters=200",
+				"seed.jobs=5000"})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class SyntheticSeedDBTest {
+	@Autowired
+	private SeedProperties properties;
+	@Autowired
+	private TestRestTemplate restTemplate;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private CompanyRepo companyRepo;
+	@Autowired
+	private RecruiterRepo recruiterRepo;
+	@Autowired
+	private JobRepo jobRepo;
+
+	@Test
+	void loadsTheGeneratedDataset() {
+		assertEquals(20, companyRepo.count());
+		assertEquals(200, recruiterRepo.count());
+		assertEquals(5000, jobRepo.count());
+
+		SyntheticDataset dataset = new SyntheticDataset(properties);
+		List<SyntheticDataset.JobRow> rows = new ArrayList<>();
+		dataset.forEachJob(rows::add);
+		SyntheticDataset.JobRow row = rows.get(4321);
+		Job job = jobRepo.findById(row.id()).orElseThrow();
+		assertEquals(row.title(), job.getTitle());
+		assertEquals(row.salary(), job.getSalary());
+		assertEquals(row.salaryThousands(), job.getSalaryThousands());
+		assertEquals(row.location(), job.getLocation());
+		assertEquals(row.recruiterId(), job.getRecruiter().getId());
+		assertEquals(row.companyId(), job.getCompany().getId());
+		assertEquals(dataset.recruiters().get(9).email(), recruiterRepo.findById(10L).orElseThrow().getEmail());
+
+		List<SyntheticDataset.JobRow> again = new ArrayList<>();
+		new SyntheticDataset(properties).forEachJob(again::add);
+		assertEquals(rows, again, "the same seed gives the same jobs");
+	}
+
+	@Test
+	void skewsTheCompaniesAndTheLocations() {
+		List<Long> jobsPerCompany = jdbcTemplate.queryForList(
+				"select count(*) from job group by company_id order by company_id", Long.class);
+		assertTrue(jobsPerCompany.get(0) > 5 * jobsPerCompany.get(jobsPerCompany.size() - 1), jobsPerCompany.toString());
+		Map<String, Object> topLocation = jdbcTemplate.queryForMap(
+				"select location, count(*) jobs from job group by location order by jobs desc limit 1");
+		assertEquals("Tel-Aviv", topLocation.get("location"));
+		assertTrue(((Number) topLocation.get("jobs")).longValue() > 5000 / 5, topLocation.toString());
+		assertEquals(200, jdbcTemplate.queryForObject("select count(*) from company_recruiter", Integer.class),
+				"every recruiter works for one company");
+	}
+
+	@Test
+	@Order(Integer.MAX_VALUE)
+	void createsNewEntitiesAfterTheSeededOnes() {
+		Map<String, Object> job = Map.of("title", "Senior Java Developer", "salary", "30K", "location", "Haifa",
+				"company", Map.of("name", "Blue Labs"),
+				"recruiter", Map.of("name", "New Recruiter", "email", "new.recruiter@example.com"));
+
+		ResponseEntity<String> response = restTemplate.postForEntity("/jobs", job, String.class);
+
+		assertEquals(HttpStatus.CREATED, response.getStatusCode(), response.getBody());
+		URI location = response.getHeaders().getLocation();
+		assertNotNull(location);
+		long id = Long.parseLong(location.getPath().replaceAll(".*/", ""));
+		assertTrue(id > 5000, "the new job got the ID " + id);
+		assertTrue(recruiterRepo.findAll().stream().anyMatch(recruiter -> recruiter.getId() > 200));
+		assertEquals(20, companyRepo.count(), "the company was found by its name");
+	}
+}
@@ -0,0 +1,113 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.company.CompanyRepo;
+import com.yarin.springproject.projectspring.job.JobRepo;
+import com.yarin.springproject.projectspring.recruiter.Recruiter;
+import com.yarin.springproject.projectspring.recruiter.RecruiterRepo;
+import com.yarin.springproject.projectspring.recruiter.RecruitersChangedEvent;
+import com.yarin.springproject.projectspring.service.TalentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Looks up recruiter IDs by email through the cache of the TalentService, without a database, and checks that missing
+ * emails are not cached, that the previous emails of the changed recruiters are dropped and no other, and that a
+ * deletion reported while the ID is being loaded is not undone by the load.
+ */
+class TalentServiceCacheTest {
+	private final RecruiterRepo recruiterRepo = mock(RecruiterRepo.class);
+	private final TalentService talentService = new TalentService(mock(JobRepo.class), mock(CompanyRepo.class),
+			recruiterRepo, mock(JdbcTemplate.class),
+			new CaffeineCacheManager(TalentService.COMPANY_IDS_BY_NAME, TalentService.RECRUITER_IDS_BY_EMAIL));
+
+	@Test
+	void cachesTheFoundIdsOnly() {
+		when(recruiterRepo.findByEmail("barakItzhaki@gmail.com")).thenReturn(Optional.of(recruiter(1, "barakItzhaki@gmail.com")));
+		when(recruiterRepo.findByEmail("new@gmail.com")).thenReturn(Optional.empty());
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals(Optional.of(1L), talentService.findRecruiterIdByEmail("barakItzhaki@gmail.com"));
+			assertEquals(Optional.empty(), talentService.findRecruiterIdByEmail("new@gmail.com"));
+		}
+		assertEquals(Optional.empty(), talentService.findRecruiterIdByEmail(null));
+
+		verify(recruiterRepo, times(1)).findByEmail("barakItzhaki@gmail.com");
+		verify(recruiterRepo, times(3)).findByEmail("new@gmail.com");
+	}
+
+	@Test
+	void dropsThePreviousEmailsOfTheChangedRecruiters() {
+		Recruiter barak = recruiter(1, "barakItzhaki@gmail.com");
+		Recruiter paul = recruiter(2, "paulPogba@hotmail.co.il");
+		when(recruiterRepo.findByEmail(barak.getEmail())).thenReturn(Optional.of(barak));
+		when(recruiterRepo.findByEmail(paul.getEmail())).thenReturn(Optional.of(paul));
+		talentService.findRecruiterIdByEmail(barak.getEmail());
+		talentService.findRecruiterIdByEmail(paul.getEmail());
+
+		talentService.onRecruitersChanged(RecruitersChangedEvent.saved(List.of(barak, paul)));
+		talentService.onRecruitersChanged(RecruitersChangedEvent.updated(recruiter(2, "paulPogba@hotmail.co.il"),
+				"paulPogba@hotmail.co.il"));
+		talentService.findRecruiterIdByEmail(barak.getEmail());
+		talentService.findRecruiterIdByEmail(paul.getEmail());
+		verify(recruiterRepo, times(1)).findByEmail(barak.getEmail());
+		verify(recruiterRepo, times(1)).findByEmail(paul.getEmail());
+
+		when(recruiterRepo.findByEmail(barak.getEmail())).thenReturn(Optional.empty());
+		talentService.onRecruitersChanged(RecruitersChangedEvent.updated(recruiter(1, "barak@walla.com"),
+				barak.getEmail()));
+		assertEquals(Optional.empty(), talentService.findRecruiterIdByEmail(barak.getEmail()));
+
+		when(recruiterRepo.findByEmail(paul.getEmail())).thenReturn(Optional.empty());
+		talentService.onRecruitersChanged(RecruitersChangedEvent.deleted(List.of(2L), List.of(paul.getEmail())));
+		assertEquals(Optional.empty(), talentService.findRecruiterIdByEmail(paul.getEmail()));
+	}
+
+	@Test
+	void dropsADeletedRecruiterOnceItsIdIsLoaded() throws Exception {
+		String email = "barakItzhaki@gmail.com";
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch deleted = new CountDownLatch(1);
+		when(recruiterRepo.findByEmail(email)).thenAnswer(invocation -> {
+			loading.countDown();
+			// the recruiter is read before it is deleted, and the deletion is reported before the read returns
+			assertTrue(deleted.await(10, TimeUnit.SECONDS));
+			return Optional.of(recruiter(1, email));
+		}).thenReturn(Optional.empty());
+
+		CompletableFuture<Optional<Long>> lookup = CompletableFuture.supplyAsync(
+				() -> talentService.findRecruiterIdByEmail(email));
+		assertTrue(loading.await(10, TimeUnit.SECONDS));
+		Thread eviction = new Thread(() -> talentService.onRecruitersChanged(
+				RecruitersChangedEvent.deleted(List.of(1L), List.of(email))));
+		eviction.start();
+		while (eviction.getState() != Thread.State.BLOCKED && eviction.getState() != Thread.State.WAITING
+				&& eviction.getState() != Thread.State.TERMINATED) {
+			Thread.onSpinWait();
+		}
+		deleted.countDown();
+		eviction.join(10_000);
+
+		assertEquals(Optional.of(1L), lookup.get(10, TimeUnit.SECONDS), "the lookup made before the deletion");
+		assertEquals(Optional.empty(), talentService.findRecruiterIdByEmail(email), "the ID is not cached anymore");
+	}
+
+	private static Recruiter recruiter(long id, String email) {
+		Recruiter recruiter = new Recruiter("Recruiter " + id, email);
+		recruiter.setId(id);
+		return recruiter;
+	}
+}
@@ -0,0 +1,63 @@
+package com.yarin.springproject.projectspring;
+
+import com.yarin.springproject.projectspring.search.TrigramIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Indexes a few names and checks the substring queries: the candidates shared by all the trigrams of the query, the
+ * verification of these candidates, the queries shorter than a trigram, and replaced and removed names.
+ */
+class TrigramIndexTest {
+	private final TrigramIndex index = new TrigramIndex();
+
+	@Test
+	void findsTheNamesContainingTheQueryIgnoringCase() {
+		index.put(1L, "Barak Itzhaki");
+		index.put(2L, "Paul Pogba");
+		index.put(3L, "Barbara Streisand");
+
+		assertEquals(Set.of(1L), index.search("itzhak"));
+		assertEquals(Set.of(1L, 3L), index.search("BAR"));
+		assertEquals(Set.of(2L), index.search("l pog"), "trigrams span the spaces");
+		assertEquals(Set.of(), index.search("messi"));
+	}
+
+	@Test
+	void checksTheCandidatesHavingEveryTrigramOfTheQuery() {
+		index.put(1L, "bcd abc");
+		index.put(2L, "xabcdx");
+
+		// both have "abc" and "bcd", only the second has "abcd"
+		assertEquals(Set.of(2L), index.search("abcd"));
+	}
+
+	@Test
+	void checksEveryNameForQueriesShorterThanATrigram() {
+		index.put(1L, "Facebook");
+		index.put(2L, "Twitter");
+		index.put(3L, "Google");
+
+		assertEquals(Set.of(1L, 3L), index.search("o"));
+		assertEquals(Set.of(2L), index.search("TT"));
+		assertEquals(Set.of(1L, 2L, 3L), index.search(""));
+	}
+
+	@Test
+	void followsReplacedAndRemovedNames() {
+		index.put(1L, "Facebook");
+		index.put(2L, "Twitter");
+		index.put(3L, null);
+
+		index.put(1L, "Meta");
+		index.remove(2L);
+
+		assertEquals(1, index.size());
+		assertEquals(Set.of(), index.search("face"));
+		assertEquals(Set.of(1L), index.search("meta"));
+		assertEquals(Set.of(), index.search("twit"));
+	}
+}